@@ -0,0 +1,53 @@
+package com.team1_5.credwise.config;
+
+import com.team1_5.credwise.util.TokenBucketRateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class BatchProcessingConfig {
+    private static final Logger logger = LoggerFactory.getLogger(BatchProcessingConfig.class);
+
+    /**
+     * Executor for batch workers. "virtual" gives each partition a virtual thread
+     * where the runtime supports them (JDK 21+) and falls back to the fixed pool
+     * otherwise; the number of partitions, not the executor, bounds concurrency.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService loanBatchExecutor(
+            @Value("${loan.batch.workers:8}") int workers,
+            @Value("${loan.batch.executor:fixed}") String executorType) {
+        if ("virtual".equalsIgnoreCase(executorType)) {
+            try {
+                // Looked up reflectively so the application still starts on older runtimes
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                logger.warn("Virtual threads are not available on this runtime, using a fixed pool of {} batch workers", workers);
+            }
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, workers), runnable -> {
+            Thread thread = new Thread(runnable, "loan-batch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Global limit on calls to the ML service, shared by batch workers and the
+     * submission pipeline.
+     */
+    @Bean
+    public TokenBucketRateLimiter mlRateLimiter(
+            @Value("${loan.ml.rate-limit.per-second:20}") double permitsPerSecond,
+            @Value("${loan.ml.rate-limit.burst:20}") int burst) {
+        return new TokenBucketRateLimiter(permitsPerSecond, burst);
+    }
+}
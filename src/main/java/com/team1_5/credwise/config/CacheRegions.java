@@ -0,0 +1,22 @@
+package com.team1_5.credwise.config;
+
+import java.util.List;
+
+/**
+ * Query cache regions used by the repositories. Entity regions are named after the
+ * entity class. Each region's size and TTL are set in ehcache.xml; a region missing
+ * there fails startup rather than running unbounded.
+ */
+public final class CacheRegions {
+
+    public static final String USERS_QUERY = "query.users";
+    public static final String RESULTS_QUERY = "query.results";
+    public static final String DECISION_FACTORS_QUERY = "query.decision-factors";
+    public static final String FINANCIAL_INFO_QUERY = "query.financial-info";
+
+    public static final List<String> QUERY_REGIONS = List.of(
+            USERS_QUERY, RESULTS_QUERY, DECISION_FACTORS_QUERY, FINANCIAL_INFO_QUERY);
+
+    private CacheRegions() {
+    }
+}
@@ -0,0 +1,158 @@
+package com.team1_5.credwise.config;
+
+import com.team1_5.credwise.service.DocumentStorageService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Moves document content out of the database into the document store.
+ *
+ * Documents used to keep their base64 content in the documents.file_data LOB. For each
+ * row that still has it, the content is decoded as it is read, written to the store,
+ * and its hash recorded. The column is kept, nullable so new documents can leave it
+ * out, until loan.documents.migration.drop-file-data is set: only then, and only if
+ * every row's content hashes to its recorded hash and the stored blob still does too,
+ * is it dropped. loan_application_id loses its NOT NULL constraint as well, as uploaded
+ * documents have no application until they are referenced; ddl-auto=update does not
+ * relax constraints itself.
+ */
+@Component
+@DependsOn("entityManagerFactory") // the schema update must have run first
+public class DocumentBlobMigrator {
+    private static final Logger logger = LoggerFactory.getLogger(DocumentBlobMigrator.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DocumentStorageService documentStorage;
+    private final boolean dropFileData;
+
+    public DocumentBlobMigrator(JdbcTemplate jdbcTemplate, DocumentStorageService documentStorage,
+                                @Value("${loan.documents.migration.drop-file-data:false}") boolean dropFileData) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.documentStorage = documentStorage;
+        this.dropFileData = dropFileData;
+    }
+
+    @PostConstruct
+    public void migrateDocuments() {
+        Integer requiredApplication = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS WHERE UPPER(TABLE_NAME) = 'DOCUMENTS' " +
+                        "AND UPPER(COLUMN_NAME) = 'LOAN_APPLICATION_ID' AND IS_NULLABLE = 'NO'",
+                Integer.class);
+        if (requiredApplication != null && requiredApplication > 0) {
+            jdbcTemplate.execute("ALTER TABLE documents ALTER COLUMN loan_application_id SET NULL");
+            logger.info("Made documents.loan_application_id nullable");
+        }
+
+        Integer columns = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS " +
+                        "WHERE UPPER(TABLE_NAME) = 'DOCUMENTS' AND UPPER(COLUMN_NAME) = 'FILE_DATA'",
+                Integer.class);
+        if (columns == null || columns == 0) {
+            return;
+        }
+        Integer requiredFileData = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS WHERE UPPER(TABLE_NAME) = 'DOCUMENTS' " +
+                        "AND UPPER(COLUMN_NAME) = 'FILE_DATA' AND IS_NULLABLE = 'NO'",
+                Integer.class);
+        if (requiredFileData != null && requiredFileData > 0) {
+            jdbcTemplate.execute("ALTER TABLE documents ALTER COLUMN file_data SET NULL");
+            logger.info("Made documents.file_data nullable");
+        }
+
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM documents WHERE content_hash IS NULL AND file_data IS NOT NULL ORDER BY id", Long.class);
+        int failed = 0;
+        for (Long id : ids) {
+            try {
+                DocumentStorageService.StoredBlob blob = jdbcTemplate.query(
+                        "SELECT file_data FROM documents WHERE id = ?",
+                        rs -> {
+                            if (!rs.next()) {
+                                return null;
+                            }
+                            try (InputStream content = DocumentStorageService.decodeBase64(
+                                    rs.getClob("file_data").getAsciiStream())) {
+                                return documentStorage.store(content);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        },
+                        id);
+                if (blob != null) {
+                    jdbcTemplate.update("UPDATE documents SET content_hash = ?, size_bytes = ? WHERE id = ?",
+                            blob.sha256(), blob.size(), id);
+                }
+            } catch (Exception e) {
+                failed++;
+                logger.warn("Could not move content of document {} to the document store: {}", id, e.getMessage());
+            }
+        }
+        if (!ids.isEmpty()) {
+            logger.info("Moved {} of {} documents to the document store", ids.size() - failed, ids.size());
+        }
+
+        if (dropFileData) {
+            dropVerifiedFileData();
+        } else if (!ids.isEmpty()) {
+            logger.info("Keeping documents.file_data; set loan.documents.migration.drop-file-data=true " +
+                    "to verify the moved documents and drop it");
+        }
+    }
+
+    // Drop the column only once every document still holding content is verified
+    private void dropVerifiedFileData() {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM documents WHERE file_data IS NOT NULL ORDER BY id", Long.class);
+        int unverified = 0;
+        for (Long id : ids) {
+            try {
+                if (!verify(id)) {
+                    unverified++;
+                    logger.warn("Content of document {} does not match the document store", id);
+                }
+            } catch (Exception e) {
+                unverified++;
+                logger.warn("Could not verify content of document {}: {}", id, e.getMessage());
+            }
+        }
+        if (unverified > 0) {
+            logger.warn("Kept documents.file_data: {} of {} documents could not be verified", unverified, ids.size());
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE documents DROP COLUMN file_data");
+        logger.info("Verified {} documents against the document store and dropped documents.file_data", ids.size());
+    }
+
+    // The row's content must hash to its recorded hash, and the stored blob must still hash to it
+    private boolean verify(Long id) {
+        return Boolean.TRUE.equals(jdbcTemplate.query(
+                "SELECT file_data, content_hash FROM documents WHERE id = ?",
+                rs -> {
+                    if (!rs.next()) {
+                        return true;
+                    }
+                    String contentHash = rs.getString("content_hash");
+                    if (contentHash == null) {
+                        return false;
+                    }
+                    try (InputStream content = DocumentStorageService.decodeBase64(
+                            rs.getClob("file_data").getAsciiStream())) {
+                        return contentHash.equals(DocumentStorageService.hash(content))
+                                && documentStorage.verify(contentHash);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                },
+                id));
+    }
+}
@@ -0,0 +1,81 @@
+package com.team1_5.credwise.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves the pooled id sequences past the ids already stored in their tables.
+ *
+ * Debts, assets, employment history, documents and decision factors used to be
+ * IDENTITY columns. ddl-auto=update creates the new sequences starting at 1, which
+ * would collide with existing rows in a database created before the switch, so each
+ * sequence is restarted above MAX(id) once the schema update has run. A sequence
+ * that cannot be aligned fails startup. Only H2 is supported; on other databases
+ * the alignment is skipped with an error naming the sequences to restart by hand.
+ */
+@Component
+@DependsOn("entityManagerFactory") // the schema update must have run first
+public class IdSequenceAligner {
+    private static final Logger logger = LoggerFactory.getLogger(IdSequenceAligner.class);
+
+    // Must match the allocationSize of the @SequenceGenerator mappings
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final Map<String, String> SEQUENCES = new LinkedHashMap<>();
+    static {
+        SEQUENCES.put("employment_history_seq", "employment_history");
+        SEQUENCES.put("debts_seq", "debts");
+        SEQUENCES.put("assets_seq", "assets");
+        SEQUENCES.put("documents_seq", "documents");
+        SEQUENCES.put("decision_factors_seq", "decision_factors");
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdSequenceAligner(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void alignSequences() {
+        // The sequence lookup below reads H2's INFORMATION_SCHEMA
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"H2".equalsIgnoreCase(database)) {
+            logger.error("Id sequence alignment only supports H2, not {}; restart each of {} above "
+                    + "MAX(id) + {} of its table by hand before inserting rows", database, SEQUENCES.keySet(), ALLOCATION_SIZE);
+            return;
+        }
+
+        SEQUENCES.forEach((sequence, table) -> {
+            try {
+                Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+                List<Long> current = jdbcTemplate.queryForList(
+                        "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE UPPER(SEQUENCE_NAME) = UPPER(?)",
+                        Long.class, sequence);
+                if (current.isEmpty()) {
+                    throw new IllegalStateException("sequence does not exist");
+                }
+
+                // The pooled optimizer hands out ids up to ALLOCATION_SIZE below the sequence value
+                long required = maxId + ALLOCATION_SIZE + 1;
+                if (current.get(0) < required) {
+                    jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + required);
+                    logger.info("Restarted sequence {} at {} (max id in {} is {})", sequence, required, table, maxId);
+                }
+            } catch (RuntimeException e) {
+                // Starting anyway would hand out ids that collide with existing rows
+                throw new IllegalStateException("Could not align sequence " + sequence + " with table " + table, e);
+            }
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package com.team1_5.credwise.config;
+
+import com.team1_5.credwise.util.JwtUtil;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Authenticates requests that carry a valid Bearer token as that user, with ROLE_ADMIN
+ * added for the user ids configured as admins. Requests without a valid token carry on
+ * unauthenticated; SecurityConfig decides which paths need more.
+ */
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private final JwtUtil jwtUtil;
+    private final Set<Long> adminUserIds;
+
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, Set<Long> adminUserIds) {
+        this.jwtUtil = jwtUtil;
+        this.adminUserIds = adminUserIds;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Long userId = userId(request);
+        if (userId != null) {
+            List<GrantedAuthority> authorities = new ArrayList<>();
+            authorities.add(new SimpleGrantedAuthority("ROLE_USER"));
+            if (adminUserIds.contains(userId)) {
+                authorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+            }
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(userId, null, authorities));
+        }
+        chain.doFilter(request, response);
+    }
+
+    private Long userId(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            return jwtUtil.extractUserId(authorization.substring("Bearer ".length()));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
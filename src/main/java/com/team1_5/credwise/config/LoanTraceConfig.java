@@ -0,0 +1,35 @@
+package com.team1_5.credwise.config;
+
+import com.team1_5.credwise.util.LoanTrace;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Applies the loan.trace.* properties to {@link LoanTrace} at startup
+ */
+@Configuration
+public class LoanTraceConfig {
+
+    @Value("${loan.trace.enabled:false}")
+    private boolean enabled;
+
+    @Value("${loan.trace.sample-rate:0.0}")
+    private double sampleRate;
+
+    @Value("${loan.trace.application-ids:}")
+    private List<Long> applicationIds;
+
+    @Value("${loan.trace.events-per-application:200}")
+    private int eventsPerApplication;
+
+    @Value("${loan.trace.max-applications:500}")
+    private int maxApplications;
+
+    @PostConstruct
+    public void configureTrace() {
+        LoanTrace.configure(enabled, sampleRate, applicationIds, eventsPerApplication, maxApplications);
+    }
+}
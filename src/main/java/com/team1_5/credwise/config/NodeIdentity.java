@@ -0,0 +1,24 @@
+package com.team1_5.credwise.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Name of this instance in lease and job owners. Set loan.node-id to a stable value
+ * so a restarted node recognises its own work; otherwise pid@host is used.
+ */
+@Component
+public class NodeIdentity {
+
+    private final String id;
+
+    public NodeIdentity(@Value("${loan.node-id:}") String nodeId) {
+        this.id = nodeId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : nodeId;
+    }
+
+    public String getId() {
+        return id;
+    }
+}
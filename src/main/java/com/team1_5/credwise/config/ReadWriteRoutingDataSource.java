@@ -0,0 +1,49 @@
+package com.team1_5.credwise.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections for read-only transactions started by a service method annotated
+ * {@code @Transactional(readOnly = true)} to the read pool, and everything else to the
+ * primary. Spring Data repositories are read-only by default, so a findById or derived
+ * query called outside a service transaction also starts a read-only one; those stay on
+ * the primary, as they are often the read half of a read-then-write (idempotency claims,
+ * status polls, batch claims) and must not see a lagging replica. A declarative
+ * transaction is named after the method that started it, which is how the two are told
+ * apart. The read-only flag and name are only known once the transaction has started,
+ * so this sits behind a LazyConnectionDataSourceProxy, which asks for the real
+ * connection at the first statement rather than at begin.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route { PRIMARY, READ }
+
+    private static final String SERVICE_PACKAGE = "com.team1_5.credwise.service.";
+
+    // Set for a request whose user wrote recently, see ReadYourWritesFilter
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    public static void setPrimaryOnly(boolean primaryOnly) {
+        if (primaryOnly) {
+            PRIMARY_ONLY.set(Boolean.TRUE);
+        } else {
+            PRIMARY_ONLY.remove();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && startedByService(TransactionSynchronizationManager.getCurrentTransactionName())
+                && !Boolean.TRUE.equals(PRIMARY_ONLY.get())) {
+            return Route.READ;
+        }
+        return Route.PRIMARY;
+    }
+
+    static boolean startedByService(String transactionName) {
+        return transactionName != null && transactionName.startsWith(SERVICE_PACKAGE);
+    }
+}
@@ -0,0 +1,51 @@
+package com.team1_5.credwise.config;
+
+import com.team1_5.credwise.util.JwtUtil;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Keeps the requests of a user who wrote recently on the primary datasource,
+ * see ReadYourWritesTracker. Requests without a valid token are routed as usual.
+ */
+@Component
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final ReadYourWritesTracker tracker;
+    private final JwtUtil jwtUtil;
+
+    public ReadYourWritesFilter(ReadYourWritesTracker tracker, JwtUtil jwtUtil) {
+        this.tracker = tracker;
+        this.jwtUtil = jwtUtil;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ReadWriteRoutingDataSource.setPrimaryOnly(tracker.wroteRecently(userId(request)));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadWriteRoutingDataSource.setPrimaryOnly(false);
+        }
+    }
+
+    private Long userId(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return null;
+        }
+        try {
+            return jwtUtil.extractUserId(authorization.substring("Bearer ".length()));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
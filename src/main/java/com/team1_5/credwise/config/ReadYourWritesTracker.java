@@ -0,0 +1,43 @@
+package com.team1_5.credwise.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which users wrote recently, so that for loan.datasource.read-your-writes-seconds
+ * after a submission their reads go to the primary and they see their own application even
+ * while a replica lags. Kept per node: with several nodes a user's requests should be
+ * sticky, or the window set to cover the replica lag on its own.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private final long windowNanos;
+    private final Map<Long, Long> lastWriteByUser = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(@Value("${loan.datasource.read-your-writes-seconds:5}") long windowSeconds) {
+        this.windowNanos = Duration.ofSeconds(Math.max(0, windowSeconds)).toNanos();
+    }
+
+    public void recordWrite(Long userId) {
+        if (userId != null && windowNanos > 0) {
+            lastWriteByUser.put(userId, System.nanoTime());
+        }
+    }
+
+    public boolean wroteRecently(Long userId) {
+        Long lastWrite = userId != null ? lastWriteByUser.get(userId) : null;
+        return lastWrite != null && System.nanoTime() - lastWrite < windowNanos;
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictExpired() {
+        long now = System.nanoTime();
+        lastWriteByUser.values().removeIf(lastWrite -> now - lastWrite >= windowNanos);
+    }
+}
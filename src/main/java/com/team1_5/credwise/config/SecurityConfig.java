@@ -1,24 +1,32 @@
 package com.team1_5.credwise.config;
 
+import com.team1_5.credwise.util.JwtUtil;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtUtil jwtUtil,
+                                           @Value("${loan.admin.user-ids:}") List<Long> adminUserIds) throws Exception {
         http
                 // Disable CSRF protection for development
                 .csrf(csrf -> csrf.disable())
@@ -45,13 +53,22 @@ public class SecurityConfig {
                         // Optional: Add more specific public endpoints
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
 
+                        // The loan trace holds applicants' data and controls its own sampling
+                        .requestMatchers("/api/admin/loan-traces/**").hasRole("ADMIN")
+
                         // All other requests require authentication (uncomment if needed)
                         .anyRequest().permitAll()  // Changed from .authenticated()
                 )
 
                 // Disable default security mechanisms
                 .formLogin(form -> form.disable())
-                .httpBasic(basic -> basic.disable());
+                .httpBasic(basic -> basic.disable())
+
+                // Bearer tokens authenticate the caller for the paths above that need it
+                .addFilterBefore(new JwtAuthenticationFilter(jwtUtil, new HashSet<>(adminUserIds)),
+                        UsernamePasswordAuthenticationFilter.class)
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)));
 
         return http.build();
     }
@@ -0,0 +1,52 @@
+package com.team1_5.credwise.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread.
+ * Registered through hibernate.session_factory.statement_inspector so the
+ * number of database round trips per loan submission can be logged.
+ * Tests can also capture the statements themselves to check their shape.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<long[]> STATEMENTS = ThreadLocal.withInitial(() -> new long[1]);
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get()[0]++;
+        List<String> captured = CAPTURED.get();
+        if (captured != null) {
+            captured.add(sql);
+        }
+        return sql;
+    }
+
+    public static void reset() {
+        STATEMENTS.get()[0] = 0;
+    }
+
+    public static long get() {
+        return STATEMENTS.get()[0];
+    }
+
+    /**
+     * Start keeping the SQL of every statement prepared on this thread
+     */
+    public static void startCapture() {
+        CAPTURED.set(new ArrayList<>());
+    }
+
+    /**
+     * Stop keeping statements and return the ones prepared since {@link #startCapture()}
+     */
+    public static List<String> stopCapture() {
+        List<String> captured = CAPTURED.get();
+        CAPTURED.remove();
+        return captured != null ? captured : List.of();
+    }
+}
@@ -0,0 +1,140 @@
+package com.team1_5.credwise.controller;
+
+import com.team1_5.credwise.dto.DocumentUploadResponse;
+import com.team1_5.credwise.model.Document;
+import com.team1_5.credwise.service.DocumentService;
+import com.team1_5.credwise.service.DocumentStorageService;
+import com.team1_5.credwise.util.JwtUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+@RestController
+@RequestMapping("/api/documents")
+public class DocumentController {
+
+    // Tomcat's sendfile request attributes (see org.apache.catalina.Globals)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final DocumentService documentService;
+    private final JwtUtil jwtUtil;
+
+    public DocumentController(DocumentService documentService, JwtUtil jwtUtil) {
+        this.documentService = documentService;
+        this.jwtUtil = jwtUtil;
+    }
+
+    /**
+     * Upload a document as a multipart form: a {@code file} part and a {@code documentType}
+     * field. The part is streamed from the connector's temp file into the document store.
+     * Reference the returned documentId in the loan application's documents.
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<DocumentUploadResponse> uploadDocument(@RequestParam("file") MultipartFile file,
+                                                                 @RequestParam String documentType,
+                                                                 @RequestHeader("Authorization") String token) throws IOException {
+        Long userId = jwtUtil.extractUserId(token.replace("Bearer ", ""));
+        try (InputStream content = file.getInputStream()) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(documentService.upload(
+                    userId, documentType, file.getOriginalFilename(), file.getContentType(), content));
+        }
+    }
+
+    /**
+     * Upload a document as the raw request body, which may be sent chunked. The body is
+     * hashed and written to the document store as it arrives, never buffered.
+     * The request's Content-Type becomes the document's.
+     */
+    @PostMapping
+    public ResponseEntity<DocumentUploadResponse> uploadDocumentBody(@RequestParam String documentType,
+                                                                     @RequestParam(required = false) String fileName,
+                                                                     @RequestHeader("Authorization") String token,
+                                                                     HttpServletRequest request) throws IOException {
+        Long userId = jwtUtil.extractUserId(token.replace("Bearer ", ""));
+        return ResponseEntity.status(HttpStatus.CREATED).body(documentService.upload(
+                userId, documentType, fileName, request.getContentType(), request.getInputStream()));
+    }
+
+    /**
+     * Download a document's content. The stored file goes to the socket with sendfile
+     * when the connector supports it, otherwise through FileChannel.transferTo. A file
+     * stored gzipped is sent as is to clients that accept gzip, and inflated on the fly
+     * for the others. The content hash is a strong ETag, so repeat downloads get a 304.
+     */
+    @GetMapping("/{documentId}/content")
+    public void getDocumentContent(@PathVariable Long documentId,
+                                   @RequestHeader("Authorization") String token,
+                                   HttpServletRequest request,
+                                   HttpServletResponse response) throws IOException {
+        Long userId = jwtUtil.extractUserId(token.replace("Bearer ", ""));
+        Document document = documentService.getDocument(documentId, userId);
+        DocumentStorageService.BlobFile blob = documentService.getContentFile(document);
+
+        String etag = "\"" + document.getContentHash() + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setContentType(document.getContentType() != null
+                ? document.getContentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        String fileName = document.getFileName() != null ? document.getFileName() : "document-" + documentId;
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build().toString());
+
+        if (blob.gzip() && !acceptsGzip(request)) {
+            if (document.getSizeBytes() != null) {
+                response.setContentLengthLong(document.getSizeBytes());
+            }
+            try (InputStream content = documentService.openContent(document)) {
+                content.transferTo(response.getOutputStream());
+            }
+            return;
+        }
+
+        if (blob.gzip()) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLengthLong(blob.length());
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // Tomcat writes the file itself once the request returns
+            request.setAttribute(SENDFILE_FILENAME, blob.path().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, blob.length());
+            return;
+        }
+
+        try (FileChannel file = FileChannel.open(blob.path(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < blob.length()) {
+                position += file.transferTo(position, blob.length() - position, out);
+            }
+        }
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+}
@@ -2,31 +2,173 @@ package com.team1_5.credwise.controller;
 
 import com.team1_5.credwise.dto.LoanApplicationRequest;
 import com.team1_5.credwise.dto.LoanApplicationResponse;
+import com.team1_5.credwise.model.LoanApplication;
+import com.team1_5.credwise.service.BulkLoanSubmissionService;
+import com.team1_5.credwise.service.IdempotencyService;
 import com.team1_5.credwise.service.LoanApplicationService;
+import com.team1_5.credwise.service.LoanProcessingPipeline;
 import com.team1_5.credwise.util.JwtUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
 @RestController
 @RequestMapping("/api/loan-applications")
 public class LoanApplicationController {
 
+    // Statuses after which an application will not change without manual action
+    private static final Set<String> FINAL_STATUSES = Set.of("APPROVED", "DENIED", "REVIEW_NEEDED", "PROCESSING_ERROR");
+
     private final LoanApplicationService loanService;
+    private final LoanProcessingPipeline pipeline;
+    private final IdempotencyService idempotencyService;
+    private final BulkLoanSubmissionService bulkSubmissionService;
     private final JwtUtil jwtUtil;
 
-    public LoanApplicationController(LoanApplicationService loanService, JwtUtil jwtUtil) {
+    public LoanApplicationController(LoanApplicationService loanService,
+                                     LoanProcessingPipeline pipeline,
+                                     IdempotencyService idempotencyService,
+                                     BulkLoanSubmissionService bulkSubmissionService,
+                                     JwtUtil jwtUtil) {
         this.loanService = loanService;
+        this.pipeline = pipeline;
+        this.idempotencyService = idempotencyService;
+        this.bulkSubmissionService = bulkSubmissionService;
         this.jwtUtil = jwtUtil;
     }
 
+    /**
+     * Submit and process a loan application. Clients that may retry should send an
+     * Idempotency-Key header; a repeat with the same key gets the original response.
+     * If the decision is not ready within the pipeline's response timeout the
+     * application is still saved and a 202 pointing at the status endpoint is returned.
+     */
     @PostMapping
-    public ResponseEntity<LoanApplicationResponse> submitApplication(
+    public ResponseEntity<?> submitApplication(
+            @RequestHeader("Authorization") String token,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @Valid @RequestBody LoanApplicationRequest request) {
+
+        Long userId = jwtUtil.extractUserId(token.replace("Bearer ", ""));
+        return idempotencyService.execute(userId, idempotencyKey, request,
+                () -> processApplication(userId, request));
+    }
+
+    /**
+     * Persist and score the application, then return 202 straight away. The ML
+     * decision and result generation continue in the pipeline; poll the status
+     * endpoint for the outcome.
+     */
+    @PostMapping("/async")
+    public ResponseEntity<?> submitApplicationAsync(
             @RequestHeader("Authorization") String token,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @Valid @RequestBody LoanApplicationRequest request) {
 
         Long userId = jwtUtil.extractUserId(token.replace("Bearer ", ""));
-        LoanApplicationResponse response = loanService.processLoanApplication(userId, request);
+        return idempotencyService.execute(userId, idempotencyKey, request,
+                () -> acceptApplication(userId, request));
+    }
+
+    /**
+     * Submit many applications in one call, as a JSON array or as NDJSON (one
+     * application per line). Items are processed in parallel and one NDJSON result
+     * line is streamed back per item as it completes, followed by a summary line.
+     * Each line carries the item's index, since results arrive in completion order.
+     */
+    @PostMapping(value = "/bulk", consumes = {"application/json", "application/x-ndjson"},
+            produces = "application/x-ndjson")
+    public void submitApplicationsBulk(
+            @RequestHeader("Authorization") String token,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        Long userId = jwtUtil.extractUserId(token.replace("Bearer ", ""));
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        bulkSubmissionService.process(userId, request.getInputStream(), response.getOutputStream());
+    }
+
+    private ResponseEntity<?> processApplication(Long userId, LoanApplicationRequest request) {
+        LoanProcessingPipeline.Submission submission = pipeline.submit(userId, request);
+        if (submission == null) {
+            return serviceUnavailable();
+        }
+
+        LoanApplication application = pipeline.awaitDecision(submission);
+        if (application == null) {
+            return accepted(pipeline.awaitPersisted(submission));
+        }
+        return ResponseEntity.ok(loanService.buildSuccessResponse(application));
+    }
+
+    private ResponseEntity<?> acceptApplication(Long userId, LoanApplicationRequest request) {
+        LoanProcessingPipeline.Submission submission = pipeline.submit(userId, request);
+        if (submission == null) {
+            return serviceUnavailable();
+        }
+        return accepted(pipeline.awaitPersisted(submission));
+    }
+
+    private ResponseEntity<?> accepted(LoanApplication application) {
+        Long applicationId = application.getId();
+        LoanApplicationResponse response = new LoanApplicationResponse(
+                applicationId.toString(),
+                "Loan application accepted for processing",
+                application.getStatus()
+        );
+        if (application.getCreditScore() != null) {
+            response.setCreditScore(application.getCreditScore().intValue());
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/loan-applications/" + applicationId + "/status"))
+                .body(response);
+    }
+
+    private ResponseEntity<?> serviceUnavailable() {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("error", "Service Unavailable");
+        errorResponse.put("message", "Too many applications are being processed, please retry shortly");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "5")
+                .body(errorResponse);
+    }
+
+    @GetMapping("/{applicationId}/status")
+    public ResponseEntity<?> getApplicationStatus(
+            @PathVariable Long applicationId,
+            @RequestHeader("Authorization") String token) {
+
+        Long userId = jwtUtil.extractUserId(token.replace("Bearer ", ""));
+        LoanApplication application = loanService.getLoanApplication(applicationId);
+
+        if (application == null || !application.getUser().getId().equals(userId)) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Not Found");
+            errorResponse.put("message", "Loan application not found with id: " + applicationId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("applicationId", applicationId);
+        response.put("status", application.getStatus());
+        response.put("completed", FINAL_STATUSES.contains(application.getStatus()));
+        response.put("resultUrl", "/api/loan-applications-results/" + applicationId);
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/pipeline/metrics")
+    public ResponseEntity<Map<String, Object>> getPipelineMetrics() {
+        return ResponseEntity.ok(pipeline.getMetrics());
+    }
+}
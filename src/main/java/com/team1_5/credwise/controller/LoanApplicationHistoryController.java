@@ -1,14 +1,11 @@
 package com.team1_5.credwise.controller;
 
-import com.team1_5.credwise.model.LoanApplication;
+import com.team1_5.credwise.dto.LoanApplicationHistoryPage;
 import com.team1_5.credwise.service.LoanApplicationHistoryService;
 import com.team1_5.credwise.util.JwtUtil;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 @RestController
 @RequestMapping("/api/loan-applications-history")
 public class LoanApplicationHistoryController {
@@ -21,25 +18,22 @@ public class LoanApplicationHistoryController {
         this.jwtUtil = jwtUtil;
     }
 
+    /**
+     * One page of the caller's applications, oldest first. Pass the returned nextCursor
+     * as {@code cursor} for the following page; {@code size} is capped server-side.
+     */
     @GetMapping
-    public ResponseEntity<?> getLoanApplicationHistory(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<?> getLoanApplicationHistory(@RequestHeader("Authorization") String token,
+                                                       @RequestParam(required = false) String cursor,
+                                                       @RequestParam(required = false) Integer size) {
         Long userId = jwtUtil.extractUserId(token.replace("Bearer ", ""));
-        List<LoanApplication> applications = loanApplicationHistoryService.getLoanApplicationHistoryByUserId(userId);
+        LoanApplicationHistoryPage page = loanApplicationHistoryService.getLoanApplicationHistory(userId, cursor, size);
 
-        if (applications.isEmpty()) {
+        // A user with no applications at all
+        if (page.items().isEmpty() && cursor == null) {
             return ResponseEntity.notFound().build();
         }
 
-        return ResponseEntity.ok(
-                applications.stream().map(app -> new LoanApplicationHistoryResponse(
-                        app.getId(),
-                        app.getStatus(),
-                        app.getRequestedAmount(),
-                        app.getCreatedAt().toString()
-                )).collect(Collectors.toList())
-        );
+        return ResponseEntity.ok(page);
     }
-
-    // Inner DTO class for clean JSON response
-    private record LoanApplicationHistoryResponse(Long id, String status, java.math.BigDecimal amount, String createdAt) {}
 }
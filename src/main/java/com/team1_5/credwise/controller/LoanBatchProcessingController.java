@@ -1,21 +1,35 @@
 package com.team1_5.credwise.controller;
 
+import com.team1_5.credwise.exception.LoanApplicationException;
+import com.team1_5.credwise.model.BatchJob;
 import com.team1_5.credwise.model.FinancialInfo;
 import com.team1_5.credwise.model.LoanApplication;
-import com.team1_5.credwise.model.PersonalInfo;
+import com.team1_5.credwise.service.BacklogDrainService;
+import com.team1_5.credwise.service.BatchJobService;
+import com.team1_5.credwise.service.CreditRescoreService;
 import com.team1_5.credwise.service.LoanApplicationService;
 import com.team1_5.credwise.service.LoanMLService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Controller for batch processing loan applications
@@ -28,41 +42,156 @@ public class LoanBatchProcessingController {
     
     private final LoanApplicationService loanApplicationService;
     private final LoanMLService loanMLService;
+    private final BatchJobService batchJobService;
+    private final BacklogDrainService backlogDrainService;
+    private final CreditRescoreService creditRescoreService;
+    private final int batchWorkers;
+    private final String batchExecutor;
     
     public LoanBatchProcessingController(
             LoanApplicationService loanApplicationService,
-            LoanMLService loanMLService) {
+            LoanMLService loanMLService,
+            BatchJobService batchJobService,
+            BacklogDrainService backlogDrainService,
+            CreditRescoreService creditRescoreService,
+            @Value("${loan.batch.workers:8}") int batchWorkers,
+            @Value("${loan.batch.executor:fixed}") String batchExecutor) {
         this.loanApplicationService = loanApplicationService;
         this.loanMLService = loanMLService;
+        this.batchJobService = batchJobService;
+        this.backlogDrainService = backlogDrainService;
+        this.creditRescoreService = creditRescoreService;
+        this.batchWorkers = batchWorkers;
+        this.batchExecutor = batchExecutor;
     }
 
     /**
-     * Process all submitted loan applications
+     * Batch worker settings and ML rate limiter counters
+     */
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> getBatchMetrics() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("workers", batchWorkers);
+        response.put("executor", batchExecutor);
+        response.put("mlRateLimit", loanMLService.getRateLimitMetrics());
+        response.put("rescore", creditRescoreService.getMetrics());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Continuous drain status on this node and the age of the SUBMITTED backlog
+     */
+    @GetMapping("/drain")
+    public ResponseEntity<Map<String, Object>> getDrainMetrics() {
+        return ResponseEntity.ok(backlogDrainService.getMetrics());
+    }
+
+    /**
+     * Start or stop the continuous drain on this node
+     */
+    @PutMapping("/drain")
+    public ResponseEntity<Map<String, Object>> setDrainEnabled(@RequestParam boolean enabled) {
+        if (enabled) {
+            backlogDrainService.start();
+        } else {
+            backlogDrainService.stop();
+        }
+        return ResponseEntity.ok(backlogDrainService.getMetrics());
+    }
+
+    /**
+     * Start a background job that processes all submitted loan applications
      * 
-     * @return Response with the number of applications processed
+     * @return 202 with the job id; poll the job endpoint for progress
      */
     @PostMapping("/process-submitted")
     public ResponseEntity<Map<String, Object>> processAllSubmittedApplications() {
-        try {
-            logger.info("Starting batch processing of submitted loan applications");
-            int processedCount = loanApplicationService.processAllSubmittedApplications(loanMLService);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("processedCount", processedCount);
-            response.put("message", "Processed " + processedCount + " loan applications");
-            
-            logger.info("Completed batch processing, processed {} applications", processedCount);
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            logger.error("Error in batch processing of loan applications: {}", e.getMessage(), e);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("error", "Error processing applications: " + e.getMessage());
-            
-            return ResponseEntity.badRequest().body(response);
-        }
+        BatchJob job = batchJobService.start();
+        logger.info("Started batch job {} for submitted loan applications", job.getId());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("jobId", job.getId());
+        response.put("statusUrl", "/api/loan-applications/batch/jobs/" + job.getId());
+        response.put("message", "Batch processing started");
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/loan-applications/batch/jobs/" + job.getId()))
+                .body(response);
+    }
+
+    /**
+     * Start a background job that re-scores existing applications under a new scoring
+     * version, optionally only those with a given status or created in a date range.
+     * Scores are written as new versions and earlier ones are kept.
+     * 
+     * @return 202 with the job id; poll the job endpoint for progress against the target rate
+     */
+    @PostMapping("/rescore")
+    public ResponseEntity<Map<String, Object>> startRescore(
+            @RequestParam String scoringVersion,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(defaultValue = "true") boolean includeDecision) {
+        BatchJob job = batchJobService.startRescore(scoringVersion, status, createdFrom, createdTo, includeDecision);
+        logger.info("Started re-scoring job {} for scoring version {}", job.getId(), job.getScoringVersion());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("jobId", job.getId());
+        response.put("statusUrl", "/api/loan-applications/batch/jobs/" + job.getId());
+        response.put("message", "Re-scoring started for " + job.getTotalEstimate() + " applications");
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/loan-applications/batch/jobs/" + job.getId()))
+                .body(response);
+    }
+
+    /**
+     * Every scoring version recorded for an application, newest first
+     */
+    @GetMapping("/score-versions/{applicationId}")
+    public ResponseEntity<List<Map<String, Object>>> getScoreVersions(@PathVariable Long applicationId) {
+        return ResponseEntity.ok(creditRescoreService.getScoreVersions(applicationId).stream()
+                .map(version -> {
+                    Map<String, Object> view = new LinkedHashMap<>();
+                    view.put("scoringVersion", version.getScoringVersion());
+                    view.put("creditScore", version.getCreditScore());
+                    view.put("eligibilityScore", version.getEligibilityScore());
+                    view.put("creditScoreRating", version.getCreditScoreRating());
+                    view.put("dti", version.getDti());
+                    view.put("creditUtilization", version.getCreditUtilization());
+                    view.put("decision", version.getDecision());
+                    view.put("previousCreditScore", version.getPreviousCreditScore());
+                    view.put("previousStatus", version.getPreviousStatus());
+                    view.put("error", version.getErrorMessage());
+                    view.put("batchJobId", version.getBatchJobId());
+                    view.put("scoredAt", version.getScoredAt());
+                    return view;
+                })
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Progress of a batch job: processed and failed counts, rate and ETA
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable Long jobId) {
+        return ResponseEntity.ok(batchJobService.describe(batchJobService.getJob(jobId)));
+    }
+
+    @GetMapping("/jobs")
+    public ResponseEntity<List<Map<String, Object>>> getRecentJobs() {
+        return ResponseEntity.ok(batchJobService.getRecentJobs().stream()
+                .map(batchJobService::describe)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Cancel a running batch job; it stops after the chunk it is working on
+     */
+    @PostMapping("/jobs/{jobId}/cancel")
+    public ResponseEntity<Map<String, Object>> cancelJob(@PathVariable Long jobId) {
+        return ResponseEntity.accepted().body(batchJobService.describe(batchJobService.cancel(jobId)));
     }
 
     /**
@@ -76,31 +205,10 @@ public class LoanBatchProcessingController {
         try {
             logger.info("Starting processing of loan application ID: {}", applicationId);
             
-            // Get the application
-            LoanApplication application = loanApplicationService.getLoanApplication(applicationId);
-            
-            if (application == null) {
-                Map<String, Object> errorResponse = new HashMap<>();
-                errorResponse.put("success", false);
-                errorResponse.put("error", "Loan application not found with ID: " + applicationId);
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
-            }
-            
-            logger.info("Found loan application with status: {}", application.getStatus());
-            
-            // Get personal and financial info
-            PersonalInfo personalInfo = loanApplicationService.getPersonalInfo(applicationId);
-            FinancialInfo financialInfo = loanApplicationService.getFinancialInfo(applicationId);
-            
-            if (personalInfo == null || financialInfo == null) {
-                Map<String, Object> errorResponse = new HashMap<>();
-                errorResponse.put("success", false);
-                errorResponse.put("error", "Personal or financial information missing for application: " + applicationId);
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
-            }
-            
-            // Process application
-            application = loanApplicationService.processApplicationWithML(applicationId, personalInfo, financialInfo, loanMLService);
+            // Process application; the service loads the whole graph in a few queries and
+            // rejects missing applications or ones without personal or financial info
+            LoanApplication application = loanApplicationService.processApplicationWithML(applicationId, loanMLService);
+            FinancialInfo financialInfo = application.getFinancialInfo();
             
             logger.info("Processed application, new status: {}", application.getStatus());
             
@@ -114,6 +222,12 @@ public class LoanBatchProcessingController {
             
             return ResponseEntity.ok(response);
             
+        } catch (LoanApplicationException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", e.getMessage());
+            HttpStatus status = e.getStatus() != null ? e.getStatus() : HttpStatus.BAD_REQUEST;
+            return ResponseEntity.status(status).body(errorResponse);
         } catch (Exception e) {
             logger.error("Error processing loan application {}: {}", applicationId, e.getMessage(), e);
             
@@ -72,7 +72,12 @@ public class LoanMLController {
     @PostMapping("/process/{applicationId}")
     public ResponseEntity<?> processApplication(@PathVariable Long applicationId) {
         try {
-            LoanApplication application = loanApplicationService.getLoanApplication(applicationId);
+            // Load the whole graph up front so nothing is lazily fetched during the ML call
+            LoanApplication application = loanApplicationService.getApplicationGraph(applicationId);
+            if (application == null) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body("Loan application not found: " + applicationId);
+            }
             FinancialInfo financialInfo = application.getFinancialInfo();
             PersonalInfo personalInfo = application.getPersonalInfo();
             
@@ -87,8 +92,11 @@ public class LoanMLController {
             // Get ML decision
             Map<String, Object> mlDecision = loanMLService.getLoanDecision(application, financialInfo, personalInfo);
             
-            // Combine ML decision with credit data
+            // Combine the stored evaluation, the ML decision and the credit data
             Map<String, Object> combinedDecision = new HashMap<>();
+            if (application.getCreditEvaluationData() != null) {
+                combinedDecision.putAll(application.getCreditEvaluationData());
+            }
             combinedDecision.putAll(mlDecision);
             combinedDecision.putAll(creditData);
             
@@ -110,6 +118,26 @@ public class LoanMLController {
         }
     }
     
+    /**
+     * Get the credit evaluation stored with an application when it was scored and decided
+     * 
+     * @param applicationId The loan application ID
+     * @return Scores, ratings, DTI, utilization, ML outputs and the scoring rules version
+     */
+    @GetMapping("/evaluation/{applicationId}")
+    public ResponseEntity<?> getEvaluation(@PathVariable Long applicationId) {
+        LoanApplication application = loanApplicationRepository.findById(applicationId).orElse(null);
+        if (application == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body("Loan application not found: " + applicationId);
+        }
+        if (application.getCreditEvaluationData() == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body("Credit evaluation data not found for application ID: " + applicationId);
+        }
+        return ResponseEntity.ok(application.getCreditEvaluationData());
+    }
+
     /**
      * Safely convert BigDecimal to double with null check
      */
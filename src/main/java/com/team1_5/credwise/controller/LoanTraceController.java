@@ -0,0 +1,70 @@
+package com.team1_5.credwise.controller;
+
+import com.team1_5.credwise.util.LoanTrace;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin access to the sampled loan processing trace. SecurityConfig limits these
+ * endpoints to the users configured in loan.admin.user-ids
+ */
+@RestController
+@RequestMapping("/api/admin/loan-traces")
+public class LoanTraceController {
+
+    /**
+     * Current trace settings and the applications that have a trace buffer
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getTraceOverview() {
+        Map<String, Object> response = new HashMap<>(LoanTrace.getSettings());
+        response.put("tracedApplications", LoanTrace.getTracedApplicationIds());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{applicationId}")
+    public ResponseEntity<Map<String, Object>> getApplicationTrace(@PathVariable Long applicationId) {
+        List<LoanTrace.Event> events = LoanTrace.getEvents(applicationId);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("applicationId", applicationId);
+        response.put("eventCount", events.size());
+        response.put("events", events);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Change tracing at runtime without a restart
+     */
+    @PutMapping("/settings")
+    public ResponseEntity<Map<String, Object>> updateSettings(
+            @RequestParam(required = false) Boolean enabled,
+            @RequestParam(required = false) Double sampleRate) {
+        if (enabled != null) {
+            LoanTrace.setEnabled(enabled);
+        }
+        if (sampleRate != null) {
+            LoanTrace.setSampleRate(sampleRate);
+        }
+        return ResponseEntity.ok(LoanTrace.getSettings());
+    }
+
+    /**
+     * Trace every later stage of the given application, regardless of the sample rate
+     */
+    @PostMapping("/{applicationId}/target")
+    public ResponseEntity<Map<String, Object>> targetApplication(@PathVariable Long applicationId) {
+        LoanTrace.target(applicationId);
+        return ResponseEntity.ok(LoanTrace.getSettings());
+    }
+
+    @DeleteMapping("/{applicationId}/target")
+    public ResponseEntity<Map<String, Object>> untargetApplication(@PathVariable Long applicationId) {
+        LoanTrace.untarget(applicationId);
+        return ResponseEntity.ok(LoanTrace.getSettings());
+    }
+}
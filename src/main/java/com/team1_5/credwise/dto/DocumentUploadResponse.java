@@ -0,0 +1,12 @@
+package com.team1_5.credwise.dto;
+
+// An uploaded document; reference it by id in LoanApplicationRequest.documents
+public record DocumentUploadResponse(
+        Long documentId,
+        String documentType,
+        String fileName,
+        String contentType,
+        long sizeBytes,
+        String sha256,
+        boolean deduplicated
+) {}
@@ -0,0 +1,12 @@
+package com.team1_5.credwise.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One row of a user's loan history, selected directly by LoanApplicationHistoryRepository
+public record LoanApplicationHistoryItem(
+        Long id,
+        String status,
+        BigDecimal amount,
+        LocalDateTime createdAt
+) {}
@@ -0,0 +1,10 @@
+package com.team1_5.credwise.dto;
+
+import java.util.List;
+
+// A page of loan history; pass nextCursor back to get the next one (null on the last page)
+public record LoanApplicationHistoryPage(
+        List<LoanApplicationHistoryItem> items,
+        String nextCursor,
+        boolean hasMore
+) {}
@@ -524,9 +524,16 @@ public class LoanApplicationRequest {
         }
     }
 
+    /**
+     * A document for the application: either the id of one uploaded through
+     * POST /api/documents (preferred), or its content inline as base64.
+     */
     public static class DocumentRequest {
-        @NotBlank private String documentType;
-        @NotBlank private String file; // Base64 string
+        private Long documentId; // Uploaded document; its type is kept unless documentType is given
+        private String documentType;
+        private String file; // Base64 string
+
+        public DocumentRequest() {}
 
         // Constructor
         public DocumentRequest(String documentType, String file) {
@@ -534,6 +541,14 @@ public class LoanApplicationRequest {
             this.file = file;
         }
 
+        public Long getDocumentId() {
+            return documentId;
+        }
+
+        public void setDocumentId(Long documentId) {
+            this.documentId = documentId;
+        }
+
         // Getters and setters
         public String getDocumentType() {
             return documentType;
@@ -0,0 +1,129 @@
+package com.team1_5.credwise.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A background run over loan applications: a DRAIN of the SUBMITTED backlog, or a
+ * RESCORE of existing applications under a new scoring version. The checkpoint is the
+ * keyset position after the last committed chunk, so a job picked up by a restarted
+ * node continues from there.
+ */
+@Entity
+@Table(name = "batch_jobs")
+public class BatchJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String status; // RUNNING, COMPLETED, CANCELLED or FAILED
+
+    // DRAIN or RESCORE; nullable so rows from before job types read as DRAIN
+    @Column(name = "job_type")
+    private String type = "DRAIN";
+
+    // RESCORE only: the version to write and which applications to cover
+    @Column(name = "scoring_version", length = 50)
+    private String scoringVersion;
+
+    @Column(name = "filter_status")
+    private String filterStatus;
+
+    @Column(name = "filter_created_from")
+    private LocalDateTime filterCreatedFrom;
+
+    @Column(name = "filter_created_to")
+    private LocalDateTime filterCreatedTo;
+
+    @Column(name = "include_decision")
+    private Boolean includeDecision;
+
+    // Node currently running the job, and when it last reported progress
+    @Column(name = "owner")
+    private String owner;
+
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "checkpoint_id", nullable = false)
+    private Long checkpointId = 0L;
+
+    @Column(name = "processed_count", nullable = false)
+    private Integer processedCount = 0;
+
+    @Column(name = "failed_count", nullable = false)
+    private Integer failedCount = 0;
+
+    // Applications the job covered when it was created
+    @Column(name = "total_estimate", nullable = false)
+    private Integer totalEstimate = 0;
+
+    @Column(name = "cancel_requested", nullable = false)
+    private boolean cancelRequested;
+
+    // Start of the current run and the items done before it, for the rate and ETA
+    @Column(name = "run_started_at")
+    private LocalDateTime runStartedAt;
+
+    @Column(name = "done_at_run_start", nullable = false)
+    private Integer doneAtRunStart = 0;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public BatchJob() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public int getDoneCount() {
+        return processedCount + failedCount;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public String getType() { return type != null ? type : "DRAIN"; }
+    public void setType(String type) { this.type = type; }
+    public String getScoringVersion() { return scoringVersion; }
+    public void setScoringVersion(String scoringVersion) { this.scoringVersion = scoringVersion; }
+    public String getFilterStatus() { return filterStatus; }
+    public void setFilterStatus(String filterStatus) { this.filterStatus = filterStatus; }
+    public LocalDateTime getFilterCreatedFrom() { return filterCreatedFrom; }
+    public void setFilterCreatedFrom(LocalDateTime filterCreatedFrom) { this.filterCreatedFrom = filterCreatedFrom; }
+    public LocalDateTime getFilterCreatedTo() { return filterCreatedTo; }
+    public void setFilterCreatedTo(LocalDateTime filterCreatedTo) { this.filterCreatedTo = filterCreatedTo; }
+    public boolean isIncludeDecision() { return Boolean.TRUE.equals(includeDecision); }
+    public void setIncludeDecision(boolean includeDecision) { this.includeDecision = includeDecision; }
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+    public LocalDateTime getHeartbeatAt() { return heartbeatAt; }
+    public void setHeartbeatAt(LocalDateTime heartbeatAt) { this.heartbeatAt = heartbeatAt; }
+    public Long getCheckpointId() { return checkpointId; }
+    public void setCheckpointId(Long checkpointId) { this.checkpointId = checkpointId; }
+    public Integer getProcessedCount() { return processedCount; }
+    public void setProcessedCount(Integer processedCount) { this.processedCount = processedCount; }
+    public Integer getFailedCount() { return failedCount; }
+    public void setFailedCount(Integer failedCount) { this.failedCount = failedCount; }
+    public Integer getTotalEstimate() { return totalEstimate; }
+    public void setTotalEstimate(Integer totalEstimate) { this.totalEstimate = totalEstimate; }
+    public boolean isCancelRequested() { return cancelRequested; }
+    public void setCancelRequested(boolean cancelRequested) { this.cancelRequested = cancelRequested; }
+    public LocalDateTime getRunStartedAt() { return runStartedAt; }
+    public void setRunStartedAt(LocalDateTime runStartedAt) { this.runStartedAt = runStartedAt; }
+    public Integer getDoneAtRunStart() { return doneAtRunStart; }
+    public void setDoneAtRunStart(Integer doneAtRunStart) { this.doneAtRunStart = doneAtRunStart; }
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+}
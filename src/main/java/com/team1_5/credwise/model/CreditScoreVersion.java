@@ -0,0 +1,96 @@
+package com.team1_5.credwise.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One application's credit score under one version of the scoring rules. Re-scoring
+ * adds a row per version instead of overwriting the application, so earlier scores
+ * stay available for comparison; the score and status the application had when it
+ * was re-scored are kept on the row as well.
+ */
+@Entity
+@Table(name = "credit_score_versions",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"loan_application_id", "scoring_version"}))
+public class CreditScoreVersion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "credit_score_versions_seq")
+    @SequenceGenerator(name = "credit_score_versions_seq", sequenceName = "credit_score_versions_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "loan_application_id", nullable = false)
+    private LoanApplication loanApplication;
+
+    @Column(name = "scoring_version", nullable = false, length = 50)
+    private String scoringVersion;
+
+    @Column(name = "credit_score")
+    private Integer creditScore;
+
+    @Column(name = "eligibility_score")
+    private Integer eligibilityScore;
+
+    @Column(name = "credit_score_rating")
+    private String creditScoreRating;
+
+    @Column(name = "dti")
+    private Double dti;
+
+    @Column(name = "credit_utilization")
+    private Double creditUtilization;
+
+    // APPROVED, DENIED or REVIEW_NEEDED from the decision engine; null if it was not asked
+    @Column(name = "decision")
+    private String decision;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    // What the application held when it was re-scored
+    @Column(name = "previous_credit_score")
+    private Double previousCreditScore;
+
+    @Column(name = "previous_status")
+    private String previousStatus;
+
+    @Column(name = "batch_job_id")
+    private Long batchJobId;
+
+    @Column(name = "scored_at", nullable = false)
+    private LocalDateTime scoredAt;
+
+    public CreditScoreVersion() {
+        this.scoredAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public LoanApplication getLoanApplication() { return loanApplication; }
+    public void setLoanApplication(LoanApplication loanApplication) { this.loanApplication = loanApplication; }
+    public String getScoringVersion() { return scoringVersion; }
+    public void setScoringVersion(String scoringVersion) { this.scoringVersion = scoringVersion; }
+    public Integer getCreditScore() { return creditScore; }
+    public void setCreditScore(Integer creditScore) { this.creditScore = creditScore; }
+    public Integer getEligibilityScore() { return eligibilityScore; }
+    public void setEligibilityScore(Integer eligibilityScore) { this.eligibilityScore = eligibilityScore; }
+    public String getCreditScoreRating() { return creditScoreRating; }
+    public void setCreditScoreRating(String creditScoreRating) { this.creditScoreRating = creditScoreRating; }
+    public Double getDti() { return dti; }
+    public void setDti(Double dti) { this.dti = dti; }
+    public Double getCreditUtilization() { return creditUtilization; }
+    public void setCreditUtilization(Double creditUtilization) { this.creditUtilization = creditUtilization; }
+    public String getDecision() { return decision; }
+    public void setDecision(String decision) { this.decision = decision; }
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+    public Double getPreviousCreditScore() { return previousCreditScore; }
+    public void setPreviousCreditScore(Double previousCreditScore) { this.previousCreditScore = previousCreditScore; }
+    public String getPreviousStatus() { return previousStatus; }
+    public void setPreviousStatus(String previousStatus) { this.previousStatus = previousStatus; }
+    public Long getBatchJobId() { return batchJobId; }
+    public void setBatchJobId(Long batchJobId) { this.batchJobId = batchJobId; }
+    public LocalDateTime getScoredAt() { return scoredAt; }
+}
@@ -6,13 +6,16 @@ import jakarta.validation.constraints.NotBlank;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "debts")
+@Table(name = "debts", indexes = {
+        @Index(name = "idx_debts_financial_info", columnList = "financial_info_id")
+})
 public class Debt {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "debts_seq")
+    @SequenceGenerator(name = "debts_seq", sequenceName = "debts_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "financial_info_id", nullable = false)
     private FinancialInfo financialInfo;
 
@@ -1,15 +1,23 @@
 package com.team1_5.credwise.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-@Table(name = "decision_factors")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "decision_factors", indexes = {
+        // findByResultId and the bulk delete by result
+        @Index(name = "idx_decision_factors_result", columnList = "result_id")
+})
 public class DecisionFactor {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "decision_factors_seq")
+    @SequenceGenerator(name = "decision_factors_seq", sequenceName = "decision_factors_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "result_id", nullable = false)
     private LoanApplicationResult result;
 
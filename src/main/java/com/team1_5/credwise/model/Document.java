@@ -2,33 +2,73 @@ package com.team1_5.credwise.model;
 
 import jakarta.persistence.*;
 
+import java.time.LocalDateTime;
+
+/**
+ * Metadata of an uploaded document. The bytes live in DocumentStorageService under
+ * contentHash, so several documents with the same content share one stored file.
+ * A document uploaded on its own has no application until a submission references it.
+ */
 @Entity
-@Table(name = "documents")
+@Table(name = "documents", indexes = {
+        @Index(name = "idx_documents_content_hash", columnList = "content_hash")
+})
 public class Document {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "documents_seq")
+    @SequenceGenerator(name = "documents_seq", sequenceName = "documents_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
-    @JoinColumn(name = "loan_application_id", nullable = false)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "loan_application_id")
     private LoanApplication loanApplication;
 
+    // Uploader; null on documents stored before uploads were separate from submissions
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+
     @Column(name = "document_type", nullable = false)
     private String documentType;
 
-    @Lob
-    @Column(name = "file_data", nullable = false)
-    private String fileData;
+    // SHA-256 of the content, hex encoded
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // Length of the original (uncompressed) content
+    @Column(name = "size_bytes")
+    private Long sizeBytes;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
 
-    public Document() {}
+    public Document() {
+        this.createdAt = LocalDateTime.now();
+    }
 
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
     public LoanApplication getLoanApplication() { return loanApplication; }
     public void setLoanApplication(LoanApplication loanApplication) { this.loanApplication = loanApplication; }
+    public User getUser() { return user; }
+    public void setUser(User user) { this.user = user; }
     public String getDocumentType() { return documentType; }
     public void setDocumentType(String documentType) { this.documentType = documentType; }
-    public String getFileData() { return fileData; }
-    public void setFileData(String fileData) { this.fileData = fileData; }
-}
\ No newline at end of file
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    public Long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(Long sizeBytes) { this.sizeBytes = sizeBytes; }
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
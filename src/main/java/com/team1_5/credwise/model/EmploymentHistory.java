@@ -4,9 +4,13 @@ import jakarta.persistence.*;
 import java.time.LocalDate;
 
 @Entity
+@Table(name = "employment_history", indexes = {
+        @Index(name = "idx_employment_history_financial_info", columnList = "financial_info_id")
+})
 public class EmploymentHistory {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "employment_history_seq")
+    @SequenceGenerator(name = "employment_history_seq", sequenceName = "employment_history_seq", allocationSize = 50)
     private Long id;
 
     private String employerName;
@@ -17,7 +21,7 @@ public class EmploymentHistory {
     @Column(name = "duration_months")
     private Integer durationMonths;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "financial_info_id")
     private FinancialInfo financialInfo;
 
@@ -1,12 +1,21 @@
 package com.team1_5.credwise.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "financial_info", indexes = {
+        // findByUserId and findLatestByUserId (user_id ordered by last_updated)
+        @Index(name = "idx_financial_info_user_updated", columnList = "user_id, last_updated")
+})
 public class FinancialInfo {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -21,7 +30,7 @@ public class FinancialInfo {
     @OneToMany(mappedBy = "financialInfo", cascade = CascadeType.ALL)
     private List<Asset> assets;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
@@ -41,7 +50,7 @@ public class FinancialInfo {
     @Column(name = "credit_utilization")
     private BigDecimal creditUtilization;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "loan_application_id")
     private LoanApplication loanApplication;
 
@@ -60,6 +69,9 @@ public class FinancialInfo {
     @Column(name = "last_updated", nullable = false)
     private LocalDateTime lastUpdated;
 
+    @Embedded
+    private FinancialMetricsSnapshot metrics;
+
 
 
     public FinancialInfo() {
@@ -83,6 +95,7 @@ public class FinancialInfo {
 
     public void setEmploymentDetails(List<EmploymentHistory> employmentDetails) {
         this.employmentDetails = employmentDetails;
+        this.metrics = null;
     }
 
     public List<Debt> getExistingDebts() {
@@ -91,6 +104,7 @@ public class FinancialInfo {
 
     public void setExistingDebts(List<Debt> existingDebts) {
         this.existingDebts = existingDebts;
+        this.metrics = null;
     }
 
     public List<Asset> getAssets() {
@@ -99,6 +113,7 @@ public class FinancialInfo {
 
     public void setAssets(List<Asset> assets) {
         this.assets = assets;
+        this.metrics = null;
     }
 
     public User getUser() { return user; }
@@ -110,6 +125,7 @@ public class FinancialInfo {
 
     public void setMonthlyIncome(BigDecimal monthlyIncome) {
         this.monthlyIncome = monthlyIncome;
+        this.metrics = null;
     }
 
     public BigDecimal getMonthlyExpenses() {
@@ -118,6 +134,7 @@ public class FinancialInfo {
 
     public void setMonthlyExpenses(BigDecimal monthlyExpenses) {
         this.monthlyExpenses = monthlyExpenses;
+        this.metrics = null;
     }
 
     public BigDecimal getEstimatedDebts() {
@@ -126,6 +143,7 @@ public class FinancialInfo {
 
     public void setEstimatedDebts(BigDecimal estimatedDebts) {
         this.estimatedDebts = estimatedDebts;
+        this.metrics = null;
     }
 
     public Integer getCreditScore() {
@@ -142,6 +160,7 @@ public class FinancialInfo {
 
     public void setCurrentCreditLimit(BigDecimal currentCreditLimit) {
         this.currentCreditLimit = currentCreditLimit;
+        this.metrics = null;
     }
 
     public BigDecimal getCreditTotalUsage() {
@@ -150,6 +169,7 @@ public class FinancialInfo {
 
     public void setCreditTotalUsage(BigDecimal creditTotalUsage) {
         this.creditTotalUsage = creditTotalUsage;
+        this.metrics = null;
     }
 
     public LoanApplication getLoanApplication() {
@@ -158,6 +178,7 @@ public class FinancialInfo {
 
     public void setLoanApplication(LoanApplication loanApplication) {
         this.loanApplication = loanApplication;
+        this.metrics = null;
     }
 
 
@@ -221,6 +242,15 @@ public class FinancialInfo {
         return creditUtilization;
     }
 
-
+    /**
+     * Derived metrics for the current inputs, computed on first use and kept on the
+     * entity (and persisted with it) until one of the inputs is set again.
+     * Collections are expected to be replaced through their setters, not edited in place.
+     */
+    public FinancialMetricsSnapshot getMetricsSnapshot() {
+        if (metrics == null || !metrics.isCurrent()) {
+            metrics = FinancialMetricsSnapshot.compute(this);
+        }
+        return metrics;
+    }
 }
-
@@ -0,0 +1,130 @@
+package com.team1_5.credwise.model;
+
+import com.team1_5.credwise.util.CanadianCreditScoringSystem;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Derived financial metrics for one version of a FinancialInfo: debt-to-income,
+ * credit utilization, debt and asset totals and the current employment.
+ * Computed once from the entity's inputs and stored alongside it, so scoring,
+ * the ML request and result generation all read the same numbers.
+ */
+@Embeddable
+public class FinancialMetricsSnapshot {
+
+    // Bump when a formula below changes so stored snapshots are recomputed
+    public static final int CURRENT_VERSION = 1;
+
+    @Column(name = "metrics_version")
+    private Integer version;
+
+    @Column(name = "metrics_computed_at")
+    private LocalDateTime computedAt;
+
+    // Monthly obligations over monthly income, clamped to 0-1 (see CanadianCreditScoringSystem.dtiScore)
+    @Column(name = "metrics_dti")
+    private Double debtToIncomeRatio;
+
+    // Usage over limit as a percentage; null when there is no positive credit limit
+    @Column(name = "metrics_credit_utilization", precision = 12, scale = 2)
+    private BigDecimal creditUtilization;
+
+    @Column(name = "metrics_total_debts", precision = 19, scale = 2)
+    private BigDecimal totalDebts;
+
+    @Column(name = "metrics_total_assets", precision = 19, scale = 2)
+    private BigDecimal totalAssets;
+
+    // Type of the current (no end date, else first listed) employment; null when none is listed
+    @Column(name = "metrics_employment_type")
+    private String employmentType;
+
+    @Column(name = "metrics_months_employed")
+    private Integer monthsEmployed;
+
+    protected FinancialMetricsSnapshot() {
+    }
+
+    public static FinancialMetricsSnapshot compute(FinancialInfo financialInfo) {
+        FinancialMetricsSnapshot snapshot = new FinancialMetricsSnapshot();
+        snapshot.version = CURRENT_VERSION;
+        snapshot.computedAt = LocalDateTime.now();
+
+        BigDecimal requestedAmount = financialInfo.getLoanApplication() != null
+                ? financialInfo.getLoanApplication().getRequestedAmount() : null;
+        snapshot.debtToIncomeRatio = CanadianCreditScoringSystem.dtiScore(
+                doubleValue(financialInfo.getMonthlyIncome()),
+                doubleValue(financialInfo.getMonthlyExpenses()),
+                doubleValue(financialInfo.getEstimatedDebts()),
+                doubleValue(requestedAmount));
+
+        BigDecimal limit = financialInfo.getCurrentCreditLimit();
+        BigDecimal usage = financialInfo.getCreditTotalUsage();
+        if (limit != null && usage != null && limit.compareTo(BigDecimal.ZERO) > 0) {
+            snapshot.creditUtilization = usage.divide(limit, 4, RoundingMode.HALF_UP)
+                    .multiply(BigDecimal.valueOf(100));
+        }
+
+        BigDecimal totalDebts = BigDecimal.ZERO;
+        if (financialInfo.getExistingDebts() != null) {
+            for (Debt debt : financialInfo.getExistingDebts()) {
+                if (debt.getOutstandingAmount() != null) {
+                    totalDebts = totalDebts.add(debt.getOutstandingAmount());
+                }
+            }
+        }
+        snapshot.totalDebts = totalDebts;
+
+        BigDecimal totalAssets = BigDecimal.ZERO;
+        if (financialInfo.getAssets() != null) {
+            for (Asset asset : financialInfo.getAssets()) {
+                if (asset.getEstimatedValue() != null) {
+                    totalAssets = totalAssets.add(asset.getEstimatedValue());
+                }
+            }
+        }
+        snapshot.totalAssets = totalAssets;
+
+        snapshot.monthsEmployed = 0;
+        List<EmploymentHistory> employments = financialInfo.getEmploymentDetails();
+        if (employments != null && !employments.isEmpty()) {
+            EmploymentHistory current = employments.stream()
+                    .filter(e -> e.getEndDate() == null)
+                    .findFirst()
+                    .orElse(employments.get(0));
+            snapshot.employmentType = current.getEmploymentType();
+            if (current.getDurationMonths() != null && current.getDurationMonths() > 0) {
+                snapshot.monthsEmployed = current.getDurationMonths();
+            } else if (current.getStartDate() != null) {
+                LocalDate end = current.getEndDate() != null ? current.getEndDate() : LocalDate.now();
+                snapshot.monthsEmployed = (int) current.getStartDate().until(end, ChronoUnit.MONTHS);
+            }
+        }
+        return snapshot;
+    }
+
+    public boolean isCurrent() {
+        return version != null && version == CURRENT_VERSION;
+    }
+
+    private static double doubleValue(BigDecimal value) {
+        return value != null ? value.doubleValue() : 0.0;
+    }
+
+    public Integer getVersion() { return version; }
+    public LocalDateTime getComputedAt() { return computedAt; }
+    public Double getDebtToIncomeRatio() { return debtToIncomeRatio; }
+    public BigDecimal getCreditUtilization() { return creditUtilization; }
+    public BigDecimal getTotalDebts() { return totalDebts; }
+    public BigDecimal getTotalAssets() { return totalAssets; }
+    public String getEmploymentType() { return employmentType; }
+    public Integer getMonthsEmployed() { return monthsEmployed; }
+}
@@ -6,13 +6,16 @@ import java.math.RoundingMode;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "financial_summary")
+@Table(name = "financial_summary", indexes = {
+        // findLatestByUserId (user_id ordered by last_updated)
+        @Index(name = "idx_financial_summary_user_updated", columnList = "user_id, last_updated")
+})
 public class FinancialSummary {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
@@ -1,18 +1,49 @@
 package com.team1_5.credwise.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.LazyGroup;
+import org.hibernate.type.SqlTypes;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Every association is lazy; read paths that need more than the row name it through
+ * an entity graph (the history list reads a projection instead). The two mappedBy one-to-ones only stay lazy in an enhanced build
+ * (see the hibernate-enhance profile in pom.xml), and each has its own lazy group so
+ * touching one does not load the other.
+ */
 @Entity
-@Table(name = "loan_applications")
+@NamedEntityGraph(name = LoanApplication.SCORING_GRAPH,
+        attributeNodes = {
+                @NamedAttributeNode("user"),
+                @NamedAttributeNode(value = "personalInfo", subgraph = "personalInfo"),
+                @NamedAttributeNode(value = "financialInfo", subgraph = "financialInfo")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "personalInfo", attributeNodes = @NamedAttributeNode("address")),
+                @NamedSubgraph(name = "financialInfo", attributeNodes = @NamedAttributeNode("user"))
+        })
+@Table(name = "loan_applications", indexes = {
+        // findByStatus, countByStatus and the keyset claim (status = ? AND id > ? ORDER BY id)
+        @Index(name = "idx_loan_applications_status_id", columnList = "status, id"),
+        // findByUserId and the keyset history pages (user_id, created_at, id)
+        @Index(name = "idx_loan_applications_user_created", columnList = "user_id, created_at, id")
+})
 public class LoanApplication {
+    // User, personal info with address and financial info: scoring and the ML request.
+    // The financial info collections are bags and are fetched separately.
+    public static final String SCORING_GRAPH = "LoanApplication.scoring";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
@@ -37,16 +68,31 @@ public class LoanApplication {
     @Column(name = "credit_score")
     private Double creditScore;
 
-    // This field is not persisted, just used to pass data between services
-    @Transient
+    // Batch worker holding this SUBMITTED application, or pipeline node holding it
+    // while PROCESSING, and until when
+    @Column(name = "lease_owner")
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    // Scoring and ML output (scores, ratings, DTI, utilization, rules version), stored as
+    // one JSON value so results and explanations can be rebuilt from this row alone
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "credit_evaluation")
     private Map<String, Object> creditEvaluationData;
 
-    @OneToOne(mappedBy = "loanApplication", cascade = CascadeType.ALL)
+    @OneToOne(mappedBy = "loanApplication", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @LazyGroup("financialInfo")
     private FinancialInfo financialInfo;
 
-    @OneToOne(mappedBy = "loanApplication", cascade = CascadeType.ALL)
+    @OneToOne(mappedBy = "loanApplication", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @LazyGroup("personalInfo")
     private PersonalInfo personalInfo;
 
+    @OneToMany(mappedBy = "loanApplication", cascade = CascadeType.ALL)
+    private List<Document> documents = new ArrayList<>();
+
     // Add status field to constructor
     public LoanApplication() {
         this.createdAt = LocalDateTime.now();
@@ -86,6 +132,19 @@ public class LoanApplication {
 
     public LocalDateTime getCreatedAt() { return createdAt; }
 
+    public String getLeaseOwner() { return leaseOwner; }
+    public LocalDateTime getLeaseExpiresAt() { return leaseExpiresAt; }
+
+    public void lease(String owner, LocalDateTime expiresAt) {
+        this.leaseOwner = owner;
+        this.leaseExpiresAt = expiresAt;
+    }
+
+    public void releaseLease() {
+        this.leaseOwner = null;
+        this.leaseExpiresAt = null;
+    }
+
     public void setCreditScore(Double creditScore) {
         this.creditScore = creditScore;
     }
@@ -117,4 +176,12 @@ public class LoanApplication {
     public void setPersonalInfo(PersonalInfo personalInfo) {
         this.personalInfo = personalInfo;
     }
+
+    public List<Document> getDocuments() {
+        return documents;
+    }
+
+    public void setDocuments(List<Document> documents) {
+        this.documents = documents;
+    }
 }
\ No newline at end of file
@@ -1,17 +1,26 @@
 package com.team1_5.credwise.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import java.math.BigDecimal;
 import java.util.List;
 
 @Entity
+@NamedEntityGraph(name = LoanApplicationResult.VIEW_GRAPH, attributeNodes = @NamedAttributeNode("decisionFactors"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "loan_application_results")
 public class LoanApplicationResult {
+    // The result with its decision factors: the result view
+    public static final String VIEW_GRAPH = "LoanApplicationResult.view";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "loan_application_id", nullable = false)
     private LoanApplication loanApplication;
 
@@ -37,6 +46,7 @@ public class LoanApplicationResult {
     private BigDecimal estimatedMonthlyPayment;
 
     @OneToMany(mappedBy = "result", cascade = CascadeType.ALL)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<DecisionFactor> decisionFactors;
 
     public LoanApplicationResult() {}
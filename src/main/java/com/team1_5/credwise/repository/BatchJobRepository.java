@@ -0,0 +1,35 @@
+package com.team1_5.credwise.repository;
+
+import com.team1_5.credwise.model.BatchJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BatchJobRepository extends JpaRepository<BatchJob, Long> {
+
+    List<BatchJob> findTop20ByOrderByIdDesc();
+
+    // RUNNING jobs this node should resume: its own, or any whose owner stopped reporting
+    @Query("SELECT j.id FROM BatchJob j WHERE j.status = 'RUNNING' " +
+            "AND (j.owner = :owner OR j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore) ORDER BY j.id")
+    List<Long> findResumableIds(@Param("owner") String owner, @Param("staleBefore") LocalDateTime staleBefore);
+
+    // Take over a RUNNING job unless another node already has, so only one node resumes it
+    @Modifying
+    @Query("UPDATE BatchJob j SET j.owner = :owner, j.heartbeatAt = :now WHERE j.id = :id AND j.status = 'RUNNING' " +
+            "AND (j.owner = :owner OR j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore)")
+    int adopt(@Param("id") Long id, @Param("owner") String owner,
+              @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+
+    // Keep reporting for the jobs this node is running, whatever their chunks are doing
+    @Modifying
+    @Query("UPDATE BatchJob j SET j.heartbeatAt = :now WHERE j.id IN :ids AND j.owner = :owner AND j.status = 'RUNNING'")
+    int renewHeartbeats(@Param("ids") Collection<Long> ids, @Param("owner") String owner, @Param("now") LocalDateTime now);
+}
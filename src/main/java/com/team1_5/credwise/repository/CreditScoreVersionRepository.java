@@ -0,0 +1,27 @@
+package com.team1_5.credwise.repository;
+
+import com.team1_5.credwise.model.CreditScoreVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CreditScoreVersionRepository extends JpaRepository<CreditScoreVersion, Long> {
+
+    @Query("SELECT v FROM CreditScoreVersion v WHERE v.loanApplication.id = :loanApplicationId ORDER BY v.scoredAt DESC")
+    List<CreditScoreVersion> findByLoanApplicationIdOrderByScoredAtDesc(@Param("loanApplicationId") Long loanApplicationId);
+
+    // Which of the ids already have a successful score under this version
+    @Query("SELECT v.loanApplication.id FROM CreditScoreVersion v " +
+            "WHERE v.scoringVersion = :version AND v.loanApplication.id IN :ids AND v.errorMessage IS NULL")
+    List<Long> findScoredApplicationIds(@Param("version") String version, @Param("ids") Collection<Long> ids);
+
+    // Rows under this version that recorded a failure, which a retry overwrites
+    @Query("SELECT v FROM CreditScoreVersion v " +
+            "WHERE v.scoringVersion = :version AND v.loanApplication.id IN :ids AND v.errorMessage IS NOT NULL")
+    List<CreditScoreVersion> findFailed(@Param("version") String version, @Param("ids") Collection<Long> ids);
+}
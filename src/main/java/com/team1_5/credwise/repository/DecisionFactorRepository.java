@@ -1,19 +1,33 @@
 package com.team1_5.credwise.repository;
 
+import com.team1_5.credwise.config.CacheRegions;
 import com.team1_5.credwise.model.DecisionFactor;
 import com.team1_5.credwise.model.LoanApplicationResult;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface DecisionFactorRepository extends JpaRepository<DecisionFactor, Long> {
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.DECISION_FACTORS_QUERY)})
     List<DecisionFactor> findByResult(LoanApplicationResult result);
-    void deleteByResult(LoanApplicationResult result);
     
     @Query("SELECT df FROM DecisionFactor df WHERE df.result.id = :resultId")
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.DECISION_FACTORS_QUERY)})
     List<DecisionFactor> findByResultId(@Param("resultId") Long resultId);
+
+    // One DELETE statement for all the results, without loading the factors first
+    @Modifying
+    @Query("DELETE FROM DecisionFactor df WHERE df.result.id IN :resultIds")
+    int deleteByResultIdIn(@Param("resultIds") Collection<Long> resultIds);
 }
@@ -2,7 +2,30 @@
 package com.team1_5.credwise.repository;
 
 import com.team1_5.credwise.model.Document;
+import com.team1_5.credwise.model.LoanApplication;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface DocumentRepository extends JpaRepository<Document, Long> {
-}
\ No newline at end of file
+    // A document the user uploaded or that belongs to one of the user's applications
+    @Query("SELECT d FROM Document d LEFT JOIN d.loanApplication a " +
+            "WHERE d.id = :id AND (d.user.id = :userId OR a.user.id = :userId)")
+    Optional<Document> findOwnedById(@Param("id") Long id, @Param("userId") Long userId);
+
+    // The user's uploaded documents among ids that no application references yet
+    @Query("SELECT d FROM Document d WHERE d.id IN :ids AND d.user.id = :userId AND d.loanApplication IS NULL")
+    List<Document> findUnattached(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
+    // Attach whichever of the ids are the user's and still unattached; returns how many were
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Document d SET d.loanApplication = :application " +
+            "WHERE d.id IN :ids AND d.user.id = :userId AND d.loanApplication IS NULL")
+    int attach(@Param("ids") Collection<Long> ids, @Param("userId") Long userId,
+               @Param("application") LoanApplication application);
+}
@@ -2,8 +2,11 @@ package com.team1_5.credwise.repository;
 
 import com.team1_5.credwise.model.EmploymentHistory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 
 public interface EmploymentHistoryRepository extends JpaRepository<EmploymentHistory, Long> {
-    List<EmploymentHistory> findByFinancialInfoId(Long financialInfoId);
+    @Query("SELECT e FROM EmploymentHistory e WHERE e.financialInfo.id = :financialInfoId")
+    List<EmploymentHistory> findByFinancialInfoId(@Param("financialInfoId") Long financialInfoId);
 }
\ No newline at end of file
@@ -1,22 +1,44 @@
 // FinancialInfoRepository.java
 package com.team1_5.credwise.repository;
 
+import com.team1_5.credwise.config.CacheRegions;
 import com.team1_5.credwise.model.FinancialInfo;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface FinancialInfoRepository extends JpaRepository<FinancialInfo, Long> {
-    Optional<FinancialInfo> findByUserId(Long userId);
-    Optional<FinancialInfo> findByLoanApplicationId(Long loanApplicationId);
+    @Query("SELECT f FROM FinancialInfo f WHERE f.user.id = :userId")
+    Optional<FinancialInfo> findByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT f FROM FinancialInfo f WHERE f.loanApplication.id = :loanApplicationId")
+    Optional<FinancialInfo> findByLoanApplicationId(@Param("loanApplicationId") Long loanApplicationId);
     
     /**
      * Find the latest financial info for a user based on last_updated timestamp
      */
-    @Query("SELECT f FROM FinancialInfo f WHERE f.user.id = :userId ORDER BY f.lastUpdated DESC")
-    List<FinancialInfo> findLatestByUserId(Long userId);
+    @Query("SELECT f FROM FinancialInfo f WHERE f.user.id = :userId ORDER BY f.lastUpdated DESC LIMIT 1")
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.FINANCIAL_INFO_QUERY)})
+    Optional<FinancialInfo> findLatestByUserId(Long userId);
+
+    // Initialize one collection for many financial infos at once. The three bags are
+    // fetched by separate queries: joining them together would multiply the rows.
+    @Query("SELECT DISTINCT f FROM FinancialInfo f LEFT JOIN FETCH f.employmentDetails WHERE f.id IN :ids")
+    List<FinancialInfo> fetchEmploymentDetails(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT f FROM FinancialInfo f LEFT JOIN FETCH f.existingDebts WHERE f.id IN :ids")
+    List<FinancialInfo> fetchExistingDebts(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT f FROM FinancialInfo f LEFT JOIN FETCH f.assets WHERE f.id IN :ids")
+    List<FinancialInfo> fetchAssets(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.team1_5.credwise.repository;
+
+import com.team1_5.credwise.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(LocalDateTime now);
+
+    /**
+     * Claim a key whose lease or retention has run out, e.g. one left IN_PROGRESS by a
+     * node that died. Only one of several concurrent takeovers updates the row.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.status = 'IN_PROGRESS', r.requestHash = :requestHash, " +
+            "r.owner = :owner, r.expiresAt = :leaseUntil, r.responseStatus = NULL, r.responseBody = NULL, " +
+            "r.responseLocation = NULL WHERE r.key = :key AND r.expiresAt < :now")
+    int takeOverExpired(String key, String requestHash, String owner, LocalDateTime leaseUntil, LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.expiresAt = :leaseUntil " +
+            "WHERE r.owner IN :owners AND r.status = 'IN_PROGRESS'")
+    int renewLeases(Collection<String> owners, LocalDateTime leaseUntil);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.status = 'COMPLETED', r.responseStatus = :responseStatus, " +
+            "r.responseBody = :responseBody, r.responseLocation = :responseLocation, r.expiresAt = :expiresAt " +
+            "WHERE r.key = :key AND r.owner = :owner AND r.status = 'IN_PROGRESS'")
+    int complete(String key, String owner, Integer responseStatus, String responseBody,
+                 String responseLocation, LocalDateTime expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.key = :key AND r.owner = :owner AND r.status = 'IN_PROGRESS'")
+    int release(String key, String owner);
+}
@@ -1,9 +1,29 @@
 package com.team1_5.credwise.repository;
 
+import com.team1_5.credwise.dto.LoanApplicationHistoryItem;
 import com.team1_5.credwise.model.LoanApplication;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface LoanApplicationHistoryRepository extends JpaRepository<LoanApplication, Long> {
-    List<LoanApplication> findByUser_Id(Long userId);
+
+    // First page of a user's history in (createdAt, id) order, read from idx_loan_applications_user_created
+    @Query("SELECT new com.team1_5.credwise.dto.LoanApplicationHistoryItem(a.id, a.status, a.requestedAmount, a.createdAt) " +
+            "FROM LoanApplication a WHERE a.user.id = :userId ORDER BY a.createdAt, a.id")
+    List<LoanApplicationHistoryItem> findHistoryFirstPage(@Param("userId") Long userId, Pageable pageable);
+
+    // The page after the (createdAt, id) of the previous page's last row
+    @Query("SELECT new com.team1_5.credwise.dto.LoanApplicationHistoryItem(a.id, a.status, a.requestedAmount, a.createdAt) " +
+            "FROM LoanApplication a WHERE a.user.id = :userId " +
+            "AND (a.createdAt > :afterCreatedAt OR (a.createdAt = :afterCreatedAt AND a.id > :afterId)) " +
+            "ORDER BY a.createdAt, a.id")
+    List<LoanApplicationHistoryItem> findHistoryPageAfter(@Param("userId") Long userId,
+                                                          @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                                          @Param("afterId") Long afterId,
+                                                          Pageable pageable);
 }
@@ -2,11 +2,103 @@
 package com.team1_5.credwise.repository;
 
 import com.team1_5.credwise.model.LoanApplication;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface LoanApplicationRepository extends JpaRepository<LoanApplication, Long> {
     List<LoanApplication> findByStatus(String status);
-    List<LoanApplication> findByUserId(Long userId);
+    // Derived queries on an association id join the parent table and filter on its key, which
+    // scans this one; comparing the foreign key directly lets the database use its index
+    @Query("SELECT a FROM LoanApplication a WHERE a.user.id = :userId")
+    List<LoanApplication> findByUserId(@Param("userId") Long userId);
+    long countByStatus(String status);
+
+    // Applications with their user, personal info and address, and financial info in one query
+    @EntityGraph(LoanApplication.SCORING_GRAPH)
+    @Query("SELECT a FROM LoanApplication a WHERE a.id IN :ids ORDER BY a.id")
+    List<LoanApplication> findGraphsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Keyset page of ids for a re-scoring run; null filters match everything
+    @Query("SELECT a.id FROM LoanApplication a WHERE a.id > :afterId " +
+            "AND (:status IS NULL OR a.status = :status) " +
+            "AND (:createdFrom IS NULL OR a.createdAt >= :createdFrom) " +
+            "AND (:createdTo IS NULL OR a.createdAt < :createdTo) ORDER BY a.id")
+    List<Long> findRescoreCandidateIds(@Param("afterId") Long afterId, @Param("status") String status,
+                                       @Param("createdFrom") LocalDateTime createdFrom,
+                                       @Param("createdTo") LocalDateTime createdTo, Pageable pageable);
+
+    @Query("SELECT COUNT(a) FROM LoanApplication a WHERE (:status IS NULL OR a.status = :status) " +
+            "AND (:createdFrom IS NULL OR a.createdAt >= :createdFrom) " +
+            "AND (:createdTo IS NULL OR a.createdAt < :createdTo)")
+    long countRescoreCandidates(@Param("status") String status, @Param("createdFrom") LocalDateTime createdFrom,
+                                @Param("createdTo") LocalDateTime createdTo);
+
+    @Query("SELECT MIN(a.createdAt) FROM LoanApplication a WHERE a.status = :status")
+    LocalDateTime findOldestCreatedAt(@Param("status") String status);
+
+    // Next claimable ids above afterId: SUBMITTED with no lease or an expired one.
+    // Rows another node has locked in its own claim are skipped rather than waited on.
+    @Query(value = "SELECT id FROM loan_applications WHERE status = :status AND id > :afterId " +
+            "AND (lease_expires_at IS NULL OR lease_expires_at < :now) " +
+            "ORDER BY id FETCH FIRST :limit ROWS ONLY FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockClaimableIds(@Param("status") String status, @Param("afterId") Long afterId,
+                                @Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Same candidates without row locks (the default, and the only option on H2, whose SKIP LOCKED
+    // returns nothing while another claim holds locks); the guarded claim update keeps it safe
+    @Query("SELECT a.id FROM LoanApplication a WHERE a.status = :status AND a.id > :afterId " +
+            "AND (a.leaseExpiresAt IS NULL OR a.leaseExpiresAt < :now) ORDER BY a.id")
+    List<Long> findClaimableIds(@Param("status") String status, @Param("afterId") Long afterId,
+                                @Param("now") LocalDateTime now, Pageable pageable);
+
+    // Take the lease on whichever of the ids are still SUBMITTED and unleased (or expired)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE LoanApplication a SET a.leaseOwner = :owner, a.leaseExpiresAt = :expiresAt " +
+            "WHERE a.id IN :ids AND a.status = 'SUBMITTED' " +
+            "AND (a.leaseExpiresAt IS NULL OR a.leaseExpiresAt < :now)")
+    int claim(@Param("ids") Collection<Long> ids, @Param("owner") String owner,
+              @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    @Query("SELECT a.id FROM LoanApplication a WHERE a.id IN :ids AND a.leaseOwner = :owner ORDER BY a.id")
+    List<Long> findIdsLeasedBy(@Param("ids") Collection<Long> ids, @Param("owner") String owner);
+
+    @Modifying
+    @Query("UPDATE LoanApplication a SET a.leaseOwner = NULL, a.leaseExpiresAt = NULL " +
+            "WHERE a.id IN :ids AND a.leaseOwner = :owner")
+    int releaseLeases(@Param("ids") Collection<Long> ids, @Param("owner") String owner);
+
+    // Extend the pipeline leases a node holds on its PROCESSING applications
+    @Modifying
+    @Query("UPDATE LoanApplication a SET a.leaseExpiresAt = :expiresAt " +
+            "WHERE a.id IN :ids AND a.status = 'PROCESSING' AND a.leaseOwner = :owner")
+    int renewProcessingLeases(@Param("ids") Collection<Long> ids, @Param("owner") String owner,
+                              @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Hand PROCESSING applications back to the SUBMITTED backlog
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE LoanApplication a SET a.status = 'SUBMITTED', a.leaseOwner = NULL, a.leaseExpiresAt = NULL " +
+            "WHERE a.id IN :ids AND a.status = 'PROCESSING'")
+    int releaseProcessing(@Param("ids") Collection<Long> ids);
+
+    // PROCESSING applications whose pipeline lease ran out (the node died or lost them),
+    // or that predate pipeline leases and were created before createdBefore
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE LoanApplication a SET a.status = 'SUBMITTED', a.leaseOwner = NULL, a.leaseExpiresAt = NULL " +
+            "WHERE a.status = 'PROCESSING' AND (a.leaseExpiresAt < :now " +
+            "OR (a.leaseExpiresAt IS NULL AND a.createdAt < :createdBefore))")
+    int releaseStaleProcessing(@Param("now") LocalDateTime now, @Param("createdBefore") LocalDateTime createdBefore);
+
+    // PROCESSING applications left by an earlier run of this node, which holds none yet
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE LoanApplication a SET a.status = 'SUBMITTED', a.leaseOwner = NULL, a.leaseExpiresAt = NULL " +
+            "WHERE a.status = 'PROCESSING' AND a.leaseOwner = :owner")
+    int releaseProcessingLeasedBy(@Param("owner") String owner);
 }
\ No newline at end of file
@@ -1,10 +1,32 @@
 package com.team1_5.credwise.repository;
 
+import com.team1_5.credwise.config.CacheRegions;
 import com.team1_5.credwise.model.LoanApplicationResult;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface LoanApplicationResultRepository extends JpaRepository<LoanApplicationResult, Long> {
-    Optional<LoanApplicationResult> findByLoanApplicationId(Long loanApplicationId);
-}
\ No newline at end of file
+    @Query("SELECT r FROM LoanApplicationResult r WHERE r.loanApplication.id = :loanApplicationId")
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.RESULTS_QUERY)})
+    Optional<LoanApplicationResult> findByLoanApplicationId(@Param("loanApplicationId") Long loanApplicationId);
+
+    // The result view: the result and its decision factors in one query, both cached
+    @EntityGraph(LoanApplicationResult.VIEW_GRAPH)
+    @Query("SELECT r FROM LoanApplicationResult r WHERE r.loanApplication.id = :loanApplicationId")
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CacheRegions.RESULTS_QUERY)})
+    Optional<LoanApplicationResult> findViewByLoanApplicationId(@Param("loanApplicationId") Long loanApplicationId);
+
+    @Query("SELECT r FROM LoanApplicationResult r WHERE r.loanApplication.id IN :loanApplicationIds")
+    List<LoanApplicationResult> findByLoanApplicationIdIn(@Param("loanApplicationIds") Collection<Long> loanApplicationIds);
+}
@@ -3,11 +3,14 @@ package com.team1_5.credwise.repository;
 
 import com.team1_5.credwise.model.PersonalInfo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
 public interface PersonalInfoRepository extends JpaRepository<PersonalInfo, Long> {
-    Optional<PersonalInfo> findByLoanApplicationId(Long loanApplicationId);
+    @Query("SELECT p FROM PersonalInfo p WHERE p.loanApplication.id = :loanApplicationId")
+    Optional<PersonalInfo> findByLoanApplicationId(@Param("loanApplicationId") Long loanApplicationId);
 }
\ No newline at end of file
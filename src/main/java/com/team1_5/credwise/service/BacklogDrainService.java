@@ -0,0 +1,201 @@
+package com.team1_5.credwise.service;
+
+import com.team1_5.credwise.config.NodeIdentity;
+import com.team1_5.credwise.exception.LoanApplicationException;
+import com.team1_5.credwise.repository.LoanApplicationRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Continuously drains the SUBMITTED queue on a background thread. After a pass that
+ * decided something the next poll comes after loan.drain.min-delay-ms; each empty or
+ * unproductive pass doubles the delay up to loan.drain.max-delay-ms. A pass claims at
+ * most loan.drain.max-in-flight applications at a time. Claims go through the same
+ * leases as batch jobs, so the drain can run on any number of nodes at once.
+ *
+ * <p>Each worker thread has its own stop flag, so a worker that is still finishing its
+ * chunk after stop() cannot be revived by a later start(). Stopping waits up to
+ * loan.drain.stop-timeout-ms for the worker to commit its chunk and exit, which keeps
+ * shutdown from closing the datasource under it; start() waits the same way for the
+ * previous worker before it starts a new one.</p>
+ */
+@Service
+public class BacklogDrainService {
+    private static final Logger logger = LoggerFactory.getLogger(BacklogDrainService.class);
+
+    private final LoanApplicationService loanApplicationService;
+    private final LoanMLService loanMLService;
+    private final LoanApplicationRepository loanAppRepo;
+    private final String nodeId;
+    private final boolean enabledAtStartup;
+    private final long minDelayMs;
+    private final long maxDelayMs;
+    private final int maxInFlight;
+    private final long stopTimeoutMs;
+
+    private volatile Worker worker;
+    private volatile long currentDelayMs;
+    private volatile LocalDateTime lastPollAt;
+    private volatile LocalDateTime lastProcessedAt;
+
+    private final LongAdder passes = new LongAdder();
+    private final LongAdder emptyPasses = new LongAdder();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public BacklogDrainService(LoanApplicationService loanApplicationService,
+                               LoanMLService loanMLService,
+                               LoanApplicationRepository loanAppRepo,
+                               NodeIdentity nodeIdentity,
+                               @Value("${loan.drain.enabled:false}") boolean enabledAtStartup,
+                               @Value("${loan.drain.min-delay-ms:200}") long minDelayMs,
+                               @Value("${loan.drain.max-delay-ms:30000}") long maxDelayMs,
+                               @Value("${loan.drain.max-in-flight:20}") int maxInFlight,
+                               @Value("${loan.drain.stop-timeout-ms:30000}") long stopTimeoutMs) {
+        this.loanApplicationService = loanApplicationService;
+        this.loanMLService = loanMLService;
+        this.loanAppRepo = loanAppRepo;
+        this.nodeId = nodeIdentity.getId();
+        this.enabledAtStartup = enabledAtStartup;
+        this.minDelayMs = Math.max(1, minDelayMs);
+        this.maxDelayMs = Math.max(this.minDelayMs, maxDelayMs);
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.stopTimeoutMs = Math.max(0, stopTimeoutMs);
+        this.currentDelayMs = this.minDelayMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startIfEnabled() {
+        if (enabledAtStartup) {
+            start();
+        }
+    }
+
+    public synchronized void start() {
+        if (worker != null && worker.running) {
+            return;
+        }
+        if (worker != null && !awaitExit(worker)) {
+            throw new LoanApplicationException("Backlog drain is still stopping, please retry shortly",
+                    HttpStatus.CONFLICT);
+        }
+        currentDelayMs = minDelayMs;
+        worker = new Worker();
+        worker.thread.start();
+        logger.info("Backlog drain started on node {}", nodeId);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (worker == null || !worker.running) {
+            return;
+        }
+        worker.running = false;
+        // Wake the worker without interrupting it, so a chunk in progress still commits
+        LockSupport.unpark(worker.thread);
+        if (awaitExit(worker)) {
+            logger.info("Backlog drain stopped on node {}", nodeId);
+        } else {
+            logger.warn("Backlog drain on node {} did not finish its chunk within {} ms", nodeId, stopTimeoutMs);
+        }
+    }
+
+    private boolean awaitExit(Worker stopped) {
+        try {
+            stopped.thread.join(stopTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !stopped.thread.isAlive();
+    }
+
+    /**
+     * One drain thread and the flag that stops it
+     */
+    private final class Worker implements Runnable {
+        private final Thread thread;
+        private volatile boolean running = true;
+
+        private Worker() {
+            thread = new Thread(this, "loan-backlog-drain");
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                int decided = 0;
+                try {
+                    decided = drainOnce(this);
+                } catch (Exception e) {
+                    if (!running) {
+                        break;
+                    }
+                    logger.warn("Backlog drain pass failed: {}", e.getMessage(), e);
+                }
+
+                // Speed up while there is work that can be decided, back off otherwise
+                currentDelayMs = decided > 0 ? minDelayMs : Math.min(maxDelayMs, currentDelayMs * 2);
+                long wakeAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(currentDelayMs);
+                while (running && System.nanoTime() < wakeAt) {
+                    LockSupport.parkNanos(this, wakeAt - System.nanoTime());
+                }
+            }
+        }
+    }
+
+    private int drainOnce(Worker current) {
+        lastPollAt = LocalDateTime.now();
+        passes.increment();
+        int decided = loanApplicationService.drainSubmittedApplications(loanMLService, 0L, maxInFlight,
+                (lastId, chunkProcessed, chunkFailed) -> {
+                    processed.add(chunkProcessed);
+                    failed.add(chunkFailed);
+                    return current.running;
+                });
+        if (decided > 0) {
+            lastProcessedAt = LocalDateTime.now();
+        } else {
+            emptyPasses.increment();
+        }
+        return decided;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("node", nodeId);
+        Worker current = worker;
+        metrics.put("running", current != null && current.running);
+        metrics.put("maxInFlight", maxInFlight);
+        metrics.put("currentDelayMs", currentDelayMs);
+        metrics.put("passes", passes.sum());
+        metrics.put("emptyPasses", emptyPasses.sum());
+        metrics.put("processed", processed.sum());
+        metrics.put("failed", failed.sum());
+        metrics.put("lastPollAt", lastPollAt);
+        metrics.put("lastProcessedAt", lastProcessedAt);
+
+        // Backlog as seen in the database, shared by every node
+        LocalDateTime oldest = loanAppRepo.findOldestCreatedAt("SUBMITTED");
+        Map<String, Object> backlog = new LinkedHashMap<>();
+        backlog.put("submitted", loanAppRepo.countByStatus("SUBMITTED"));
+        backlog.put("oldestSubmittedAt", oldest);
+        backlog.put("oldestAgeSeconds", oldest != null ? Duration.between(oldest, LocalDateTime.now()).getSeconds() : 0);
+        metrics.put("backlog", backlog);
+        return metrics;
+    }
+}
@@ -0,0 +1,307 @@
+package com.team1_5.credwise.service;
+
+import com.team1_5.credwise.config.NodeIdentity;
+import com.team1_5.credwise.exception.LoanApplicationException;
+import com.team1_5.credwise.model.BatchJob;
+import com.team1_5.credwise.repository.BatchJobRepository;
+import com.team1_5.credwise.repository.LoanApplicationRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs backlog drains and re-scoring backfills as background jobs. Each job is a BatchJob row whose checkpoint
+ * and counters are written after every committed chunk; cancelling sets a flag the job
+ * reads at the next chunk boundary. The owning node renews the heartbeat of every job it
+ * is running on a schedule of its own, so a slow chunk does not look like a dead node.
+ * RUNNING jobs are resumed from their checkpoint when this node starts (if it owned them)
+ * or when their owner has stopped sending heartbeats.
+ */
+@Service
+public class BatchJobService {
+    private static final Logger logger = LoggerFactory.getLogger(BatchJobService.class);
+
+    private final BatchJobRepository jobRepo;
+    private final LoanApplicationRepository loanAppRepo;
+    private final LoanApplicationService loanApplicationService;
+    private final LoanMLService loanMLService;
+    private final CreditRescoreService creditRescoreService;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId;
+    private final Duration staleAfter;
+
+    private final Set<Long> activeJobs = ConcurrentHashMap.newKeySet();
+    private final ExecutorService jobRunner;
+
+    public BatchJobService(BatchJobRepository jobRepo,
+                           LoanApplicationRepository loanAppRepo,
+                           LoanApplicationService loanApplicationService,
+                           LoanMLService loanMLService,
+                           CreditRescoreService creditRescoreService,
+                           PlatformTransactionManager transactionManager,
+                           NodeIdentity nodeIdentity,
+                           @Value("${loan.batch.job.stale-after-seconds:120}") long staleAfterSeconds) {
+        this.jobRepo = jobRepo;
+        this.loanAppRepo = loanAppRepo;
+        this.loanApplicationService = loanApplicationService;
+        this.loanMLService = loanMLService;
+        this.creditRescoreService = creditRescoreService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.nodeId = nodeIdentity.getId();
+        this.staleAfter = Duration.ofSeconds(staleAfterSeconds);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.jobRunner = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "loan-batch-job-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Create a job over the current SUBMITTED backlog and start it in the background.
+     */
+    public BatchJob start() {
+        BatchJob job = transactionTemplate.execute(status -> {
+            BatchJob created = new BatchJob();
+            created.setStatus("RUNNING");
+            created.setOwner(nodeId);
+            created.setHeartbeatAt(LocalDateTime.now());
+            created.setTotalEstimate((int) loanAppRepo.countByStatus("SUBMITTED"));
+            return jobRepo.save(created);
+        });
+        launch(job.getId());
+        return job;
+    }
+
+    /**
+     * Create a job that re-scores existing applications under a new scoring version
+     * and start it in the background. Null filters match every application.
+     */
+    public BatchJob startRescore(String scoringVersion, String filterStatus,
+                                 LocalDateTime createdFrom, LocalDateTime createdTo, boolean includeDecision) {
+        if (scoringVersion == null || scoringVersion.isBlank()) {
+            throw new LoanApplicationException("A scoring version is required", HttpStatus.BAD_REQUEST);
+        }
+        BatchJob job = transactionTemplate.execute(status -> {
+            BatchJob created = new BatchJob();
+            created.setType("RESCORE");
+            created.setStatus("RUNNING");
+            created.setOwner(nodeId);
+            created.setHeartbeatAt(LocalDateTime.now());
+            created.setScoringVersion(scoringVersion.trim());
+            created.setFilterStatus(filterStatus);
+            created.setFilterCreatedFrom(createdFrom);
+            created.setFilterCreatedTo(createdTo);
+            created.setIncludeDecision(includeDecision);
+            created.setTotalEstimate((int) creditRescoreService.countCandidates(filterStatus, createdFrom, createdTo));
+            return jobRepo.save(created);
+        });
+        launch(job.getId());
+        return job;
+    }
+
+    public BatchJob getJob(Long jobId) {
+        return jobRepo.findById(jobId)
+                .orElseThrow(() -> new LoanApplicationException("Batch job not found: " + jobId, HttpStatus.NOT_FOUND));
+    }
+
+    public List<BatchJob> getRecentJobs() {
+        return jobRepo.findTop20ByOrderByIdDesc();
+    }
+
+    /**
+     * Ask a running job to stop. It finishes the chunk in hand, records its checkpoint
+     * and ends as CANCELLED.
+     */
+    public BatchJob cancel(Long jobId) {
+        return transactionTemplate.execute(status -> {
+            BatchJob job = getJob(jobId);
+            if (!"RUNNING".equals(job.getStatus())) {
+                throw new LoanApplicationException("Batch job " + jobId + " is already " + job.getStatus(), HttpStatus.CONFLICT);
+            }
+            job.setCancelRequested(true);
+            return jobRepo.save(job);
+        });
+    }
+
+    public Map<String, Object> describe(BatchJob job) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("jobId", job.getId());
+        view.put("type", job.getType());
+        view.put("status", job.getStatus());
+        view.put("owner", job.getOwner());
+        view.put("processed", job.getProcessedCount());
+        view.put("failed", job.getFailedCount());
+        view.put("totalEstimate", job.getTotalEstimate());
+        view.put("checkpointId", job.getCheckpointId());
+        view.put("cancelRequested", job.isCancelRequested());
+        view.put("createdAt", job.getCreatedAt());
+        view.put("finishedAt", job.getFinishedAt());
+        if (job.getErrorMessage() != null) {
+            view.put("error", job.getErrorMessage());
+        }
+
+        // Rate over the current run only, so time spent waiting to be resumed does not count
+        Double rate = null;
+        Long etaSeconds = null;
+        if (job.getRunStartedAt() != null) {
+            LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : LocalDateTime.now();
+            double seconds = Duration.between(job.getRunStartedAt(), end).toMillis() / 1000.0;
+            int doneThisRun = job.getDoneCount() - job.getDoneAtRunStart();
+            if (seconds > 0) {
+                rate = doneThisRun / seconds;
+            }
+            if ("RUNNING".equals(job.getStatus()) && rate != null && rate > 0) {
+                int remaining = Math.max(0, job.getTotalEstimate() - job.getDoneCount());
+                etaSeconds = Math.round(remaining / rate);
+            }
+        }
+        view.put("ratePerSecond", rate);
+        view.put("etaSeconds", etaSeconds);
+        if ("RESCORE".equals(job.getType())) {
+            view.put("scoringVersion", job.getScoringVersion());
+            view.put("filterStatus", job.getFilterStatus());
+            view.put("filterCreatedFrom", job.getFilterCreatedFrom());
+            view.put("filterCreatedTo", job.getFilterCreatedTo());
+            view.put("includeDecision", job.isIncludeDecision());
+            view.put("targetRatePerSecond", creditRescoreService.getTargetRatePerSecond());
+        }
+        return view;
+    }
+
+    /**
+     * Report this node alive for every job it is running, independently of chunk progress.
+     */
+    @Scheduled(fixedDelayString = "${loan.batch.job.heartbeat-ms:30000}")
+    public void renewHeartbeats() {
+        List<Long> jobIds = List.copyOf(activeJobs);
+        if (!jobIds.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status ->
+                    jobRepo.renewHeartbeats(jobIds, nodeId, LocalDateTime.now()));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeOnStartup() {
+        resumeJobs();
+    }
+
+    /**
+     * Pick up RUNNING jobs left behind by this node or by nodes that stopped reporting.
+     */
+    @Scheduled(fixedDelayString = "${loan.batch.job.resume-check-ms:60000}", initialDelayString = "${loan.batch.job.resume-check-ms:60000}")
+    public void resumeJobs() {
+        LocalDateTime staleBefore = LocalDateTime.now().minus(staleAfter);
+        for (Long jobId : jobRepo.findResumableIds(nodeId, staleBefore)) {
+            if (activeJobs.contains(jobId)) {
+                continue;
+            }
+            Integer adopted = transactionTemplate.execute(status ->
+                    jobRepo.adopt(jobId, nodeId, LocalDateTime.now(), staleBefore));
+            if (adopted != null && adopted > 0) {
+                logger.info("Resuming batch job {} from its last checkpoint", jobId);
+                launch(jobId);
+            }
+        }
+    }
+
+    private void launch(Long jobId) {
+        if (activeJobs.add(jobId)) {
+            jobRunner.submit(() -> {
+                try {
+                    run(jobId);
+                } finally {
+                    activeJobs.remove(jobId);
+                }
+            });
+        }
+    }
+
+    private void run(Long jobId) {
+        BatchJob started = transactionTemplate.execute(status -> {
+            BatchJob job = getJob(jobId);
+            job.setRunStartedAt(LocalDateTime.now());
+            job.setDoneAtRunStart(job.getDoneCount());
+            return jobRepo.save(job);
+        });
+
+        try {
+            if (started.isCancelRequested()) {
+                finish(jobId, "CANCELLED", null);
+                return;
+            }
+            boolean[] cancelled = {false};
+            LoanApplicationService.ChunkListener listener = (lastId, processed, failed) -> {
+                cancelled[0] = checkpoint(jobId, lastId, processed, failed);
+                return !cancelled[0];
+            };
+            if ("RESCORE".equals(started.getType())) {
+                creditRescoreService.rescore(started, listener);
+            } else {
+                loanApplicationService.drainSubmittedApplications(loanMLService, started.getCheckpointId(), listener);
+            }
+            finish(jobId, cancelled[0] ? "CANCELLED" : "COMPLETED", null);
+        } catch (Exception e) {
+            if (jobRunner.isShutdown()) {
+                logger.info("Batch job {} interrupted by shutdown, it will resume from its checkpoint", jobId);
+                return;
+            }
+            logger.error("Batch job {} failed: {}", jobId, e.getMessage(), e);
+            finish(jobId, "FAILED", e.getMessage());
+        }
+    }
+
+    // Record progress after a committed chunk; returns true if the job should stop
+    private boolean checkpoint(Long jobId, long lastId, int processed, int failed) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            BatchJob job = getJob(jobId);
+            job.setCheckpointId(lastId);
+            job.setProcessedCount(job.getProcessedCount() + processed);
+            job.setFailedCount(job.getFailedCount() + failed);
+            job.setHeartbeatAt(LocalDateTime.now());
+            jobRepo.save(job);
+            return job.isCancelRequested() || !nodeId.equals(job.getOwner());
+        }));
+    }
+
+    private void finish(Long jobId, String finalStatus, String error) {
+        transactionTemplate.executeWithoutResult(status -> {
+            BatchJob job = getJob(jobId);
+            if (!nodeId.equals(job.getOwner()) || !"RUNNING".equals(job.getStatus())) {
+                // Another node took the job over; leave its status to that node
+                return;
+            }
+            job.setStatus(finalStatus);
+            job.setErrorMessage(error);
+            job.setFinishedAt(LocalDateTime.now());
+            job.setHeartbeatAt(LocalDateTime.now());
+            jobRepo.save(job);
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Running jobs stay RUNNING with their last checkpoint and are resumed later
+        jobRunner.shutdownNow();
+    }
+}
@@ -0,0 +1,278 @@
+package com.team1_5.credwise.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.team1_5.credwise.dto.LoanApplicationRequest;
+import com.team1_5.credwise.exception.LoanApplicationException;
+import com.team1_5.credwise.model.LoanApplication;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Processes a stream of loan applications from one partner request. Items are read
+ * one at a time from a JSON array or NDJSON body, at most a fixed number are in the
+ * pipeline at once, and each result is written as an NDJSON line as soon as that
+ * item completes. Nothing is held per item beyond the ones in flight, so memory use
+ * does not grow with the size of the batch.
+ *
+ * All bulk requests share one fixed pool of loan.bulk.workers threads. An item waits
+ * up to loan.bulk.worker-wait-ms for a free worker, and is answered with a 503 when
+ * concurrent bulk requests keep them all busy for longer.
+ */
+@Service
+public class BulkLoanSubmissionService {
+    private static final Logger logger = LoggerFactory.getLogger(BulkLoanSubmissionService.class);
+
+    private final LoanProcessingPipeline pipeline;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ExecutorService executor;
+    private final Semaphore workerPermits;
+    private final long workerWaitMs;
+    private final int maxConcurrency;
+    private final int admissionAttempts;
+
+    public BulkLoanSubmissionService(
+            LoanProcessingPipeline pipeline,
+            ObjectMapper objectMapper,
+            Validator validator,
+            @Value("${loan.bulk.max-concurrency:16}") int maxConcurrency,
+            @Value("${loan.bulk.admission-attempts:30}") int admissionAttempts,
+            @Value("${loan.bulk.workers:32}") int workers,
+            @Value("${loan.bulk.worker-wait-ms:30000}") long workerWaitMs) {
+        this.pipeline = pipeline;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.maxConcurrency = maxConcurrency;
+        this.admissionAttempts = admissionAttempts;
+        this.workerWaitMs = workerWaitMs;
+
+        // Items only reach the pool holding a worker permit, so its queue never grows
+        // past the pool size; anything beyond that is a bug and is rejected
+        int poolSize = Math.max(1, workers);
+        this.workerPermits = new Semaphore(poolSize);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(poolSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "loan-bulk-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Read applications from the input, process them and write one NDJSON line per
+     * item followed by a summary line. Lines are written in completion order and
+     * carry the item's zero-based index in the request.
+     */
+    public void process(Long userId, InputStream input, OutputStream output) throws IOException {
+        ResultWriter writer = new ResultWriter(output);
+        Semaphore permits = new Semaphore(maxConcurrency);
+        int items = 0;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+
+            while (token != null && token != JsonToken.END_ARRAY) {
+                int index = items++;
+                LoanApplicationRequest request;
+                try {
+                    request = objectMapper.readValue(parser, LoanApplicationRequest.class);
+                } catch (IOException e) {
+                    // The stream cannot be resynchronized after a syntax error, so stop reading
+                    writer.failure(index, HttpStatus.BAD_REQUEST, "Malformed item: " + e.getMessage());
+                    break;
+                }
+
+                String violations = validate(request);
+                if (violations != null) {
+                    writer.failure(index, HttpStatus.BAD_REQUEST, violations);
+                } else {
+                    // Blocks while the concurrency cap is reached, which also stops reading the body
+                    permits.acquireUninterruptibly();
+                    if (!dispatch(() -> processItem(userId, index, request, writer), permits)) {
+                        permits.release();
+                        writer.failure(index, HttpStatus.SERVICE_UNAVAILABLE,
+                                "Too many bulk submissions are being processed, please retry shortly");
+                    }
+                }
+                token = parser.nextToken();
+            }
+        } catch (IOException e) {
+            writer.failure(items, HttpStatus.BAD_REQUEST, "Malformed request body: " + e.getMessage());
+        } finally {
+            // Wait for everything still in flight before writing the summary
+            permits.acquireUninterruptibly(maxConcurrency);
+        }
+
+        writer.summary(items);
+    }
+
+    /**
+     * Run the task on a shared bulk worker, waiting up to the worker wait for one to
+     * free up. The request's permit is released when the task finishes.
+     *
+     * @return false if no worker became free in time; the task did not run
+     */
+    private boolean dispatch(Runnable task, Semaphore requestPermits) {
+        try {
+            if (!workerPermits.tryAcquire(workerWaitMs, TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    workerPermits.release();
+                    requestPermits.release();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            workerPermits.release();
+            return false;
+        }
+    }
+
+    private void processItem(Long userId, int index, LoanApplicationRequest request, ResultWriter writer) {
+        try {
+            LoanProcessingPipeline.Submission submission = null;
+            for (int attempt = 0; attempt < admissionAttempts && submission == null; attempt++) {
+                submission = pipeline.submit(userId, request);
+            }
+            if (submission == null) {
+                writer.failure(index, HttpStatus.SERVICE_UNAVAILABLE, "Too many applications are being processed, please retry shortly");
+                return;
+            }
+
+            LoanApplication application = pipeline.awaitDecision(submission);
+            if (application == null) {
+                writer.success(index, HttpStatus.ACCEPTED, pipeline.awaitPersisted(submission));
+            } else {
+                writer.success(index, HttpStatus.OK, application);
+            }
+        } catch (LoanApplicationException e) {
+            HttpStatus status = e.getStatus() != null ? e.getStatus() : HttpStatus.INTERNAL_SERVER_ERROR;
+            writer.failure(index, status, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Bulk item {} failed: {}", index, e.getMessage(), e);
+            writer.failure(index, HttpStatus.INTERNAL_SERVER_ERROR, "Processing failed: " + e.getMessage());
+        }
+    }
+
+    private String validate(LoanApplicationRequest request) {
+        if (request == null) {
+            return "Item must be a loan application object";
+        }
+        Set<ConstraintViolation<LoanApplicationRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * Serializes result lines from concurrent workers onto the response
+     */
+    private final class ResultWriter {
+        private final JsonGenerator generator;
+        private final AtomicLong succeeded = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private boolean broken;
+
+        private ResultWriter(OutputStream output) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(output);
+            this.generator.setRootValueSeparator(null);
+        }
+
+        void success(int index, HttpStatus status, LoanApplication application) {
+            succeeded.incrementAndGet();
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("index", index);
+            line.put("httpStatus", status.value());
+            line.put("applicationId", application.getId());
+            line.put("status", application.getStatus());
+            if (application.getCreditScore() != null) {
+                line.put("creditScore", application.getCreditScore().intValue());
+            }
+            line.put("statusUrl", "/api/loan-applications/" + application.getId() + "/status");
+            write(line);
+        }
+
+        void failure(int index, HttpStatus status, String message) {
+            failed.incrementAndGet();
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("index", index);
+            line.put("httpStatus", status.value());
+            line.put("error", message);
+            write(line);
+        }
+
+        void summary(int items) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("summary", true);
+            line.put("items", items);
+            line.put("succeeded", succeeded.get());
+            line.put("failed", failed.get());
+            write(line);
+        }
+
+        private synchronized void write(Map<String, Object> line) {
+            if (broken) {
+                return;
+            }
+            try {
+                objectMapper.writeValue(generator, line);
+                generator.writeRaw('\n');
+                generator.flush();
+            } catch (IOException e) {
+                // Client went away - keep processing what was admitted, but stop writing
+                broken = true;
+                logger.warn("Could not write bulk result, client disconnected: {}", e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
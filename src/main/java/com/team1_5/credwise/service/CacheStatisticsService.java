@@ -0,0 +1,76 @@
+package com.team1_5.credwise.service;
+
+import com.team1_5.credwise.config.CacheRegions;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hit ratios of the second-level and query cache regions, read from Hibernate's
+ * statistics (hibernate.generate_statistics). Counters are cumulative since startup.
+ */
+@Service
+public class CacheStatisticsService {
+
+    private final Statistics statistics;
+
+    public CacheStatisticsService(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        metrics.put("secondLevelCache", ratio(statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(), statistics.getSecondLevelCachePutCount()));
+        metrics.put("queryCache", ratio(statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount()));
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            // The region names include the query regions, which are reported below
+            if (CacheRegions.QUERY_REGIONS.contains(region)) {
+                continue;
+            }
+            try {
+                regions.put(region, describe(statistics.getDomainDataRegionStatistics(region)));
+            } catch (IllegalArgumentException e) {
+                // Another query results region, such as Hibernate's default one
+            }
+        }
+        for (String region : CacheRegions.QUERY_REGIONS) {
+            CacheRegionStatistics regionStatistics = statistics.getQueryRegionStatistics(region);
+            if (regionStatistics != null) {
+                regions.put(region, describe(regionStatistics));
+            }
+        }
+        metrics.put("regions", regions);
+        return metrics;
+    }
+
+    private Map<String, Object> describe(CacheRegionStatistics regionStatistics) {
+        Map<String, Object> region = ratio(regionStatistics.getHitCount(),
+                regionStatistics.getMissCount(), regionStatistics.getPutCount());
+        // Not every provider reports sizes; negative values mean unknown
+        long inMemory = regionStatistics.getElementCountInMemory();
+        if (inMemory >= 0) {
+            region.put("elementsInMemory", inMemory);
+        }
+        return region;
+    }
+
+    private Map<String, Object> ratio(long hits, long misses, long puts) {
+        Map<String, Object> counts = new LinkedHashMap<>();
+        counts.put("hits", hits);
+        counts.put("misses", misses);
+        counts.put("puts", puts);
+        long lookups = hits + misses;
+        counts.put("hitRatio", lookups == 0 ? null : (double) hits / lookups);
+        return counts;
+    }
+}
@@ -0,0 +1,244 @@
+package com.team1_5.credwise.service;
+
+import com.team1_5.credwise.model.BatchJob;
+import com.team1_5.credwise.model.CreditScoreVersion;
+import com.team1_5.credwise.model.LoanApplication;
+import com.team1_5.credwise.repository.CreditScoreVersionRepository;
+import com.team1_5.credwise.repository.LoanApplicationRepository;
+import com.team1_5.credwise.util.BatchPartitioner;
+import com.team1_5.credwise.util.CreditScoreService;
+import com.team1_5.credwise.util.TokenBucketRateLimiter;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Re-scores existing applications under a new scoring version. Applications are read
+ * in keyset chunks, run through the current CreditScoreService (and, if asked, the ML
+ * decision engine) by parallel workers, and each chunk's scores are written together
+ * as CreditScoreVersion rows; the applications themselves are not changed. A token
+ * bucket of its own keeps the run at loan.rescore.rate-limit.per-second so it leaves
+ * room for live traffic, and that rate is also the run's throughput target.
+ * Applications that already have a successful score under the version are skipped,
+ * so a resumed or repeated run picks up where the last one stopped; a failed score is
+ * retried and its row overwritten. An interrupted run (shutdown) saves what it scored
+ * and stops before its checkpoint moves past the chunk.
+ */
+@Service
+public class CreditRescoreService {
+    private static final Logger logger = LoggerFactory.getLogger(CreditRescoreService.class);
+
+    private final LoanApplicationRepository loanAppRepo;
+    private final CreditScoreVersionRepository scoreVersionRepo;
+    private final LoanApplicationService loanApplicationService;
+    private final CreditScoreService creditScoreService;
+    private final LoanMLService loanMLService;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ExecutorService batchExecutor;
+    private final int chunkSize;
+    private final int workers;
+    private final TokenBucketRateLimiter rateLimiter;
+
+    public CreditRescoreService(LoanApplicationRepository loanAppRepo,
+                                CreditScoreVersionRepository scoreVersionRepo,
+                                LoanApplicationService loanApplicationService,
+                                CreditScoreService creditScoreService,
+                                LoanMLService loanMLService,
+                                PlatformTransactionManager transactionManager,
+                                EntityManager entityManager,
+                                @Qualifier("loanBatchExecutor") ExecutorService batchExecutor,
+                                @Value("${loan.rescore.chunk-size:100}") int chunkSize,
+                                @Value("${loan.rescore.workers:4}") int workers,
+                                @Value("${loan.rescore.rate-limit.per-second:10}") double permitsPerSecond,
+                                @Value("${loan.rescore.rate-limit.burst:10}") int burst) {
+        this.loanAppRepo = loanAppRepo;
+        this.scoreVersionRepo = scoreVersionRepo;
+        this.loanApplicationService = loanApplicationService;
+        this.creditScoreService = creditScoreService;
+        this.loanMLService = loanMLService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.batchExecutor = batchExecutor;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.workers = Math.max(1, workers);
+        this.rateLimiter = new TokenBucketRateLimiter(permitsPerSecond, burst);
+    }
+
+    /**
+     * Number of applications a run with these filters would cover.
+     */
+    public long countCandidates(String status, LocalDateTime createdFrom, LocalDateTime createdTo) {
+        return loanAppRepo.countRescoreCandidates(status, createdFrom, createdTo);
+    }
+
+    /**
+     * Re-score the applications matching the job's filters, starting after its checkpoint.
+     *
+     * @param job RESCORE job holding the scoring version, filters and checkpoint
+     * @param listener Told about every committed chunk; returning false stops the run
+     * @return Number of applications scored
+     */
+    public int rescore(BatchJob job, LoanApplicationService.ChunkListener listener) {
+        int scoredCount = 0;
+        long lastId = job.getCheckpointId();
+
+        while (true) {
+            List<Long> ids = loanAppRepo.findRescoreCandidateIds(lastId, job.getFilterStatus(),
+                    job.getFilterCreatedFrom(), job.getFilterCreatedTo(), PageRequest.of(0, chunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            lastId = ids.get(ids.size() - 1);
+
+            int[] counts;
+            try {
+                counts = rescoreChunk(job, ids);
+            } finally {
+                entityManager.clear();
+            }
+            scoredCount += counts[0];
+
+            if (!listener.onChunkCommitted(lastId, counts[0], counts[1])) {
+                break;
+            }
+        }
+        return scoredCount;
+    }
+
+    // Returns {scored, failed}; applications scored under this version before are neither
+    private int[] rescoreChunk(BatchJob job, List<Long> ids) {
+        String version = job.getScoringVersion();
+        Set<Long> alreadyScored = new HashSet<>(scoreVersionRepo.findScoredApplicationIds(version, ids));
+        List<Long> toScore = ids.stream().filter(id -> !alreadyScored.contains(id)).toList();
+        if (toScore.isEmpty()) {
+            return new int[] {0, 0};
+        }
+
+        // Read the graphs in one short transaction, then score with none open
+        List<LoanApplication> applications = loanApplicationService.getApplicationGraphs(toScore);
+        ConcurrentLinkedQueue<CreditScoreVersion> scores = new ConcurrentLinkedQueue<>();
+        AtomicBoolean interrupted = new AtomicBoolean();
+        BatchPartitioner.run(batchExecutor, applications, workers, application -> {
+            CreditScoreVersion row = score(application, job);
+            if (row != null) {
+                scores.add(row);
+            } else {
+                interrupted.set(true);
+            }
+        });
+
+        List<CreditScoreVersion> rows = new ArrayList<>(scores);
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Long, Long> failedRowIds = new HashMap<>();
+            for (CreditScoreVersion failed : scoreVersionRepo.findFailed(version, toScore)) {
+                failedRowIds.put(failed.getLoanApplication().getId(), failed.getId());
+            }
+            for (CreditScoreVersion row : rows) {
+                Long applicationId = row.getLoanApplication().getId();
+                // Taking over the failed row's id makes the save update it in place
+                row.setId(failedRowIds.get(applicationId));
+                row.setLoanApplication(loanAppRepo.getReferenceById(applicationId));
+            }
+            scoreVersionRepo.saveAll(rows);
+        });
+
+        if (interrupted.get()) {
+            // What was scored is saved and skipped next time; the rest of the chunk is
+            // left unscored and the run stops without moving its checkpoint past it
+            throw new IllegalStateException("Re-scoring under version " + version + " was interrupted");
+        }
+
+        int failed = (int) rows.stream().filter(row -> row.getErrorMessage() != null).count();
+        return new int[] {rows.size() - failed, failed};
+    }
+
+    // Returns null if interrupted while waiting for the rate limit, so nothing is recorded
+    private CreditScoreVersion score(LoanApplication application, BatchJob job) {
+        CreditScoreVersion row = new CreditScoreVersion();
+        row.setLoanApplication(application);
+        row.setScoringVersion(job.getScoringVersion());
+        row.setBatchJobId(job.getId());
+        row.setPreviousCreditScore(application.getCreditScore());
+        row.setPreviousStatus(application.getStatus());
+
+        try {
+            rateLimiter.acquire();
+
+            // The graph is detached, so nothing the scoring sets on it reaches the database
+            Map<String, Object> creditData = loanApplicationService.prepareCreditData(application);
+            Map<String, Object> evaluation = creditScoreService.calculateCreditScore(creditData, application.getFinancialInfo());
+            if (evaluation.containsKey("error")) {
+                row.setErrorMessage(String.valueOf(evaluation.get("error")));
+            }
+            row.setCreditScore(intValue(evaluation.get("creditScore")));
+            row.setEligibilityScore(intValue(evaluation.get("eligibilityScore")));
+            row.setCreditScoreRating((String) evaluation.get("creditScoreRating"));
+            row.setDti(doubleValue(evaluation.get("dti")));
+            row.setCreditUtilization(doubleValue(evaluation.get("creditUtilization")));
+
+            if (job.isIncludeDecision() && row.getErrorMessage() == null) {
+                Map<String, Object> mlDecision = loanMLService.getLoanDecision(
+                        application, application.getFinancialInfo(), application.getPersonalInfo());
+                row.setDecision(loanMLService.applyMLDecision(application, mlDecision).getStatus());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            logger.warn("Re-scoring application {} under version {} failed: {}",
+                    application.getId(), job.getScoringVersion(), e.getMessage());
+            row.setErrorMessage(truncate(String.valueOf(e.getMessage())));
+        }
+        return row;
+    }
+
+    public List<CreditScoreVersion> getScoreVersions(Long applicationId) {
+        return scoreVersionRepo.findByLoanApplicationIdOrderByScoredAtDesc(applicationId);
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("chunkSize", chunkSize);
+        metrics.put("workers", workers);
+        metrics.put("rateLimit", rateLimiter.getMetrics());
+        return metrics;
+    }
+
+    /**
+     * Items per second a run aims for: its rate limit, or null when unlimited.
+     */
+    public Double getTargetRatePerSecond() {
+        return rateLimiter.isEnabled() ? rateLimiter.getPermitsPerSecond() : null;
+    }
+
+    private static Integer intValue(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : null;
+    }
+
+    private static Double doubleValue(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : null;
+    }
+
+    private static String truncate(String message) {
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
@@ -3,15 +3,21 @@ package com.team1_5.credwise.service;
 import com.team1_5.credwise.model.DecisionFactor;
 import com.team1_5.credwise.model.LoanApplicationResult;
 import com.team1_5.credwise.repository.DecisionFactorRepository;
+import com.team1_5.credwise.util.LoanTrace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 @Service
 public class DecisionFactorService {
+    private static final Logger logger = LoggerFactory.getLogger(DecisionFactorService.class);
 
     private final DecisionFactorRepository decisionFactorRepository;
 
@@ -20,17 +26,50 @@ public class DecisionFactorService {
     }
 
     /**
-     * Create decision factors for a loan application result based on credit evaluation
+     * Create decision factors for a loan application result based on credit evaluation,
+     * replacing any it already has
      * @param result The loan application result entity
      * @param creditEvaluationData Credit evaluation data from the scoring system
+     * @return The saved decision factors
      */
     @Transactional
-    public void createDecisionFactors(LoanApplicationResult result, Map<String, Object> creditEvaluationData) {
-        // First delete any existing decision factors for this result
-        decisionFactorRepository.deleteByResult(result);
+    public List<DecisionFactor> createDecisionFactors(LoanApplicationResult result, Map<String, Object> creditEvaluationData) {
+        return replaceDecisionFactors(Map.of(result, creditEvaluationData)).get(result);
+    }
+
+    /**
+     * Replace the decision factors of several results at once: the old factors go in a
+     * single bulk DELETE and the new ones are inserted together, so JDBC batching covers
+     * the whole set.
+     * @param creditEvaluations Credit evaluation data keyed by saved result
+     * @return The saved decision factors of each result
+     */
+    @Transactional
+    public Map<LoanApplicationResult, List<DecisionFactor>> replaceDecisionFactors(
+            Map<LoanApplicationResult, Map<String, Object>> creditEvaluations) {
+        List<Long> resultIds = creditEvaluations.keySet().stream()
+                .map(LoanApplicationResult::getId)
+                .filter(Objects::nonNull)
+                .toList();
+        if (!resultIds.isEmpty()) {
+            decisionFactorRepository.deleteByResultIdIn(resultIds);
+        }
+
+        Map<LoanApplicationResult, List<DecisionFactor>> factorsByResult = new LinkedHashMap<>();
+        List<DecisionFactor> allFactors = new ArrayList<>();
+        creditEvaluations.forEach((result, creditEvaluationData) -> {
+            List<DecisionFactor> factors = buildDecisionFactors(result, creditEvaluationData);
+            factorsByResult.put(result, factors);
+            allFactors.addAll(factors);
+        });
+        decisionFactorRepository.saveAll(allFactors);
+        logger.debug("Replaced decision factors of {} results with {} factors", creditEvaluations.size(), allFactors.size());
+        return factorsByResult;
+    }
 
+    private List<DecisionFactor> buildDecisionFactors(LoanApplicationResult result, Map<String, Object> creditEvaluationData) {
         List<DecisionFactor> factors = new ArrayList<>();
-        System.out.println("Creating decision factors with data: " + creditEvaluationData);
+        LoanTrace.event("decision-factors", "Creating decision factors with data: {}", creditEvaluationData);
 
         try {
             // Credit Score factor - handle different possible field names
@@ -62,7 +101,7 @@ public class DecisionFactorService {
                     : "Credit score of " + creditScore + " (" + creditScoreRating + ") is below recommended minimum.";
                     
             factors.add(createFactor(result, "Credit Score", creditScoreImpact, creditScoreDescription));
-            System.out.println("Added Credit Score factor: " + creditScoreImpact + " - " + creditScoreDescription);
+            LoanTrace.event("decision-factors", "Added Credit Score factor: {} - {}", creditScoreImpact, creditScoreDescription);
     
             // Debt-to-Income Ratio factor - handle different possible field names
             double dti = 0.0;
@@ -80,7 +119,7 @@ public class DecisionFactorService {
                     : "Debt-to-income ratio of " + String.format("%.1f%%", dti * 100) + " exceeds recommended maximum.";
                     
             factors.add(createFactor(result, "Debt-to-Income Ratio", dtiImpact, dtiDescription));
-            System.out.println("Added DTI factor: " + dtiImpact + " - " + dtiDescription);
+            LoanTrace.event("decision-factors", "Added DTI factor: {} - {}", dtiImpact, dtiDescription);
     
             // Employment Stability factor - handle different possible field names
             String employmentStability = "Unknown";
@@ -119,38 +158,38 @@ public class DecisionFactorService {
                     : "Employment history shows insufficient stability.";
                     
             factors.add(createFactor(result, "Employment Stability", employmentImpact, employmentDescription));
-            System.out.println("Added Employment Stability factor: " + employmentImpact + " - " + employmentDescription);
+            LoanTrace.event("decision-factors", "Added Employment Stability factor: {} - {}", employmentImpact, employmentDescription);
     
             // Payment History factor - handle different possible field names
             String paymentHistoryRating = "Fair";
             boolean isOnTime = false;
             String rawPaymentHistory = null;
             
-            System.out.println("\n🔍 PAYMENT HISTORY CHECK: Starting payment history factor creation");
-            System.out.println("Credit evaluation data keys: " + String.join(", ", creditEvaluationData.keySet()));
+            LoanTrace.event("decision-factors", "PAYMENT HISTORY CHECK: Starting payment history factor creation");
+            LoanTrace.event("decision-factors", "Credit evaluation data keys: {}", creditEvaluationData.keySet());
             
             // First check: Direct check for raw payment history
             if (creditEvaluationData.containsKey("payment_history")) {
                 rawPaymentHistory = (String) creditEvaluationData.get("payment_history");
-                System.out.println("🔍 FOUND payment_history key with value: '" + rawPaymentHistory + "'");
+                LoanTrace.event("decision-factors", "FOUND payment_history key with value: '{}'", rawPaymentHistory);
                 
                 // Explicit check for "Late" keyword - this should catch all possible formats
                 if (rawPaymentHistory != null && 
                     (rawPaymentHistory.contains("Late") || rawPaymentHistory.contains("late"))) {
-                    System.out.println("✅ DIRECT MATCH: Found 'Late' in payment history, setting NEGATIVE impact");
+                    LoanTrace.event("decision-factors", "DIRECT MATCH: Found 'Late' in payment history, setting NEGATIVE impact");
                     isOnTime = false;
                     paymentHistoryRating = "Poor";
                 } else if (rawPaymentHistory != null && 
                           (rawPaymentHistory.equalsIgnoreCase("On-time") || 
                            rawPaymentHistory.equalsIgnoreCase("On Time") ||
                            rawPaymentHistory.equals("On time"))) {
-                    System.out.println("✅ DIRECT MATCH: Found on-time payment history, setting POSITIVE impact");
+                    LoanTrace.event("decision-factors", "DIRECT MATCH: Found on-time payment history, setting POSITIVE impact");
                     isOnTime = true;
                     paymentHistoryRating = "Excellent";
                 } else if (rawPaymentHistory != null) {
                     // Default to negative for any unknown payment history
-                    System.out.println("⚠️ UNKNOWN: Payment history is not explicitly on-time, defaulting to NEGATIVE: '" + 
-                                     rawPaymentHistory + "'");
+                    LoanTrace.event("decision-factors", "UNKNOWN: Payment history is not explicitly on-time, defaulting to NEGATIVE: '{}'",
+                            rawPaymentHistory);
                     isOnTime = false;
                     paymentHistoryRating = "Poor";
                 }
@@ -158,53 +197,54 @@ public class DecisionFactorService {
             // Second check: Look for payment history rating
             else if (creditEvaluationData.containsKey("payment_history_rating")) {
                 paymentHistoryRating = (String) creditEvaluationData.get("payment_history_rating");
-                System.out.println("🔍 FOUND payment_history_rating: '" + paymentHistoryRating + "'");
+                LoanTrace.event("decision-factors", "FOUND payment_history_rating: '{}'", paymentHistoryRating);
                 isOnTime = "Excellent".equalsIgnoreCase(paymentHistoryRating);
             } 
             // Third check: Look for original raw payment history key
             else if (creditEvaluationData.containsKey("paymentHistory")) {
                 rawPaymentHistory = (String) creditEvaluationData.get("paymentHistory");
-                System.out.println("🔍 FOUND paymentHistory key with value: '" + rawPaymentHistory + "'");
+                LoanTrace.event("decision-factors", "FOUND paymentHistory key with value: '{}'", rawPaymentHistory);
                 
                 // Same logic as above - check for "Late" explicitly
                 if (rawPaymentHistory != null && 
                     (rawPaymentHistory.contains("Late") || rawPaymentHistory.contains("late"))) {
-                    System.out.println("✅ DIRECT MATCH: Found 'Late' in paymentHistory, setting NEGATIVE impact");
+                    LoanTrace.event("decision-factors", "DIRECT MATCH: Found 'Late' in paymentHistory, setting NEGATIVE impact");
                     isOnTime = false;
                     paymentHistoryRating = "Poor";
                 } else if (rawPaymentHistory != null && 
                           (rawPaymentHistory.equalsIgnoreCase("On-time") || 
                            rawPaymentHistory.equalsIgnoreCase("On Time") ||
                            rawPaymentHistory.equals("On time"))) {
-                    System.out.println("✅ DIRECT MATCH: Found on-time paymentHistory, setting POSITIVE impact");
+                    LoanTrace.event("decision-factors", "DIRECT MATCH: Found on-time paymentHistory, setting POSITIVE impact");
                     isOnTime = true;
                     paymentHistoryRating = "Excellent";
                 } else if (rawPaymentHistory != null) {
-                    System.out.println("⚠️ UNKNOWN: paymentHistory is not explicitly on-time or late, defaulting to NEGATIVE: '" + 
-                                     rawPaymentHistory + "'");
+                    LoanTrace.event("decision-factors", "UNKNOWN: paymentHistory is not explicitly on-time or late, defaulting to NEGATIVE: '{}'",
+                            rawPaymentHistory);
                     isOnTime = false;
                     paymentHistoryRating = "Poor";
                 }
             } 
             // Last check: Check every key for anything containing "payment" and "history"
             else {
-                System.out.println("⚠️ No direct payment history key found, checking all keys for relevant data");
+                LoanTrace.event("decision-factors", "No direct payment history key found, checking all keys for relevant data");
                 for (String key : creditEvaluationData.keySet()) {
                     if (key.toLowerCase().contains("payment") && 
                         (key.toLowerCase().contains("history") || key.toLowerCase().contains("status"))) {
                         Object value = creditEvaluationData.get(key);
-                        System.out.println("🔍 Found potential payment history in key: '" + key + "' with value: '" + value + "'");
+                        LoanTrace.event("decision-factors", "Found potential payment history in key: '{}' with value: '{}'", key, value);
                         
                         if (value instanceof String) {
                             rawPaymentHistory = (String) value;
                             if (rawPaymentHistory.contains("Late") || rawPaymentHistory.contains("late")) {
-                                System.out.println("✅ DIRECT MATCH: Found 'Late' in key '" + key + "', setting NEGATIVE impact");
+                                LoanTrace.event("decision-factors", "DIRECT MATCH: Found 'Late' in key '{}', setting NEGATIVE impact", key);
                                 isOnTime = false;
                                 paymentHistoryRating = "Poor";
                                 break;
                             } else if (rawPaymentHistory.equalsIgnoreCase("On-time") || 
                                       rawPaymentHistory.equalsIgnoreCase("On Time")) {
-                                System.out.println("✅ DIRECT MATCH: Found on-time payment in key '" + key + "', setting POSITIVE impact");
+                                LoanTrace.event("decision-factors", "DIRECT MATCH: Found on-time payment in key '{}', setting POSITIVE impact",
+                                        key);
                                 isOnTime = true;
                                 paymentHistoryRating = "Excellent";
                                 break;
@@ -213,16 +253,16 @@ public class DecisionFactorService {
                     } else if (key.equalsIgnoreCase("paymentHistoryRating")) {
                         // Special case for paymentHistoryRating field
                         String ratingValue = (String) creditEvaluationData.get(key);
-                        System.out.println("🔍 Found payment history rating in key: '" + key + "' with value: '" + ratingValue + "'");
+                        LoanTrace.event("decision-factors", "Found payment history rating in key: '{}' with value: '{}'", key, ratingValue);
                         
                         if (ratingValue != null && ratingValue.equalsIgnoreCase("Excellent")) {
-                            System.out.println("✅ RATING MATCH: Found Excellent payment history rating, setting POSITIVE impact");
+                            LoanTrace.event("decision-factors", "RATING MATCH: Found Excellent payment history rating, setting POSITIVE impact");
                             isOnTime = true;
                             paymentHistoryRating = "Excellent";
                             break;
                         } else if (ratingValue != null && 
                                  (ratingValue.equalsIgnoreCase("Poor") || ratingValue.equalsIgnoreCase("Bad"))) {
-                            System.out.println("✅ RATING MATCH: Found Poor/Bad payment history rating, setting NEGATIVE impact");
+                            LoanTrace.event("decision-factors", "RATING MATCH: Found Poor/Bad payment history rating, setting NEGATIVE impact");
                             isOnTime = false;
                             paymentHistoryRating = "Poor";
                             break;
@@ -232,7 +272,7 @@ public class DecisionFactorService {
                 
                 // If nothing found, default to negative
                 if (rawPaymentHistory == null && paymentHistoryRating.equals("Fair")) {
-                    System.out.println("⚠️ No payment history found in any key, defaulting to NEGATIVE impact");
+                    LoanTrace.event("decision-factors", "No payment history found in any key, defaulting to NEGATIVE impact");
                     isOnTime = false;
                     paymentHistoryRating = "Poor";
                 }
@@ -245,8 +285,8 @@ public class DecisionFactorService {
                  rawPaymentHistory.toLowerCase().contains("default") ||
                  rawPaymentHistory.toLowerCase().contains("missed") ||
                  rawPaymentHistory.toLowerCase().contains("delinquent"))) {
-                System.out.println("🛑 FINAL SAFETY CHECK: Forcing NEGATIVE impact for late-indicating payment history: '" + 
-                                 rawPaymentHistory + "'");
+                LoanTrace.event("decision-factors", "FINAL SAFETY CHECK: Forcing NEGATIVE impact for late-indicating payment history: '{}'",
+                        rawPaymentHistory);
                 isOnTime = false;
                 paymentHistoryRating = "Poor";
             } else if (rawPaymentHistory != null &&
@@ -254,15 +294,15 @@ public class DecisionFactorService {
                        rawPaymentHistory.equalsIgnoreCase("On Time") ||
                        rawPaymentHistory.equals("On time"))) {
                 // SAFETY CHECK: Ensure "On Time" is ALWAYS treated as positive
-                System.out.println("✅ FINAL SAFETY CHECK: Ensuring POSITIVE impact for on-time payment history: '" + 
-                                 rawPaymentHistory + "'");
+                LoanTrace.event("decision-factors", "FINAL SAFETY CHECK: Ensuring POSITIVE impact for on-time payment history: '{}'",
+                        rawPaymentHistory);
                 isOnTime = true;
                 paymentHistoryRating = "Excellent";
             } else if (rawPaymentHistory != null && 
                       !rawPaymentHistory.toLowerCase().contains("late")) {
                 // If it doesn't explicitly mention "late", treat as positive
-                System.out.println("✅ LENIENT CHECK: Payment history doesn't contain 'late', assuming positive: '" + 
-                                 rawPaymentHistory + "'");
+                LoanTrace.event("decision-factors", "LENIENT CHECK: Payment history doesn't contain 'late', assuming positive: '{}'",
+                        rawPaymentHistory);
                 isOnTime = true;
                 paymentHistoryRating = "Excellent";
             }
@@ -272,9 +312,8 @@ public class DecisionFactorService {
             String paymentHistoryDescription = "";
             
             // Extra logging to debug the decision
-            System.out.println("🧪 DECISION DEBUG - Final values: isOnTime=" + isOnTime + 
-                             ", paymentHistoryRating=" + paymentHistoryRating + 
-                             ", rawPaymentHistory=" + rawPaymentHistory);
+            LoanTrace.event("decision-factors", "DECISION DEBUG - Final values: isOnTime={}, paymentHistoryRating={}, rawPaymentHistory={}",
+                    isOnTime, paymentHistoryRating, rawPaymentHistory);
             
             // GUARANTEED LATE PAYMENT CHECK - if any form of "Late" is present, always force negative
             if (rawPaymentHistory != null && 
@@ -283,7 +322,7 @@ public class DecisionFactorService {
                  rawPaymentHistory.toLowerCase().contains("missed") ||
                  rawPaymentHistory.toLowerCase().contains("delinquent"))) {
                 
-                System.out.println("‼️ GUARANTEED NEGATIVE CHECK: Found late payment indicator, FORCING negative impact");
+                LoanTrace.event("decision-factors", "GUARANTEED NEGATIVE CHECK: Found late payment indicator, FORCING negative impact");
                 isOnTime = false;
                 paymentHistoryRating = "Poor";
                 paymentHistoryImpact = "Negative";
@@ -293,16 +332,16 @@ public class DecisionFactorService {
             else if (isOnTime || "Excellent".equalsIgnoreCase(paymentHistoryRating)) {
                 paymentHistoryImpact = "Positive";
                 paymentHistoryDescription = "Payment history shows consistent on-time payments.";
-                System.out.println("✅ FINAL DECISION: Setting POSITIVE impact based on payment history");
+                LoanTrace.event("decision-factors", "FINAL DECISION: Setting POSITIVE impact based on payment history");
             } else if (!isOnTime || "Poor".equalsIgnoreCase(paymentHistoryRating)) {
                 paymentHistoryImpact = "Negative";
                 paymentHistoryDescription = "Payment history indicates late payments, which negatively impacts your credit assessment.";
-                System.out.println("⚠️ FINAL DECISION: Setting NEGATIVE impact based on payment history");
+                LoanTrace.event("decision-factors", "FINAL DECISION: Setting NEGATIVE impact based on payment history");
             } else {
                 // Default neutral case
                 paymentHistoryImpact = "Neutral";
                 paymentHistoryDescription = "Payment history has been considered in your application assessment.";
-                System.out.println("ℹ️ FINAL DECISION: Setting NEUTRAL impact due to ambiguous payment history");
+                LoanTrace.event("decision-factors", "FINAL DECISION: Setting NEUTRAL impact due to ambiguous payment history");
             }
                     
             // Create the decision factor
@@ -312,16 +351,15 @@ public class DecisionFactorService {
             if (rawPaymentHistory != null && rawPaymentHistory.toLowerCase().contains("late") && 
                 !"Negative".equals(paymentHistoryFactor.getImpact())) {
                 
-                System.out.println("🚨 CRITICAL ERROR: Late payment wasn't marked as negative! Fixing before save.");
+                logger.warn("Late payment history was not marked as a negative factor, correcting it before save");
                 paymentHistoryFactor.setImpact("Negative");
                 paymentHistoryFactor.setDescription("Payment history indicates late payments, which negatively impacts your credit assessment.");
             }
             
             factors.add(paymentHistoryFactor);
-            System.out.println("📊 PAYMENT HISTORY FACTOR CREATED: " + paymentHistoryImpact + 
-                           " - " + paymentHistoryDescription + 
-                           " (Based on: " + (rawPaymentHistory != null ? "'" + rawPaymentHistory + "'" : "'" + paymentHistoryRating + "'") + ")");
-            System.out.println("💾 DATABASE VALUE: factor='Payment History', impact='" + paymentHistoryFactor.getImpact() + "'");
+            LoanTrace.event("decision-factors", "PAYMENT HISTORY FACTOR CREATED: {} - {} (Based on: '{}')",
+                    paymentHistoryImpact, paymentHistoryDescription, rawPaymentHistory != null ? rawPaymentHistory : paymentHistoryRating);
+            LoanTrace.event("decision-factors", "DATABASE VALUE: factor='Payment History', impact='{}'", paymentHistoryFactor.getImpact());
             
             // Credit Score Accuracy (only if user provided a score)
             if (creditEvaluationData.containsKey("isScoreAccurate")) {
@@ -329,7 +367,7 @@ public class DecisionFactorService {
                 if (!isScoreAccurate) {
                     String message = (String) creditEvaluationData.get("creditScoreAccuracyMessage");
                     factors.add(createFactor(result, "Credit Score Discrepancy", "Warning", message));
-                    System.out.println("Added Credit Score Discrepancy factor: Warning - " + message);
+                    LoanTrace.event("decision-factors", "Added Credit Score Discrepancy factor: Warning - {}", message);
                 }
             }
             
@@ -350,21 +388,18 @@ public class DecisionFactorService {
                         "Credit utilization of " + String.format("%.1f%%", utilization) + " is high, which is negative.";
                 
                 factors.add(createFactor(result, "Credit Utilization", utilizationImpact, utilizationDescription));
-                System.out.println("Added Credit Utilization factor: " + utilizationImpact + " - " + utilizationDescription);
+                LoanTrace.event("decision-factors", "Added Credit Utilization factor: {} - {}", utilizationImpact, utilizationDescription);
             }
             
-            // Save all factors
-            decisionFactorRepository.saveAll(factors);
-            System.out.println("Saved " + factors.size() + " decision factors");
+            LoanTrace.event("decision-factors", "Built {} decision factors", factors.size());
         } catch (Exception e) {
-            System.out.println("Error creating decision factors: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("Error creating decision factors: {}", e.getMessage(), e);
             
             // Add a generic factor so we have something
             factors.add(createFactor(result, "Application Review", "Neutral", 
                 "Your application has been reviewed based on available information."));
-            decisionFactorRepository.saveAll(factors);
         }
+        return factors;
     }
 
     private DecisionFactor createFactor(LoanApplicationResult result, String factor, String impact, String description) {
@@ -386,7 +421,7 @@ public class DecisionFactorService {
             try {
                 return Integer.parseInt(String.valueOf(value));
             } catch (Exception e) {
-                System.out.println("Failed to parse integer value for key '" + key + "': " + e.getMessage());
+                LoanTrace.event("decision-factors", "Failed to parse integer value for key '{}': {}", key, e.getMessage());
             }
         }
         return defaultValue;
@@ -401,7 +436,7 @@ public class DecisionFactorService {
             try {
                 return Double.parseDouble(String.valueOf(value));
             } catch (Exception e) {
-                System.out.println("Failed to parse double value for key '" + key + "': " + e.getMessage());
+                LoanTrace.event("decision-factors", "Failed to parse double value for key '{}': {}", key, e.getMessage());
             }
         }
         return defaultValue;
@@ -0,0 +1,232 @@
+package com.team1_5.credwise.service;
+
+import com.team1_5.credwise.config.ReadYourWritesTracker;
+import com.team1_5.credwise.dto.DocumentUploadResponse;
+import com.team1_5.credwise.exception.LoanApplicationException;
+import com.team1_5.credwise.model.Document;
+import com.team1_5.credwise.model.LoanApplication;
+import com.team1_5.credwise.model.User;
+import com.team1_5.credwise.repository.DocumentRepository;
+import com.team1_5.credwise.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Uploads documents into the document store, attaches them to applications and finds
+ * their content for their owners. Uploads are streamed into the store as they arrive,
+ * so neither the request nor the document is ever held in memory whole.
+ */
+@Service
+public class DocumentService {
+    private static final Logger logger = LoggerFactory.getLogger(DocumentService.class);
+
+    private final DocumentRepository documentRepository;
+    private final UserRepository userRepository;
+    private final DocumentStorageService documentStorage;
+    private final ReadYourWritesTracker readYourWrites;
+    private final long maxSizeBytes;
+
+    public DocumentService(DocumentRepository documentRepository,
+                           UserRepository userRepository,
+                           DocumentStorageService documentStorage,
+                           ReadYourWritesTracker readYourWrites,
+                           @Value("${loan.documents.max-size-bytes:20971520}") long maxSizeBytes) {
+        this.documentRepository = documentRepository;
+        this.userRepository = userRepository;
+        this.documentStorage = documentStorage;
+        this.readYourWrites = readYourWrites;
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * Store an uploaded document for the user, not yet attached to an application.
+     *
+     * @param content Document bytes, read to the end; larger than loan.documents.max-size-bytes is a 413
+     */
+    public DocumentUploadResponse upload(Long userId, String documentType, String fileName,
+                                         String contentType, InputStream content) {
+        if (documentType == null || documentType.isBlank()) {
+            throw new LoanApplicationException("Document type is required", HttpStatus.BAD_REQUEST);
+        }
+
+        DocumentStorageService.StoredBlob blob;
+        try {
+            blob = documentStorage.store(new SizeLimitedInputStream(content, maxSizeBytes));
+        } catch (IOException e) {
+            logger.error("Failed to store uploaded document for user {}", userId, e);
+            throw new LoanApplicationException("Failed to store document", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        if (blob.size() == 0) {
+            throw new LoanApplicationException("Document file cannot be empty", HttpStatus.BAD_REQUEST);
+        }
+
+        Document document = new Document();
+        document.setUser(userRepository.getReferenceById(userId));
+        document.setDocumentType(documentType);
+        document.setFileName(fileName);
+        document.setContentType(contentType);
+        applyBlob(document, blob);
+        document = documentRepository.save(document);
+        readYourWrites.recordWrite(userId);
+
+        return new DocumentUploadResponse(document.getId(), document.getDocumentType(), document.getFileName(),
+                document.getContentType(), blob.size(), blob.sha256(), blob.deduplicated());
+    }
+
+    /**
+     * Store base64 content sent inline in a submission. The whole string is already in
+     * memory here; uploading first and sending the id avoids that.
+     */
+    public Document createInlineDocument(User user, String documentType, String base64) {
+        Document document = new Document();
+        document.setUser(user);
+        document.setDocumentType(documentType);
+        try (InputStream content = DocumentStorageService.decodeBase64(
+                new SizeLimitedInputStream(new ByteArrayInputStream(base64.getBytes(StandardCharsets.US_ASCII)),
+                        maxSizeBytes * 4 / 3 + 256))) {
+            applyBlob(document, documentStorage.store(content));
+        } catch (IOException e) {
+            logger.error("Failed to store document content", e);
+            throw new LoanApplicationException("Failed to store document", HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        if (base64.startsWith("data:") && base64.indexOf(';') > 5) {
+            document.setContentType(base64.substring(5, base64.indexOf(';')));
+        }
+        return document;
+    }
+
+    /**
+     * The user's uploaded documents that no application references yet, in the order of
+     * the ids. Ids that are unknown, someone else's or already attached are a 400.
+     * Nothing is attached here; see {@link #attachUploadedDocuments}.
+     */
+    @Transactional
+    public List<Document> findUploadedDocuments(Collection<Long> documentIds, User user) {
+        if (new HashSet<>(documentIds).size() != documentIds.size()) {
+            throw new LoanApplicationException("A document is referenced more than once", HttpStatus.BAD_REQUEST);
+        }
+        Map<Long, Document> found = documentRepository.findUnattached(documentIds, user.getId()).stream()
+                .collect(Collectors.toMap(Document::getId, Function.identity()));
+        return documentIds.stream()
+                .map(id -> {
+                    Document document = found.get(id);
+                    if (document == null) {
+                        throw new LoanApplicationException(
+                                "Document not found or already used: " + id, HttpStatus.BAD_REQUEST);
+                    }
+                    return document;
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Attach uploaded documents to a saved application with one conditional update, so
+     * of two submissions referencing the same document only one gets it; a document
+     * attached elsewhere since it was found is a 409. Must run inside the transaction
+     * that saved the application, which the 409 rolls back.
+     */
+    @Transactional
+    public void attachUploadedDocuments(List<Document> documents, LoanApplication application) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        List<Long> ids = documents.stream().map(Document::getId).collect(Collectors.toList());
+        int attached = documentRepository.attach(ids, application.getUser().getId(), application);
+        if (attached != ids.size()) {
+            throw new LoanApplicationException("A document was attached to another application", HttpStatus.CONFLICT);
+        }
+        documents.forEach(document -> document.setLoanApplication(application));
+    }
+
+    /**
+     * The document, if the user uploaded it or owns its application; others are reported as missing.
+     */
+    @Transactional(readOnly = true)
+    public Document getDocument(Long documentId, Long userId) {
+        return documentRepository.findOwnedById(documentId, userId)
+                .orElseThrow(() -> new LoanApplicationException("Document not found: " + documentId, HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * The stored file holding the document's content.
+     */
+    public DocumentStorageService.BlobFile getContentFile(Document document) {
+        try {
+            if (document.getContentHash() == null) {
+                throw new LoanApplicationException("Document content not found: " + document.getId(), HttpStatus.NOT_FOUND);
+            }
+            return documentStorage.locate(document.getContentHash())
+                    .orElseThrow(() -> new LoanApplicationException(
+                            "Document content not found: " + document.getId(), HttpStatus.NOT_FOUND));
+        } catch (IOException e) {
+            throw new LoanApplicationException("Failed to read document: " + document.getId(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * The document's original content, decompressed if it is stored gzipped. The caller closes it.
+     */
+    public InputStream openContent(Document document) throws IOException {
+        return documentStorage.open(document.getContentHash())
+                .orElseThrow(() -> new LoanApplicationException(
+                        "Document content not found: " + document.getId(), HttpStatus.NOT_FOUND));
+    }
+
+    private static void applyBlob(Document document, DocumentStorageService.StoredBlob blob) {
+        document.setContentHash(blob.sha256());
+        document.setSizeBytes(blob.size());
+    }
+
+    // Fails the upload as soon as more than the limit has been read, before it is all on disk
+    private static class SizeLimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private long count;
+
+        SizeLimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(int read) {
+            count += read;
+            if (count > limit) {
+                throw new LoanApplicationException(
+                        "Document is larger than " + limit + " bytes", HttpStatus.PAYLOAD_TOO_LARGE);
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.team1_5.credwise.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content-addressed store for document bytes on the local disk. Each blob is saved once
+ * under the SHA-256 of its content ({@code ab/cd/abcd...}), so identical uploads share
+ * one file and the documents table keeps only the hash. Content is streamed through a
+ * temp file while it is hashed, and gzipped when loan.documents.compression.enabled is
+ * set and that saves at least loan.documents.compression.min-saving; scans and PDFs that
+ * are already compressed are kept as they are. Blobs are never rewritten, which is what
+ * lets downloads hand the file straight to the socket.
+ */
+@Service
+public class DocumentStorageService {
+    private static final Logger logger = LoggerFactory.getLogger(DocumentStorageService.class);
+
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+    private final Path tempDir;
+    private final boolean compressionEnabled;
+    private final double minCompressionSaving;
+
+    /**
+     * A stored blob. {@code size} is the length of the original content.
+     * {@code deduplicated} is set when the content was already in the store.
+     */
+    public record StoredBlob(String sha256, long size, boolean compressed, boolean deduplicated) {}
+
+    /**
+     * Where a blob lives on disk. {@code gzip} means the file holds the gzipped content.
+     */
+    public record BlobFile(Path path, long length, boolean gzip) {}
+
+    public DocumentStorageService(@Value("${loan.documents.storage-dir:./data/documents}") String storageDir,
+                                  @Value("${loan.documents.compression.enabled:true}") boolean compressionEnabled,
+                                  @Value("${loan.documents.compression.min-saving:0.1}") double minCompressionSaving)
+            throws IOException {
+        this.root = Path.of(storageDir).toAbsolutePath().normalize();
+        // Same file system as the blobs, so finished uploads can be renamed into place
+        this.tempDir = root.resolve("tmp");
+        this.compressionEnabled = compressionEnabled;
+        this.minCompressionSaving = minCompressionSaving;
+        Files.createDirectories(tempDir);
+    }
+
+    /**
+     * Stream content into the store. The stream is read to the end but not closed.
+     */
+    public StoredBlob store(InputStream content) throws IOException {
+        Path temp = Files.createTempFile(tempDir, "blob-", ".part");
+        try {
+            MessageDigest digest = sha256();
+            long size = 0;
+            try (OutputStream file = Files.newOutputStream(temp);
+                 OutputStream out = compressionEnabled ? new GZIPOutputStream(file, BUFFER_SIZE) : file) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                    size += read;
+                }
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+
+            Optional<BlobFile> existing = locate(hash);
+            if (existing.isPresent()) {
+                return new StoredBlob(hash, size, existing.get().gzip(), true);
+            }
+
+            boolean compressed = compressionEnabled;
+            if (compressed && Files.size(temp) > size * (1 - minCompressionSaving)) {
+                temp = inflate(temp);
+                compressed = false;
+            }
+
+            Path target = pathFor(hash, compressed);
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Another upload of the same content got there first
+                return new StoredBlob(hash, size, compressed, true);
+            }
+            logger.debug("Stored blob {} ({} bytes{})", hash, size, compressed ? ", gzipped" : "");
+            return new StoredBlob(hash, size, compressed, false);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * The blob's file, if the store has it.
+     */
+    public Optional<BlobFile> locate(String sha256) throws IOException {
+        requireHash(sha256);
+        for (boolean gzip : new boolean[] {false, true}) {
+            Path path = pathFor(sha256, gzip);
+            if (Files.isRegularFile(path)) {
+                return Optional.of(new BlobFile(path, Files.size(path), gzip));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Open the blob's original content for reading, decompressing it if it is stored gzipped.
+     */
+    public Optional<InputStream> open(String sha256) throws IOException {
+        Optional<BlobFile> blob = locate(sha256);
+        if (blob.isEmpty()) {
+            return Optional.empty();
+        }
+        InputStream in = Files.newInputStream(blob.get().path());
+        return Optional.of(blob.get().gzip() ? new GZIPInputStream(in, BUFFER_SIZE) : in);
+    }
+
+    /**
+     * Whether the store has the blob and its content still hashes to its name.
+     */
+    public boolean verify(String sha256) throws IOException {
+        Optional<InputStream> content = open(sha256);
+        if (content.isEmpty()) {
+            return false;
+        }
+        try (InputStream in = content.get()) {
+            return sha256.equals(hash(in));
+        }
+    }
+
+    /**
+     * SHA-256 of the content, as the hex digest blobs are named by. The stream is read
+     * to the end but not closed.
+     */
+    public static String hash(InputStream content) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = content.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Decode base64 text as it is read. Accepts line breaks and a leading
+     * {@code data:<type>;base64,} prefix, as sent by browsers.
+     */
+    public static InputStream decodeBase64(InputStream base64Text) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(base64Text);
+        in.mark(256);
+        byte[] head = in.readNBytes(256);
+        in.reset();
+        String prefix = new String(head, StandardCharsets.US_ASCII);
+        if (prefix.startsWith("data:") && prefix.indexOf(',') > 0) {
+            in.skipNBytes(prefix.indexOf(',') + 1);
+        }
+        return Base64.getMimeDecoder().wrap(in);
+    }
+
+    private Path pathFor(String sha256, boolean gzip) {
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4))
+                .resolve(gzip ? sha256 + GZIP_SUFFIX : sha256);
+    }
+
+    // Replace a gzipped temp file with its plain content
+    private Path inflate(Path gzipped) throws IOException {
+        Path plain = Files.createTempFile(tempDir, "blob-", ".part");
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(gzipped), BUFFER_SIZE)) {
+            Files.copy(in, plain, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(plain);
+            throw e;
+        } finally {
+            Files.deleteIfExists(gzipped);
+        }
+        return plain;
+    }
+
+    private static void requireHash(String sha256) {
+        // Hashes become file names, so nothing else may get through
+        if (sha256 == null || !SHA256_HEX.matcher(sha256).matches()) {
+            throw new IllegalArgumentException("Not a SHA-256 hex digest: " + sha256);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
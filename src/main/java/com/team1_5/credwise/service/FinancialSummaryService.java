@@ -4,10 +4,10 @@ import com.team1_5.credwise.dto.FinancialSummaryResponse;
 import com.team1_5.credwise.model.FinancialInfo;
 import com.team1_5.credwise.repository.FinancialInfoRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import org.springframework.http.HttpStatus;
-import java.util.List;
 
 @Service
 public class FinancialSummaryService {
@@ -21,16 +21,11 @@ public class FinancialSummaryService {
     /**
      * Get the latest financial summary for a user
      */
+    @Transactional(readOnly = true)
     public FinancialSummaryResponse getFinancialSummary(Long userId) {
         // Get the latest financial info for the user
-        List<FinancialInfo> financialInfoList = financialInfoRepository.findLatestByUserId(userId);
-        
-        if (financialInfoList == null || financialInfoList.isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Financial information not found for this user.");
-        }
-        
-        // Get the latest entry (first in the list since we ordered by lastUpdated DESC)
-        FinancialInfo latestInfo = financialInfoList.get(0);
+        FinancialInfo latestInfo = financialInfoRepository.findLatestByUserId(userId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Financial information not found for this user."));
         
         // Create and return the response with both the user-provided and system-generated credit scores
         return new FinancialSummaryResponse(
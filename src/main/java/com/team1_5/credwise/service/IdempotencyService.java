@@ -0,0 +1,333 @@
+package com.team1_5.credwise.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.team1_5.credwise.exception.LoanApplicationException;
+import com.team1_5.credwise.model.IdempotencyRecord;
+import com.team1_5.credwise.repository.IdempotencyRecordRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Makes request handling idempotent per user and Idempotency-Key header.
+ *
+ * Completed responses are kept in a bounded, expiring in-memory cache backed by the
+ * idempotency_keys table. A repeat of a completed key gets the original response back.
+ * A repeat that arrives while the first request is still running waits for it to
+ * finish: on this node through a shared future, and on other nodes by polling the
+ * IN_PROGRESS row. Failed or non-2xx requests release their key so the client can retry.
+ *
+ * An IN_PROGRESS row only holds a short lease (loan.idempotency.lease-ms), which the
+ * node running the request renews until it finishes. If that node dies the lease runs
+ * out and the next request with the key takes it over, instead of the key staying
+ * blocked for the whole retention TTL, which only applies to completed responses.
+ */
+@Service
+public class IdempotencyService {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final String IN_PROGRESS = "IN_PROGRESS";
+    private static final String COMPLETED = "COMPLETED";
+    private static final long POLL_INTERVAL_MS = 200;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final long ttlMinutes;
+    private final long waitTimeoutMs;
+    private final long leaseMs;
+
+    private final Map<String, CompletableFuture<IdempotencyRecord>> inFlight = new ConcurrentHashMap<>();
+    // Owners of the IN_PROGRESS leases this node holds and renews
+    private final Set<String> heldLeases = ConcurrentHashMap.newKeySet();
+    private final Map<String, IdempotencyRecord> completedCache;
+
+    public IdempotencyService(
+            IdempotencyRecordRepository idempotencyRecordRepository,
+            EntityManager entityManager,
+            ObjectMapper objectMapper,
+            @Value("${loan.idempotency.ttl-minutes:1440}") long ttlMinutes,
+            @Value("${loan.idempotency.wait-timeout-ms:30000}") long waitTimeoutMs,
+            @Value("${loan.idempotency.cache-size:10000}") int cacheSize,
+            @Value("${loan.idempotency.lease-ms:30000}") long leaseMs) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.ttlMinutes = ttlMinutes;
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.leaseMs = leaseMs;
+        this.completedCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecord> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Run the action once per user and idempotency key, replaying the stored response
+     * for repeats. Without a key the action simply runs.
+     *
+     * @param userId The user making the request
+     * @param idempotencyKey Value of the Idempotency-Key header, may be null
+     * @param request The request body, used to detect a key reused for a different request
+     * @param action Produces the response for the first request
+     */
+    public ResponseEntity<?> execute(Long userId, String idempotencyKey, Object request,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > 255) {
+            throw new LoanApplicationException("Idempotency-Key must be at most 255 characters", HttpStatus.BAD_REQUEST);
+        }
+
+        String key = userId + ":" + idempotencyKey;
+        String requestHash = hash(request);
+
+        IdempotencyRecord cached = completedCache.get(key);
+        if (cached != null && !cached.isExpired()) {
+            return replay(cached, requestHash);
+        }
+
+        CompletableFuture<IdempotencyRecord> ours = new CompletableFuture<>();
+        CompletableFuture<IdempotencyRecord> running = inFlight.putIfAbsent(key, ours);
+        if (running != null) {
+            // Same key already running on this node - wait for its response
+            return replay(await(running), requestHash);
+        }
+
+        String owner = UUID.randomUUID().toString();
+        try {
+            Optional<IdempotencyRecord> stored = claim(key, requestHash, owner);
+            if (stored.isPresent()) {
+                IdempotencyRecord record = stored.get();
+                ours.complete(record);
+                return replay(record, requestHash);
+            }
+
+            heldLeases.add(owner);
+            ResponseEntity<?> response;
+            try {
+                response = action.get();
+            } catch (RuntimeException e) {
+                release(key, owner);
+                ours.completeExceptionally(e);
+                throw e;
+            }
+
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                // Only successful responses are replayed; let the client retry anything else
+                release(key, owner);
+                ours.completeExceptionally(new IllegalStateException("Request was not successful"));
+                return response;
+            }
+
+            IdempotencyRecord record = complete(key, requestHash, owner, response);
+            ours.complete(record);
+            return response;
+        } catch (RuntimeException e) {
+            ours.completeExceptionally(e);
+            throw e;
+        } finally {
+            heldLeases.remove(owner);
+            inFlight.remove(key, ours);
+        }
+    }
+
+    /**
+     * Claim the key with an IN_PROGRESS lease. Returns the stored record instead when
+     * the key has already completed, waiting for it if another node is still running it.
+     * A key whose lease has run out is taken over.
+     */
+    private Optional<IdempotencyRecord> claim(String key, String requestHash, String owner) {
+        long deadline = System.currentTimeMillis() + waitTimeoutMs;
+
+        while (true) {
+            Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findById(key);
+            // Under open-in-view the request's persistence context would hand back the
+            // same instance on every poll, never showing the other request's progress
+            existing.ifPresent(entityManager::detach);
+            if (existing.isPresent() && existing.get().isExpired()) {
+                LocalDateTime now = LocalDateTime.now();
+                if (idempotencyRecordRepository.takeOverExpired(key, requestHash, owner, leaseUntil(), now) > 0) {
+                    logger.info("Took over idempotency key {} after its lease expired", key);
+                    return Optional.empty();
+                }
+                // Someone else took it over first - look again
+                continue;
+            }
+
+            if (existing.isEmpty()) {
+                IdempotencyRecord record = new IdempotencyRecord();
+                record.setKey(key);
+                record.setRequestHash(requestHash);
+                record.setStatus(IN_PROGRESS);
+                record.setOwner(owner);
+                record.setExpiresAt(leaseUntil());
+                try {
+                    idempotencyRecordRepository.saveAndFlush(record);
+                    return Optional.empty();
+                } catch (DataIntegrityViolationException e) {
+                    // Another node claimed it first - fall through and wait for it
+                    logger.debug("Idempotency key {} was claimed concurrently", key);
+                }
+            } else if (COMPLETED.equals(existing.get().getStatus())) {
+                completedCache.put(key, existing.get());
+                return existing;
+            }
+
+            if (System.currentTimeMillis() >= deadline) {
+                throw new LoanApplicationException(
+                        "A request with this Idempotency-Key is still being processed", HttpStatus.CONFLICT);
+            }
+            sleep(POLL_INTERVAL_MS);
+        }
+    }
+
+    private IdempotencyRecord complete(String key, String requestHash, String owner, ResponseEntity<?> response) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setKey(key);
+        record.setRequestHash(requestHash);
+        record.setStatus(COMPLETED);
+        record.setResponseStatus(response.getStatusCode().value());
+        record.setResponseBody(toJson(response.getBody()));
+        URI location = response.getHeaders().getLocation();
+        record.setResponseLocation(location != null ? location.toString() : null);
+        // The retention TTL starts once the response is stored
+        record.setExpiresAt(LocalDateTime.now().plusMinutes(ttlMinutes));
+
+        int updated = idempotencyRecordRepository.complete(key, owner, record.getResponseStatus(),
+                record.getResponseBody(), record.getResponseLocation(), record.getExpiresAt());
+        if (updated == 0) {
+            // Our lease ran out and another request took the key over; keep its outcome
+            logger.warn("Lost the lease on idempotency key {} before its response was stored", key);
+            return record;
+        }
+        completedCache.put(key, record);
+        return record;
+    }
+
+    private void release(String key, String owner) {
+        idempotencyRecordRepository.release(key, owner);
+    }
+
+    private LocalDateTime leaseUntil() {
+        return LocalDateTime.now().plus(leaseMs, ChronoUnit.MILLIS);
+    }
+
+    /**
+     * Extend the leases of the requests still running on this node, well before they run out
+     */
+    @Scheduled(fixedDelayString = "${loan.idempotency.lease-renew-ms:10000}")
+    public void renewLeases() {
+        if (heldLeases.isEmpty()) {
+            return;
+        }
+        List<String> owners = new ArrayList<>(heldLeases);
+        int renewed = idempotencyRecordRepository.renewLeases(owners, leaseUntil());
+        logger.debug("Renewed {} of {} idempotency key leases", renewed, owners.size());
+    }
+
+    private ResponseEntity<?> replay(IdempotencyRecord record, String requestHash) {
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new LoanApplicationException(
+                    "Idempotency-Key was already used for a different request", HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(record.getResponseStatus())
+                .header("Idempotent-Replayed", "true")
+                .contentType(MediaType.APPLICATION_JSON);
+        if (record.getResponseLocation() != null) {
+            builder.location(URI.create(record.getResponseLocation()));
+        }
+        return builder.body(record.getResponseBody());
+    }
+
+    private IdempotencyRecord await(CompletableFuture<IdempotencyRecord> running) {
+        try {
+            return running.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new LoanApplicationException(
+                    "A request with this Idempotency-Key is still being processed", HttpStatus.CONFLICT);
+        } catch (ExecutionException e) {
+            // The first request failed and released the key; the client may retry
+            throw new LoanApplicationException(
+                    "The original request with this Idempotency-Key failed, please retry", HttpStatus.CONFLICT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LoanApplicationException("Interrupted while waiting for the original request",
+                    HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    /**
+     * Remove expired keys from the cache and the database
+     */
+    @Scheduled(fixedDelayString = "${loan.idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        completedCache.values().removeIf(IdempotencyRecord::isExpired);
+        int removed = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+        if (removed > 0) {
+            logger.info("Purged {} expired idempotency keys", removed);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(toJson(request).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new LoanApplicationException("Could not serialize request for idempotency check",
+                    HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LoanApplicationException("Interrupted while waiting for the original request",
+                    HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+}
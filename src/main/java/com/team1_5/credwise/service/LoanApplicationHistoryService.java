@@ -1,20 +1,80 @@
 package com.team1_5.credwise.service;
 
-import com.team1_5.credwise.model.LoanApplication;
+import com.team1_5.credwise.dto.LoanApplicationHistoryItem;
+import com.team1_5.credwise.dto.LoanApplicationHistoryPage;
+import com.team1_5.credwise.exception.LoanApplicationException;
 import com.team1_5.credwise.repository.LoanApplicationHistoryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
 
+/**
+ * A user's loan history, a page at a time. Pages are read by keyset on (createdAt, id),
+ * so a page costs the same however far into the history it is, and the cursor is an
+ * opaque token holding the last row's createdAt and id.
+ */
 @Service
 public class LoanApplicationHistoryService {
 
     private final LoanApplicationHistoryRepository loanApplicationHistoryRepository;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
-    public LoanApplicationHistoryService(LoanApplicationHistoryRepository loanApplicationHistoryRepository) {
+    public LoanApplicationHistoryService(LoanApplicationHistoryRepository loanApplicationHistoryRepository,
+                                         @Value("${loan.history.default-page-size:20}") int defaultPageSize,
+                                         @Value("${loan.history.max-page-size:100}") int maxPageSize) {
         this.loanApplicationHistoryRepository = loanApplicationHistoryRepository;
+        this.maxPageSize = Math.max(1, maxPageSize);
+        this.defaultPageSize = Math.min(Math.max(1, defaultPageSize), this.maxPageSize);
+    }
+
+    /**
+     * @param userId Owner of the applications
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @param size Requested page size; null for the default, capped at loan.history.max-page-size
+     */
+    @Transactional(readOnly = true)
+    public LoanApplicationHistoryPage getLoanApplicationHistory(Long userId, String cursor, Integer size) {
+        int pageSize = size == null ? defaultPageSize : Math.min(Math.max(1, size), maxPageSize);
+        // One row more than the page, to tell whether another page follows
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<LoanApplicationHistoryItem> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = loanApplicationHistoryRepository.findHistoryFirstPage(userId, limit);
+        } else {
+            Cursor after = decodeCursor(cursor);
+            rows = loanApplicationHistoryRepository.findHistoryPageAfter(userId, after.createdAt(), after.id(), limit);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<LoanApplicationHistoryItem> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? encodeCursor(items.get(items.size() - 1)) : null;
+        return new LoanApplicationHistoryPage(items, nextCursor, hasMore);
+    }
+
+    private record Cursor(LocalDateTime createdAt, Long id) {}
+
+    private static String encodeCursor(LoanApplicationHistoryItem last) {
+        String value = last.createdAt() + "|" + last.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
     }
 
-    public List<LoanApplication> getLoanApplicationHistoryByUserId(Long userId) {
-        return loanApplicationHistoryRepository.findByUser_Id(userId);
+    private static Cursor decodeCursor(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf('|');
+            return new Cursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.valueOf(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new LoanApplicationException("Invalid history cursor", HttpStatus.BAD_REQUEST);
+        }
     }
 }
@@ -16,6 +16,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.List;
 import java.util.HashMap;
@@ -45,40 +47,21 @@ public class LoanApplicationResultService {
     public LoanApplicationResultResponse getLoanApplicationResult(Long applicationId) {
         logger.info("Retrieving loan application result for loan application ID: {}", applicationId);
         
-        LoanApplicationResult result = loanApplicationResultRepository.findByLoanApplicationId(applicationId)
+        LoanApplicationResult result = loanApplicationResultRepository.findViewByLoanApplicationId(applicationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Loan application result not found for loan application ID: " + applicationId));
         
-        List<DecisionFactor> decisionFactors = decisionFactorService.getDecisionFactorsByResult(result);
-        List<LoanApplicationResultResponse.DecisionFactorResponse> decisionFactorResponses = decisionFactors.stream()
-                .map(factor -> new LoanApplicationResultResponse.DecisionFactorResponse(
-                        factor.getFactor(),
-                        factor.getImpact(),
-                        factor.getDescription()))
-                .collect(Collectors.toList());
-        
-        return new LoanApplicationResultResponse(
-                result.getStatus(),
-                result.getMessage(),
-                result.getEligibilityScore(),
-                result.getMaxEligibleAmount(),
-                result.getSuggestedInterestRate(),
-                result.getSuggestedTerm(),
-                result.getEstimatedMonthlyPayment(),
-                decisionFactorResponses
-        );
+        return toResponse(result, result.getDecisionFactors());
     }
     
     /**
-     * Generate a loan application result based on credit evaluation data
+     * Generate a loan application result based on credit evaluation data. An existing
+     * result is updated in place rather than deleted and inserted again, and its
+     * decision factors are replaced with one bulk delete and a batched insert.
      */
     @Transactional
     public LoanApplicationResultResponse generateLoanApplicationResult(Long applicationId) {
         logger.info("Generating loan application result for application ID: {}", applicationId);
         
-        // Check if there's an existing result and delete it
-        loanApplicationResultRepository.findByLoanApplicationId(applicationId)
-                .ifPresent(loanApplicationResultRepository::delete);
-        
         // Find the loan application
         LoanApplication application = loanApplicationRepository.findById(applicationId)
                 .orElseThrow(() -> new ResourceNotFoundException("Loan application not found with ID: " + applicationId));
@@ -91,8 +74,93 @@ public class LoanApplicationResultService {
         
         logger.info("Credit evaluation data for application {}: {}", applicationId, creditData);
 
-        // Create a new result with calculated values
-        LoanApplicationResult result = new LoanApplicationResult();
+        LoanApplicationResult result = loanApplicationResultRepository.findByLoanApplicationId(applicationId)
+                .orElseGet(LoanApplicationResult::new);
+        populateResult(result, application, creditData);
+        
+        // Save the result
+        LoanApplicationResult savedResult = loanApplicationResultRepository.save(result);
+        logger.info("Saved loan application result with ID: {}", savedResult.getId());
+        
+        // Create decision factors based on credit data
+        List<DecisionFactor> decisionFactors = List.of();
+        try {
+            decisionFactors = decisionFactorService.createDecisionFactors(savedResult, creditData);
+            logger.info("Created decision factors for result ID: {}", savedResult.getId());
+        } catch (Exception e) {
+            logger.error("Error creating decision factors: {}", e.getMessage());
+        }
+        
+        return toResponse(savedResult, decisionFactors);
+    }
+
+    /**
+     * Generate results for a chunk of applications together. Existing results are found
+     * with one IN-list query and updated in place, new ones are inserted, and the decision
+     * factors of the whole chunk are replaced with one bulk delete and one batched insert.
+     * Applications without credit evaluation data are skipped.
+     *
+     * @param applications Loaded applications, with their credit evaluation data set
+     * @return Number of results generated
+     */
+    @Transactional
+    public int generateLoanApplicationResults(Collection<LoanApplication> applications) {
+        Map<Long, LoanApplication> applicationsById = new LinkedHashMap<>();
+        for (LoanApplication application : applications) {
+            if (application.getCreditEvaluationData() == null) {
+                logger.warn("Credit evaluation data not found for application ID: {}, skipping its result", application.getId());
+            } else {
+                applicationsById.put(application.getId(), application);
+            }
+        }
+        if (applicationsById.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, LoanApplicationResult> existingResults = new HashMap<>();
+        for (LoanApplicationResult result : loanApplicationResultRepository.findByLoanApplicationIdIn(applicationsById.keySet())) {
+            existingResults.put(result.getLoanApplication().getId(), result);
+        }
+
+        Map<LoanApplicationResult, Map<String, Object>> creditEvaluations = new LinkedHashMap<>();
+        for (LoanApplication application : applicationsById.values()) {
+            LoanApplicationResult result = existingResults.get(application.getId());
+            if (result == null) {
+                result = new LoanApplicationResult();
+            }
+            populateResult(result, application, application.getCreditEvaluationData());
+            creditEvaluations.put(result, application.getCreditEvaluationData());
+        }
+
+        loanApplicationResultRepository.saveAll(creditEvaluations.keySet());
+        decisionFactorService.replaceDecisionFactors(creditEvaluations);
+        logger.info("Generated {} loan application results ({} updated in place)", creditEvaluations.size(), existingResults.size());
+        return creditEvaluations.size();
+    }
+
+    private LoanApplicationResultResponse toResponse(LoanApplicationResult result, List<DecisionFactor> decisionFactors) {
+        List<LoanApplicationResultResponse.DecisionFactorResponse> decisionFactorResponses = decisionFactors.stream()
+                .map(factor -> new LoanApplicationResultResponse.DecisionFactorResponse(
+                        factor.getFactor(),
+                        factor.getImpact(),
+                        factor.getDescription()))
+                .collect(Collectors.toList());
+        
+        return new LoanApplicationResultResponse(
+                result.getStatus(),
+                result.getMessage(),
+                result.getEligibilityScore(),
+                result.getMaxEligibleAmount(),
+                result.getSuggestedInterestRate(),
+                result.getSuggestedTerm(),
+                result.getEstimatedMonthlyPayment(),
+                decisionFactorResponses
+        );
+    }
+
+    // Fill in a new or existing result from the application's status and credit evaluation data
+    private void populateResult(LoanApplicationResult result, LoanApplication application, Map<String, Object> creditData) {
+        Long applicationId = application.getId();
         result.setLoanApplication(application);
         
         // Set status and message based on the application status
@@ -224,21 +292,6 @@ public class LoanApplicationResultService {
         } else {
             result.setEstimatedMonthlyPayment(BigDecimal.ZERO);
         }
-        
-        // Save the result
-        LoanApplicationResult savedResult = loanApplicationResultRepository.save(result);
-        logger.info("Saved loan application result with ID: {}", savedResult.getId());
-        
-        // Create decision factors based on credit data
-        try {
-            decisionFactorService.createDecisionFactors(savedResult, creditData);
-            logger.info("Created decision factors for result ID: {}", savedResult.getId());
-        } catch (Exception e) {
-            logger.error("Error creating decision factors: {}", e.getMessage());
-        }
-        
-        // Return the DTO version
-        return getLoanApplicationResult(applicationId);
     }
 
     private BigDecimal calculateMaxEligibleAmount(Integer creditScore, BigDecimal requestedAmount) {
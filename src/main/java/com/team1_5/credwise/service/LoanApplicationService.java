@@ -6,260 +6,335 @@ import com.team1_5.credwise.exception.LoanApplicationException;
 import com.team1_5.credwise.exception.ResourceNotFoundException;
 import com.team1_5.credwise.model.*;
 import com.team1_5.credwise.repository.*;
+import com.team1_5.credwise.config.NodeIdentity;
+import com.team1_5.credwise.config.ReadYourWritesTracker;
+import com.team1_5.credwise.config.SqlStatementCounter;
+import com.team1_5.credwise.util.BatchPartitioner;
 import com.team1_5.credwise.util.CreditScoreService;
+import com.team1_5.credwise.util.LoanTrace;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.http.ResponseEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.HashMap;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 @Service
-@Transactional
 public class LoanApplicationService {
 
     private final LoanApplicationRepository loanAppRepo;
     private final PersonalInfoRepository personalInfoRepo;
-    private final AddressRepository addressRepo;
     private final FinancialInfoRepository financialInfoRepo;
-    private final EmploymentHistoryRepository employmentRepo;
-    private final DebtRepository debtRepo;
-    private final AssetRepository assetRepo;
-    private final DocumentRepository documentRepo;
     private final CreditScoreService creditScoreService;
     private final UserRepository userRepo;
     private final LoanMLService loanMLService;
     private final LoanApplicationResultService loanApplicationResultService;
+    private final DocumentService documentService;
+    private final ReadYourWritesTracker readYourWrites;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final int batchChunkSize;
+    private final ExecutorService batchExecutor;
+    private final int batchWorkers;
+    private final Duration leaseDuration;
+    private final Duration pipelineLeaseDuration;
+    private final boolean claimSkipLocked;
+    private final String nodeId;
     private static final Logger logger = LoggerFactory.getLogger(LoanApplicationService.class);
 
     public LoanApplicationService(LoanApplicationRepository loanAppRepo,
                                   PersonalInfoRepository personalInfoRepo,
-                                  AddressRepository addressRepo,
                                   FinancialInfoRepository financialInfoRepo,
-                                  EmploymentHistoryRepository employmentRepo,
-                                  DebtRepository debtRepo,
-                                  AssetRepository assetRepo,
-                                  DocumentRepository documentRepo,
                                   CreditScoreService creditScoreService,
                                   UserRepository userRepo,
                                   LoanMLService loanMLService,
-                                  LoanApplicationResultService loanApplicationResultService) {
+                                  LoanApplicationResultService loanApplicationResultService,
+                                  DocumentService documentService,
+                                  PlatformTransactionManager transactionManager,
+                                  EntityManager entityManager,
+                                  @Value("${loan.batch.chunk-size:50}") int batchChunkSize,
+                                  @Qualifier("loanBatchExecutor") ExecutorService batchExecutor,
+                                  @Value("${loan.batch.workers:8}") int batchWorkers,
+                                  @Value("${loan.batch.lease-seconds:300}") long leaseSeconds,
+                                  @Value("${loan.batch.claim.skip-locked:false}") boolean claimSkipLocked,
+                                  @Value("${loan.pipeline.lease-seconds:120}") long pipelineLeaseSeconds,
+                                  NodeIdentity nodeIdentity,
+                                  ReadYourWritesTracker readYourWrites) {
         this.loanAppRepo = loanAppRepo;
         this.personalInfoRepo = personalInfoRepo;
-        this.addressRepo = addressRepo;
         this.financialInfoRepo = financialInfoRepo;
-        this.employmentRepo = employmentRepo;
-        this.debtRepo = debtRepo;
-        this.assetRepo = assetRepo;
-        this.documentRepo = documentRepo;
         this.creditScoreService = creditScoreService;
         this.userRepo = userRepo;
         this.loanMLService = loanMLService;
         this.loanApplicationResultService = loanApplicationResultService;
+        this.documentService = documentService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.batchChunkSize = batchChunkSize;
+        this.batchExecutor = batchExecutor;
+        this.batchWorkers = batchWorkers;
+        this.leaseDuration = Duration.ofSeconds(leaseSeconds);
+        this.pipelineLeaseDuration = Duration.ofSeconds(pipelineLeaseSeconds);
+        this.claimSkipLocked = claimSkipLocked;
+        this.nodeId = nodeIdentity.getId();
+        this.readYourWrites = readYourWrites;
     }
 
-    public LoanApplicationResponse processLoanApplication(Long userId, LoanApplicationRequest request) {
+    /**
+     * Persist stage of the loan pipeline: build the application graph, score it in
+     * memory and write the whole graph in a single cascaded flush. The application
+     * is saved with PROCESSING status so batch processing leaves it alone while it
+     * moves through the remaining stages, under a pipeline lease held by this node.
+     * The pipeline renews the lease; if it runs out the application goes back to the
+     * SUBMITTED backlog (see {@link #releaseStaleProcessing()}).
+     *
+     * @return The persisted, scored application; its graph is fully initialized and
+     *         can be used after the transaction ends
+     */
+    @Transactional
+    public LoanApplication persistApplication(Long userId, LoanApplicationRequest request) {
         validateRequest(request);
+        SqlStatementCounter.reset();
 
+        LoanTrace.Scope trace = LoanTrace.begin(null);
         try {
-            // Log the full request JSON for debugging data flow
-            System.out.println("\n======== ORIGINAL API REQUEST ========");
-            System.out.println("User ID: " + userId);
-            System.out.println("Loan Type: " + request.getLoanDetails().getProductType());
-            System.out.println("Requested Amount: " + request.getLoanDetails().getRequestedAmount());
-            System.out.println("Term Months: " + request.getLoanDetails().getRequestedTermMonths());
-            
-            // Log detailed financial information
-            System.out.println("\nFINANCIAL INFORMATION:");
-            System.out.println("Monthly Income: " + request.getFinancialInformation().getMonthlyIncome());
-            System.out.println("Monthly Expenses: " + request.getFinancialInformation().getMonthlyExpenses());
-            System.out.println("Estimated Debts: " + request.getFinancialInformation().getEstimatedDebts());
-            System.out.println("Credit Score: " + request.getFinancialInformation().getCreditScore());
-            System.out.println("Credit Limit: " + request.getFinancialInformation().getCurrentCreditLimit());
-            System.out.println("Credit Usage: " + request.getFinancialInformation().getCreditTotalUsage());
-            
-            // Calculate and log the credit utilization
-            if (request.getFinancialInformation().getCurrentCreditLimit().compareTo(BigDecimal.ZERO) > 0) {
-                BigDecimal utilization = request.getFinancialInformation().getCreditTotalUsage()
-                    .divide(request.getFinancialInformation().getCurrentCreditLimit(), 4, RoundingMode.HALF_UP)
-                    .multiply(BigDecimal.valueOf(100));
-                System.out.println("🔴 Calculated Credit Utilization: " + utilization + "%");
-                
-                // Alert if over 100%
-                if (utilization.compareTo(BigDecimal.valueOf(100)) > 0) {
-                    System.out.println("⚠️ WARNING: Credit utilization is over 100%!");
-                }
-            } else {
-                System.out.println("Credit Limit is zero, cannot calculate utilization");
-            }
-            
-            System.out.println("Employment Duration: " + 
-                (request.getFinancialInformation().getEmploymentDetails() != null && 
-                 !request.getFinancialInformation().getEmploymentDetails().isEmpty() ? 
-                 request.getFinancialInformation().getEmploymentDetails().get(0).getEmploymentDurationMonths() : "N/A"));
-            
-            // Continue with normal processing
+            // Record the request for debugging data flow; amounts and other financial inputs stay out of the trace
+            LoanTrace.event("persist", "Request from user {}: loan type {}, term {} months",
+                    userId, request.getLoanDetails().getProductType(), request.getLoanDetails().getRequestedTermMonths());
+
             User user = userRepo.findById(userId)
                     .orElseThrow(() -> new LoanApplicationException("User not found: " + userId, HttpStatus.NOT_FOUND));
 
-            // 1. Save base application with SUBMITTED status
-            LoanApplication application = saveLoanApplication(user, request);
-            System.out.println("Saved base loan application with ID: " + application.getId());
+            // 1. Build the whole application graph in memory - nothing is written yet
+            LoanApplication application = buildApplicationGraph(user, request);
+            application.setStatus("PROCESSING");
+            application.lease(nodeId, LocalDateTime.now().plus(pipelineLeaseDuration));
 
-            // 2. Save personal information
-            savePersonalInformation(application, request.getPersonalInformation());
-            System.out.println("Saved personal information for application ID: " + application.getId());
+            // 2. Score the in-memory graph so the computed scores go out with the first insert
+            Map<String, Object> creditEvaluation = scoreApplication(application);
+            LoanTrace.data("scoring", "Credit score calculation result", creditEvaluation);
 
-            // 3. Save financial information
-            FinancialInfo financialInfo = saveFinancialInformation(application, request.getFinancialInformation());
-            System.out.println("Saved financial information with ID: " + financialInfo.getId());
+            // 3. Persist application, address, personal info, financial info, employment,
+            //    debts, assets and documents in a single cascaded flush
+            application = loanAppRepo.saveAndFlush(application);
+            // Uploaded documents are the ones not linked yet; they can only be claimed now
+            // that the application has an id
+            documentService.attachUploadedDocuments(application.getDocuments().stream()
+                    .filter(document -> document.getLoanApplication() == null)
+                    .collect(Collectors.toList()), application);
+            readYourWrites.recordWrite(userId);
+            LoanTrace.bind(application.getId());
+            LoanTrace.event("persist", "Saved loan application graph with ID: {}", application.getId());
 
-            // 4. Prepare and calculate credit score
-            Map<String, Object> creditData = prepareCreditData(application);
-            System.out.println("\n======== DATA SENT TO CREDIT SCORE CALCULATION ========");
-            System.out.println(mapToDebugString(creditData));
-            
-            // 5. Calculate credit score and get decision factors
-            Map<String, Object> creditEvaluation = creditScoreService.calculateCreditScore(creditData, financialInfo);
-            System.out.println("\n======== CREDIT SCORE CALCULATION RESULT ========");
-            System.out.println(mapToDebugString(creditEvaluation));
-            
-            // 6. Store the credit evaluation data for later use
+            logger.debug("Persisting loan application {} used {} SQL statements", application.getId(), SqlStatementCounter.get());
+            return application;
+        } finally {
+            trace.close();
+        }
+    }
+
+    /**
+     * Decision stage of the loan pipeline: apply the ML decision to a PROCESSING
+     * application and generate its result. A null decision means the ML call could
+     * not be made, in which case the application falls back to REVIEW_NEEDED.
+     *
+     * @param applicationId The ID of the application
+     * @param creditEvaluation The credit evaluation computed by the persist stage
+     * @param mlDecision The ML service response, or null if the call failed
+     * @return The application with its final status
+     */
+    @Transactional
+    public LoanApplication recordDecision(Long applicationId, Map<String, Object> creditEvaluation,
+                                          Map<String, Object> mlDecision) {
+        SqlStatementCounter.reset();
+        LoanApplication application = loanAppRepo.findById(applicationId)
+                .orElseThrow(() -> new LoanApplicationException("Loan application not found: " + applicationId, HttpStatus.NOT_FOUND));
+
+        if (!"PROCESSING".equals(application.getStatus())) {
+            throw new LoanApplicationException("Application must be in PROCESSING status to record a decision", HttpStatus.BAD_REQUEST);
+        }
+
+        LoanTrace.Scope trace = LoanTrace.begin(applicationId);
+        try {
+            // The persist stage's evaluation, plus any ML error recorded since
             application.setCreditEvaluationData(creditEvaluation);
-            application = loanAppRepo.save(application);
-            System.out.println("Updated application with credit evaluation data");
-            
-            // 7. Update financial info with system-generated credit score and save again
-            if (creditEvaluation.containsKey("creditScore")) {
-                int systemCreditScore = ((Number) creditEvaluation.get("creditScore")).intValue();
-                financialInfo.setSystemCreditScore(systemCreditScore);
-                
-                if (creditEvaluation.containsKey("eligibilityScore")) {
-                    int eligibilityScore = ((Number) creditEvaluation.get("eligibilityScore")).intValue();
-                    financialInfo.setEligibilityScore(eligibilityScore);
-                }
-                
-                // Also set the application credit score for consistency
-                application.setCreditScore((double) systemCreditScore);
-                loanAppRepo.save(application);
-                
-                // Update additional financial metrics
-                if (creditEvaluation.containsKey("dti")) {
-                    double dti = ((Number) creditEvaluation.get("dti")).doubleValue();
-                    financialInfo.setDebtToIncomeRatio(BigDecimal.valueOf(dti));
-                }
-                
-                if (creditEvaluation.containsKey("creditUtilization")) {
-                    double utilization = ((Number) creditEvaluation.get("creditUtilization")).doubleValue();
-                    financialInfo.setCreditUtilization(BigDecimal.valueOf(utilization));
-                }
-                
-                financialInfoRepo.save(financialInfo);
-                System.out.println("Updated financial info with system credit score: " + systemCreditScore);
-            }
-            
-            // 8. Save documents
-            if (request.getDocuments() != null && !request.getDocuments().isEmpty()) {
-                saveApplicationDocuments(application, request.getDocuments());
-                System.out.println("Saved " + request.getDocuments().size() + " documents");
-            } else {
-                System.out.println("No documents to save");
-            }
+            application.releaseLease();
 
-            // 9. Process with ML service - THIS IS THE PRIMARY DECISION POINT
-            boolean mlProcessingAttempted = false;
-            boolean mlProcessingSuccessful = false;
-            
-            try {
-                System.out.println("Attempting to process application with ML service");
-                
-                // Get required objects
-                final Long appId = application.getId();
-                PersonalInfo personalInfo = personalInfoRepo.findByLoanApplicationId(appId)
-                        .orElseThrow(() -> new LoanApplicationException(
-                                "Personal info not found for application: " + appId, 
-                                HttpStatus.NOT_FOUND));
-                
-                if (loanMLService != null) {
-                    // Process with ML - this is the primary decision maker
-                    mlProcessingAttempted = true;
-                    System.out.println("Processing application through ML service");
-                    
-                    // Log what's being sent to ML service by capturing its request data preparation
-                    // This is temporary code to debug the request
-                    Map<String, Object> debugMLRequestData = loanMLService.debugPrepareMLRequestData(application, financialInfo, personalInfo);
-                    System.out.println("\n======== DATA PREPARED FOR ML MODEL API ========");
-                    System.out.println(mapToDebugString(debugMLRequestData));
-                    
-                    // Process normally
-                    application = processApplicationWithML(appId, personalInfo, financialInfo, loanMLService);
-                    
-                    // Check if ML processing was successful (decision made or review needed)
-                    mlProcessingSuccessful = application.getStatus() != null && 
-                                         !"SUBMITTED".equals(application.getStatus());
-                    
-                    System.out.println("ML processing completed with status: " + application.getStatus());
-                    
-                    // Generate result based on ML decision
-                    if ("APPROVED".equals(application.getStatus()) || "DENIED".equals(application.getStatus())) {
-                        try {
-                            loanApplicationResultService.generateLoanApplicationResult(appId);
-                            System.out.println("Generated result based on ML decision");
-                        } catch (Exception e) {
-                            System.out.println("Failed to generate result: " + e.getMessage());
-                        }
+            if (mlDecision != null) {
+                // Apply ML decision directly to the application - no overrides
+                application = loanMLService.applyMLDecision(application, mlDecision);
+                application = loanAppRepo.save(application);
+                LoanTrace.event("decision", "ML decision applied with status: {}", application.getStatus());
+
+                // Generate result based on ML decision
+                if ("APPROVED".equals(application.getStatus()) || "DENIED".equals(application.getStatus())) {
+                    try {
+                        loanApplicationResultService.generateLoanApplicationResult(applicationId);
+                        LoanTrace.event("decision", "Generated result based on ML decision");
+                    } catch (Exception e) {
+                        logger.warn("Failed to generate result: {}", e.getMessage());
                     }
-                } else {
-                    System.out.println("LoanMLService is null - cannot process with ML");
                 }
-            } catch (Exception e) {
-                System.out.println("Error during ML processing: " + e.getMessage());
-                e.printStackTrace();
-            }
-            
-            // 10. ONLY if ML processing was not attempted or failed completely, use fallback
-            // This is only for cases where ML service is unavailable
-            if (!mlProcessingAttempted || (application.getStatus() == null || "SUBMITTED".equals(application.getStatus()))) {
-                System.out.println("ML processing was not attempted or failed - using fallback process");
-                
+            } else {
+                LoanTrace.event("decision", "ML processing failed - using fallback process");
+
                 // Set to REVIEW_NEEDED to flag for manual review
                 application.setStatus("REVIEW_NEEDED");
                 application = loanAppRepo.save(application);
-                
+
                 // Try to generate a basic result
                 try {
-                    loanApplicationResultService.generateLoanApplicationResult(application.getId());
-                    System.out.println("Generated basic result with REVIEW_NEEDED status");
+                    loanApplicationResultService.generateLoanApplicationResult(applicationId);
+                    LoanTrace.event("decision", "Generated basic result with REVIEW_NEEDED status");
                 } catch (Exception e) {
-                    System.out.println("Failed to generate basic result: " + e.getMessage());
+                    logger.warn("Failed to generate basic result: {}", e.getMessage());
                 }
             }
 
-            return buildSuccessResponse(application);
+            logger.debug("Recording decision for loan application {} used {} SQL statements", applicationId, SqlStatementCounter.get());
+            return application;
+        } finally {
+            trace.close();
+        }
+    }
 
-        } catch (LoanApplicationException e) {
-            System.out.println("Loan application exception: " + e.getMessage());
-            e.printStackTrace();
-            throw e;
-        } catch (Exception e) {
-            System.out.println("Unexpected error in loan application: " + e.getMessage());
-            e.printStackTrace();
-            throw new LoanApplicationException("Processing failed: " + e.getMessage(),
-                    HttpStatus.INTERNAL_SERVER_ERROR);
+    /**
+     * Hand a PROCESSING application over to the SUBMITTED backlog, which is drained
+     * by batch processing. Used when the pipeline cannot take it any further.
+     */
+    @Transactional
+    public void releaseToBacklog(Long applicationId) {
+        releaseToBacklog(List.of(applicationId));
+    }
+
+    /**
+     * Hand PROCESSING applications over to the SUBMITTED backlog in one update
+     *
+     * @return The number of applications released
+     */
+    @Transactional
+    public int releaseToBacklog(Collection<Long> applicationIds) {
+        return applicationIds.isEmpty() ? 0 : loanAppRepo.releaseProcessing(applicationIds);
+    }
+
+    /**
+     * Extend this node's pipeline leases on the given PROCESSING applications
+     */
+    @Transactional
+    public int renewPipelineLeases(Collection<Long> applicationIds) {
+        if (applicationIds.isEmpty()) {
+            return 0;
+        }
+        return loanAppRepo.renewProcessingLeases(applicationIds, nodeId, LocalDateTime.now().plus(pipelineLeaseDuration));
+    }
+
+    /**
+     * Return PROCESSING applications that no pipeline is moving any more to the
+     * SUBMITTED backlog: those whose pipeline lease has run out, and those without a
+     * lease older than the lease duration (saved before pipeline leases existed).
+     *
+     * @return The number of applications released
+     */
+    @Transactional
+    public int releaseStaleProcessing() {
+        LocalDateTime now = LocalDateTime.now();
+        return loanAppRepo.releaseStaleProcessing(now, now.minus(pipelineLeaseDuration));
+    }
+
+    /**
+     * Return the PROCESSING applications leased by an earlier run of this node to the
+     * SUBMITTED backlog. Only takes effect when loan.node-id is set to a stable value.
+     */
+    @Transactional
+    public int releaseProcessingFromPreviousRun() {
+        return loanAppRepo.releaseProcessingLeasedBy(nodeId);
+    }
+
+    /**
+     * Record a processing failure for an application, mirroring batch processing.
+     */
+    @Transactional
+    public void markProcessingError(Long applicationId, String error) {
+        loanAppRepo.findById(applicationId).ifPresent(application -> {
+            application.setStatus("PROCESSING_ERROR");
+            application.releaseLease();
+            application.setCreditEvaluationData(withError(application.getCreditEvaluationData(), error));
+            loanAppRepo.save(application);
+        });
+    }
+
+    /**
+     * Run the credit score calculation against the application graph and copy the
+     * computed scores onto the application and its financial info.
+     * Works on both transient and managed graphs; nothing is saved here.
+     *
+     * @param application Loan application with its financial info attached
+     * @return The credit evaluation data, also stored on the application
+     */
+    public Map<String, Object> scoreApplication(LoanApplication application) {
+        FinancialInfo financialInfo = application.getFinancialInfo();
+
+        Map<String, Object> creditData = prepareCreditData(application);
+
+        // Calculate credit score and get decision factors
+        Map<String, Object> creditEvaluation = creditScoreService.calculateCreditScore(creditData, financialInfo);
+
+        // Store the credit evaluation data for later use
+        application.setCreditEvaluationData(creditEvaluation);
+
+        // Update financial info with system-generated credit score
+        if (creditEvaluation.containsKey("creditScore")) {
+            int systemCreditScore = ((Number) creditEvaluation.get("creditScore")).intValue();
+            financialInfo.setSystemCreditScore(systemCreditScore);
+
+            if (creditEvaluation.containsKey("eligibilityScore")) {
+                int eligibilityScore = ((Number) creditEvaluation.get("eligibilityScore")).intValue();
+                financialInfo.setEligibilityScore(eligibilityScore);
+            }
+
+            // Also set the application credit score for consistency
+            application.setCreditScore((double) systemCreditScore);
+
+            // Update additional financial metrics
+            if (creditEvaluation.containsKey("dti")) {
+                double dti = ((Number) creditEvaluation.get("dti")).doubleValue();
+                financialInfo.setDebtToIncomeRatio(BigDecimal.valueOf(dti));
+            }
+
+            if (creditEvaluation.containsKey("creditUtilization")) {
+                double utilization = ((Number) creditEvaluation.get("creditUtilization")).doubleValue();
+                financialInfo.setCreditUtilization(BigDecimal.valueOf(utilization));
+            }
         }
+
+        return creditEvaluation;
     }
 
-    private void validateRequest(LoanApplicationRequest request) {
+    public void validateRequest(LoanApplicationRequest request) {
         if (request.getLoanDetails() == null ||
                 request.getPersonalInformation() == null ||
                 request.getFinancialInformation() == null) {
@@ -271,7 +346,21 @@ public class LoanApplicationService {
         }
     }
 
-    private LoanApplication saveLoanApplication(User user, LoanApplicationRequest request) {
+    /**
+     * Build the complete, unsaved application graph for a request. Every child is linked
+     * in both directions so that saving the application cascades to all of them.
+     */
+    public LoanApplication buildApplicationGraph(User user, LoanApplicationRequest request) {
+        LoanApplication application = buildLoanApplication(user, request);
+        application.setPersonalInfo(buildPersonalInformation(application, request.getPersonalInformation()));
+        application.setFinancialInfo(buildFinancialInformation(application, request.getFinancialInformation()));
+        if (request.getDocuments() != null && !request.getDocuments().isEmpty()) {
+            application.setDocuments(buildApplicationDocuments(application, request.getDocuments()));
+        }
+        return application;
+    }
+
+    private LoanApplication buildLoanApplication(User user, LoanApplicationRequest request) {
         LoanApplication application = new LoanApplication();
         application.setUser(user);
         application.setProductType(request.getLoanDetails().getProductType());
@@ -279,12 +368,11 @@ public class LoanApplicationService {
         application.setPurposeDescription(request.getLoanDetails().getPurposeDescription());
         application.setRequestedTermMonths(request.getLoanDetails().getRequestedTermMonths());
         application.setStatus("SUBMITTED");
-        return loanAppRepo.save(application);
+        return application;
     }
 
-    private void savePersonalInformation(LoanApplication application,
-                                         LoanApplicationRequest.PersonalInformation personalInfoDto) {
-        // Save address first
+    private PersonalInfo buildPersonalInformation(LoanApplication application,
+                                                  LoanApplicationRequest.PersonalInformation personalInfoDto) {
         Address address = new Address();
         address.setStreetAddress(personalInfoDto.getCurrentAddress().getStreetAddress());
         address.setCity(personalInfoDto.getCurrentAddress().getCity());
@@ -292,9 +380,7 @@ public class LoanApplicationService {
         address.setPostalCode(personalInfoDto.getCurrentAddress().getPostalCode());
         address.setCountry(personalInfoDto.getCurrentAddress().getCountry());
         address.setDurationMonths(personalInfoDto.getCurrentAddress().getDurationAtAddressMonths());
-        Address savedAddress = addressRepo.save(address);
 
-        // Save personal info
         PersonalInfo personalInfo = new PersonalInfo();
         personalInfo.setLoanApplication(application);
         personalInfo.setFirstName(personalInfoDto.getFirstName());
@@ -302,13 +388,12 @@ public class LoanApplicationService {
         personalInfo.setEmail(personalInfoDto.getEmailAddress());
         personalInfo.setPhoneNumber(personalInfoDto.getPhoneNumber());
         personalInfo.setDateOfBirth(personalInfoDto.getDateOfBirth());
-        personalInfo.setAddress(savedAddress);
-        personalInfoRepo.save(personalInfo);
+        personalInfo.setAddress(address);
+        return personalInfo;
     }
 
-    private FinancialInfo saveFinancialInformation(LoanApplication application,
-                                                   LoanApplicationRequest.FinancialInformation financialInfoDto) {
-        // Save main financial info
+    private FinancialInfo buildFinancialInformation(LoanApplication application,
+                                                    LoanApplicationRequest.FinancialInformation financialInfoDto) {
         FinancialInfo financialInfo = new FinancialInfo();
         financialInfo.setLoanApplication(application); // Set the loan application
         financialInfo.setUser(application.getUser()); // Set user from the application
@@ -319,151 +404,75 @@ public class LoanApplicationService {
         financialInfo.setCurrentCreditLimit(financialInfoDto.getCurrentCreditLimit());
         financialInfo.setCreditTotalUsage(financialInfoDto.getCreditTotalUsage());
 
-        // Calculate credit utilization
-        if (financialInfoDto.getCurrentCreditLimit().compareTo(BigDecimal.ZERO) > 0) {
-            BigDecimal utilization = financialInfoDto.getCreditTotalUsage()
-                    .divide(financialInfoDto.getCurrentCreditLimit(), 4, RoundingMode.HALF_UP)
-                    .multiply(BigDecimal.valueOf(100));
-            
+        financialInfo.setEmploymentDetails(buildEmploymentHistory(financialInfo, financialInfoDto.getEmploymentDetails()));
+        financialInfo.setExistingDebts(buildDebts(financialInfo, financialInfoDto.getExistingDebts()));
+        financialInfo.setAssets(buildAssets(financialInfo, financialInfoDto.getAssets()));
+
+        // Derived metrics are computed once here and persisted with the financial info;
+        // scoring and the ML request read the same snapshot
+        FinancialMetricsSnapshot metrics = financialInfo.getMetricsSnapshot();
+
+        BigDecimal utilization = metrics.getCreditUtilization();
+        if (utilization != null) {
             financialInfo.setCreditUtilization(utilization);
-            
-            // Log warning for high utilization
             if (utilization.compareTo(BigDecimal.valueOf(100)) > 0) {
-                System.out.println("⚠️ WARNING: Credit utilization is over 100%: " + utilization + "% - this may negatively impact credit score");
-                logger.warn("Credit utilization is over 100%: {}% for application ID: {}", 
-                         utilization, application.getId());
+                logger.warn("Credit utilization is over 100%: {}% for user ID: {}",
+                         utilization, application.getUser().getId());
             }
         } else {
             // If credit limit is zero, set a default high utilization value
-            System.out.println("⚠️ WARNING: Credit limit is zero, setting default utilization value");
-            logger.warn("Credit limit is zero for application ID: {}, using default utilization", application.getId());
+            logger.warn("Credit limit is zero for user ID: {}, using default utilization", application.getUser().getId());
             financialInfo.setCreditUtilization(BigDecimal.valueOf(100)); // Use 100% as default when limit is invalid
         }
 
-        // Save temporarily to get an ID for relationships
-        FinancialInfo savedFinancialInfo = financialInfoRepo.save(financialInfo);
+        financialInfo.setTotalDebts(metrics.getTotalDebts());
+        financialInfo.setTotalAssets(metrics.getTotalAssets());
+        financialInfo.setDebtToIncomeRatio(BigDecimal.valueOf(metrics.getDebtToIncomeRatio()));
 
-        // Set the bidirectional relationship
-        application.setFinancialInfo(savedFinancialInfo);
-        application = loanAppRepo.save(application);
-
-        // DEBUG: Print employment details from the DTO before saving
-        List<LoanApplicationRequest.FinancialInformation.EmploymentDetail> employmentDetails = 
-            financialInfoDto.getEmploymentDetails();
-            
-        System.out.println("FINANCIAL DEBUG: Processing employments before saving. Count: " + 
-            (employmentDetails != null ? employmentDetails.size() : "null"));
-        
-        if (employmentDetails != null && !employmentDetails.isEmpty()) {
-            System.out.println("FINANCIAL DEBUG: First employment duration: " + 
-                employmentDetails.get(0).getEmploymentDurationMonths());
-        }
+        return financialInfo;
+    }
 
-        // Save employment history - inline instead of helper method
-        if (employmentDetails != null && !employmentDetails.isEmpty()) {
-            System.out.println("FINANCIAL DEBUG: Creating and saving employment history records...");
-            
-            List<EmploymentHistory> histories = new java.util.ArrayList<>();
-            
-            for (LoanApplicationRequest.FinancialInformation.EmploymentDetail dto : employmentDetails) {
-                EmploymentHistory history = new EmploymentHistory();
-                history.setFinancialInfo(savedFinancialInfo);
-                history.setEmployerName(dto.getEmployerName());
-                history.setPosition(dto.getPosition());
-                history.setStartDate(dto.getStartDate());
-                history.setEndDate(dto.getEndDate());
-                history.setEmploymentType(dto.getEmploymentType());
-                
-                // Make sure we correctly set the duration months and handle potential null values
-                Integer durationMonths = dto.getEmploymentDurationMonths();
-                if (durationMonths == null && dto.getStartDate() != null) {
-                    // Calculate duration from dates if available
-                    LocalDate endDate = dto.getEndDate() != null ? dto.getEndDate() : LocalDate.now();
-                    durationMonths = calculateMonthsBetween(dto.getStartDate(), endDate);
-                    System.out.println("FINANCIAL DEBUG: Calculated duration from dates: " + durationMonths + " months");
-                }
-                
-                // Ensure we always have a non-null value for duration months
-                if (durationMonths == null) {
-                    durationMonths = 0;
-                }
-                
-                history.setDurationMonths(durationMonths);
-                
-                System.out.println("FINANCIAL DEBUG: Adding employment record with duration: " + 
-                    durationMonths + " months, employer: " + dto.getEmployerName() + 
-                    ", type: " + dto.getEmploymentType());
-                
-                histories.add(history);
-            }
-            
-            // Save all employment histories
-            List<EmploymentHistory> savedHistories = employmentRepo.saveAll(histories);
-            System.out.println("FINANCIAL DEBUG: Saved " + savedHistories.size() + " employment records");
-            
-            // Verify they were saved correctly
-            List<EmploymentHistory> verifyEmps = employmentRepo.findByFinancialInfoId(savedFinancialInfo.getId());
-            System.out.println("FINANCIAL DEBUG: Verification - Found " + 
-                (verifyEmps != null ? verifyEmps.size() : "null") + " employment records for financial info ID " + 
-                savedFinancialInfo.getId());
-        } else {
-            System.out.println("FINANCIAL DEBUG: No employment data to save");
+    private List<EmploymentHistory> buildEmploymentHistory(FinancialInfo financialInfo,
+                                                           List<LoanApplicationRequest.FinancialInformation.EmploymentDetail> employmentDetails) {
+        List<EmploymentHistory> histories = new ArrayList<>();
+        if (employmentDetails == null) {
+            return histories;
         }
 
-        // Save debts
-        saveDebts(savedFinancialInfo, financialInfoDto.getExistingDebts());
+        for (LoanApplicationRequest.FinancialInformation.EmploymentDetail dto : employmentDetails) {
+            EmploymentHistory history = new EmploymentHistory();
+            history.setFinancialInfo(financialInfo);
+            history.setEmployerName(dto.getEmployerName());
+            history.setPosition(dto.getPosition());
+            history.setStartDate(dto.getStartDate());
+            history.setEndDate(dto.getEndDate());
+            history.setEmploymentType(dto.getEmploymentType());
 
-        // Save assets
-        saveAssets(savedFinancialInfo, financialInfoDto.getAssets());
-
-        // Calculate totalDebts (sum of all debts in the list)
-        BigDecimal totalDebts = BigDecimal.ZERO;
-        for (LoanApplicationRequest.FinancialInformation.ExistingDebt debt : financialInfoDto.getExistingDebts()) {
-            totalDebts = totalDebts.add(debt.getOutstandingAmount());
-        }
-        savedFinancialInfo.setTotalDebts(totalDebts);
-
-        // Calculate totalAssets (sum of all assets in the list)
-        BigDecimal totalAssets = BigDecimal.ZERO;
-        for (LoanApplicationRequest.FinancialInformation.Asset asset : financialInfoDto.getAssets()) {
-            totalAssets = totalAssets.add(asset.getEstimatedValue());
-        }
-        savedFinancialInfo.setTotalAssets(totalAssets);
+            // Make sure we correctly set the duration months and handle potential null values
+            Integer durationMonths = dto.getEmploymentDurationMonths();
+            if (durationMonths == null && dto.getStartDate() != null) {
+                // Calculate duration from dates if available
+                LocalDate endDate = dto.getEndDate() != null ? dto.getEndDate() : LocalDate.now();
+                durationMonths = calculateMonthsBetween(dto.getStartDate(), endDate);
+            }
 
-        // Calculate debt-to-income ratio using the provided formula
-        // dtiScore(double income, double expenses, double debt, double loanRequest)
-        // (expenses + debt + 0.03 * loanRequest) / (income * 12)
-        // Note: debt = estimatedDebts + totalDebts
-        BigDecimal monthlyIncome = savedFinancialInfo.getMonthlyIncome();
-        BigDecimal monthlyExpenses = savedFinancialInfo.getMonthlyExpenses();
-        BigDecimal combinedDebt = savedFinancialInfo.getEstimatedDebts().add(totalDebts);
-        BigDecimal loanRequest = application.getRequestedAmount();
+            // Ensure we always have a non-null value for duration months
+            if (durationMonths == null) {
+                durationMonths = 0;
+            }
 
-        if (monthlyIncome.compareTo(BigDecimal.ZERO) > 0) {
-            BigDecimal loanImpact = loanRequest.multiply(BigDecimal.valueOf(0.03));
-            BigDecimal numerator = monthlyExpenses.add(combinedDebt).add(loanImpact);
-            BigDecimal annualIncome = monthlyIncome.multiply(BigDecimal.valueOf(12));
-            BigDecimal dti = numerator.divide(annualIncome, 4, RoundingMode.HALF_UP);
-            savedFinancialInfo.setDebtToIncomeRatio(dti);
-        } else {
-            savedFinancialInfo.setDebtToIncomeRatio(BigDecimal.ONE); // Set to 1.0 if income is zero
+            history.setDurationMonths(durationMonths);
+            histories.add(history);
         }
-
-        // Save updated financial info with all calculations
-        savedFinancialInfo = financialInfoRepo.save(savedFinancialInfo);
-        
-        // Final verification
-        List<EmploymentHistory> finalEmps = employmentRepo.findByFinancialInfoId(savedFinancialInfo.getId());
-        System.out.println("FINAL EMPLOYMENT CHECK: Found " + 
-            (finalEmps != null ? finalEmps.size() : "null") + " employment records for financial info ID " + 
-            savedFinancialInfo.getId());
-            
-        return savedFinancialInfo;
+        return histories;
     }
 
-    private void saveDebts(FinancialInfo financialInfo,
-                           List<LoanApplicationRequest.FinancialInformation.ExistingDebt> debts) {
-        List<Debt> debtEntities = debts.stream()
+    private List<Debt> buildDebts(FinancialInfo financialInfo,
+                                  List<LoanApplicationRequest.FinancialInformation.ExistingDebt> debts) {
+        if (debts == null) {
+            return new ArrayList<>();
+        }
+        return debts.stream()
                 .map(dto -> {
                     Debt debt = new Debt();
                     debt.setFinancialInfo(financialInfo);
@@ -476,13 +485,15 @@ public class LoanApplicationService {
                     debt.setPaymentHistory(dto.getPaymentHistory());
                     return debt;
                 })
-                .toList();
-        debtRepo.saveAll(debtEntities);
+                .collect(Collectors.toCollection(ArrayList::new));
     }
 
-    private void saveAssets(FinancialInfo financialInfo,
-                            List<LoanApplicationRequest.FinancialInformation.Asset> assets) {
-        List<Asset> assetEntities = assets.stream()
+    private List<Asset> buildAssets(FinancialInfo financialInfo,
+                                    List<LoanApplicationRequest.FinancialInformation.Asset> assets) {
+        if (assets == null) {
+            return new ArrayList<>();
+        }
+        return assets.stream()
                 .map(dto -> {
                     Asset asset = new Asset();
                     asset.setFinancialInfo(financialInfo);
@@ -491,25 +502,42 @@ public class LoanApplicationService {
                     asset.setEstimatedValue(dto.getEstimatedValue());
                     return asset;
                 })
-                .toList();
-        assetRepo.saveAll(assetEntities);
+                .collect(Collectors.toCollection(ArrayList::new));
     }
 
-    private void saveApplicationDocuments(LoanApplication application,
-                                          List<LoanApplicationRequest.DocumentRequest> documents) {
-        List<Document> documentEntities = documents.stream()
+    // Uploaded documents are looked up by id and attached once the application is saved;
+    // inline base64 ones are stored as they are built
+    private List<Document> buildApplicationDocuments(LoanApplication application,
+                                                     List<LoanApplicationRequest.DocumentRequest> documents) {
+        documents.forEach(this::validateDocument);
+        List<Long> uploadedIds = documents.stream()
+                .map(LoanApplicationRequest.DocumentRequest::getDocumentId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        Map<Long, Document> uploaded = new HashMap<>();
+        if (!uploadedIds.isEmpty()) {
+            documentService.findUploadedDocuments(uploadedIds, application.getUser())
+                    .forEach(doc -> uploaded.put(doc.getId(), doc));
+        }
+
+        return documents.stream()
                 .map(dto -> {
-                    validateDocument(dto);
-                    Document doc = new Document();
+                    if (dto.getDocumentId() != null) {
+                        Document doc = uploaded.get(dto.getDocumentId());
+                        if (dto.getDocumentType() != null && !dto.getDocumentType().isEmpty()) {
+                            doc.setDocumentType(dto.getDocumentType());
+                        }
+                        return doc;
+                    }
+                    Document doc = documentService.createInlineDocument(
+                            application.getUser(), dto.getDocumentType(), dto.getFile());
                     doc.setLoanApplication(application);
-                    doc.setDocumentType(dto.getDocumentType());
-                    doc.setFileData(dto.getFile());
                     return doc;
                 })
-                .toList();
-        documentRepo.saveAll(documentEntities);
+                .collect(Collectors.toCollection(ArrayList::new));
     }
 
+
     private LocalDate parseDate(String dateString) {
         try {
             return LocalDate.parse(dateString);
@@ -519,7 +547,14 @@ public class LoanApplicationService {
     }
 
     private void validateDocument(LoanApplicationRequest.DocumentRequest doc) {
-        if (doc.getFile() == null || doc.getFile().isEmpty()) {
+        boolean hasFile = doc.getFile() != null && !doc.getFile().isEmpty();
+        if (doc.getDocumentId() != null) {
+            if (hasFile) {
+                throw new LoanApplicationException("Document must have either a documentId or a file, not both", HttpStatus.BAD_REQUEST);
+            }
+            return;
+        }
+        if (!hasFile) {
             throw new LoanApplicationException("Document file cannot be empty", HttpStatus.BAD_REQUEST);
         }
         if (doc.getDocumentType() == null || doc.getDocumentType().isEmpty()) {
@@ -535,21 +570,8 @@ public class LoanApplicationService {
             throw new ResourceNotFoundException("Financial information not found for application: " + application.getId());
         }
         
-        // First, ensure we have the latest financial info with all related entities
-        financialInfo = financialInfoRepo.findById(financialInfo.getId()).orElse(financialInfo);
-        
-        // Check employment details are loaded - debug output
-        List<EmploymentHistory> fetchedEmployments = employmentRepo.findByFinancialInfoId(financialInfo.getId());
-        System.out.println("EMPLOYMENT DEBUG: Found " + (fetchedEmployments != null ? fetchedEmployments.size() : 0) + 
-                          " employment records for financial info ID: " + financialInfo.getId());
-        
-        // If employment details aren't loaded in the financialInfo, load them manually
-        if (financialInfo.getEmploymentDetails() == null || financialInfo.getEmploymentDetails().isEmpty()) {
-            if (fetchedEmployments != null && !fetchedEmployments.isEmpty()) {
-                System.out.println("EMPLOYMENT DEBUG: Manually setting employment details");
-                financialInfo.setEmploymentDetails(fetchedEmployments);
-            }
-        }
+        // The graph is either freshly built in memory or a managed entity whose
+        // collections load lazily, so no extra lookups are needed here
         
         // Add loan details
         creditData.put("loanType", application.getProductType());
@@ -576,71 +598,34 @@ public class LoanApplicationService {
         }
         
         // Add employment data from current employment
-        List<EmploymentHistory> employmentDetails = financialInfo.getEmploymentDetails();
-        if (employmentDetails != null && !employmentDetails.isEmpty()) {
-            // Debug output for all employment records
-            System.out.println("EMPLOYMENT DEBUG: Processing " + employmentDetails.size() + " employment records");
-            employmentDetails.forEach(e -> {
-                System.out.println("  - Employer: " + e.getEmployerName() + 
-                                 ", Type: " + e.getEmploymentType() + 
-                                 ", Duration: " + e.getDurationMonths() + " months" +
-                                 ", Start: " + e.getStartDate() + 
-                                 ", End: " + e.getEndDate());
-            });
-            
-            // Get current employment (one with no end date) or most recent
-            EmploymentHistory currentEmployment = employmentDetails.stream()
-                .filter(e -> e.getEndDate() == null)
-                .findFirst()
-                .orElse(employmentDetails.get(0));
-            
-            // Map employment status correctly - ensure it's one of the valid values expected by scoring system
-            String employmentType = currentEmployment.getEmploymentType();
-            if (employmentType != null && !employmentType.isEmpty()) {
-                // Map to standard employment status values
-                if (employmentType.equalsIgnoreCase("Full-time") || 
-                    employmentType.equalsIgnoreCase("Part-time") ||
-                    employmentType.equalsIgnoreCase("Self-employed")) {
-                    creditData.put("employmentStatus", employmentType);
-                } else if (employmentType.equalsIgnoreCase("Contract") ||
-                           employmentType.equalsIgnoreCase("Temporary")) {
-                    creditData.put("employmentStatus", "Part-time"); // Map contract to part-time for scoring
-                } else {
-                    creditData.put("employmentStatus", "Unemployed"); // Default for unknown types
-                }
-            } else {
-                creditData.put("employmentStatus", "Unemployed");
-            }
-            
-            // Get months employed
-            Integer durationMonths = currentEmployment.getDurationMonths();
-            if (durationMonths != null && durationMonths > 0) {
-                creditData.put("monthsEmployed", durationMonths);
-                System.out.println("Using employment duration: " + durationMonths + " months");
+        FinancialMetricsSnapshot metrics = financialInfo.getMetricsSnapshot();
+        if (LoanTrace.isActive() && financialInfo.getEmploymentDetails() != null) {
+            LoanTrace.event("scoring", "Processing {} employment records", financialInfo.getEmploymentDetails().size());
+            financialInfo.getEmploymentDetails().forEach(e -> LoanTrace.event("scoring",
+                    "- Employer: {}, Type: {}, Duration: {} months, Start: {}, End: {}",
+                    e.getEmployerName(), e.getEmploymentType(), e.getDurationMonths(), e.getStartDate(), e.getEndDate()));
+        }
+
+        // Map employment status correctly - ensure it's one of the valid values expected by scoring system
+        String employmentType = metrics.getEmploymentType();
+        if (employmentType != null && !employmentType.isEmpty()) {
+            // Map to standard employment status values
+            if (employmentType.equalsIgnoreCase("Full-time") ||
+                employmentType.equalsIgnoreCase("Part-time") ||
+                employmentType.equalsIgnoreCase("Self-employed")) {
+                creditData.put("employmentStatus", employmentType);
+            } else if (employmentType.equalsIgnoreCase("Contract") ||
+                       employmentType.equalsIgnoreCase("Temporary")) {
+                creditData.put("employmentStatus", "Part-time"); // Map contract to part-time for scoring
             } else {
-                // Calculate from dates if duration is not directly available
-                if (currentEmployment.getStartDate() != null) {
-                    LocalDate endDate = currentEmployment.getEndDate() != null ? 
-                                        currentEmployment.getEndDate() : LocalDate.now();
-                    int calculatedMonths = calculateMonthsBetween(currentEmployment.getStartDate(), endDate);
-                    creditData.put("monthsEmployed", calculatedMonths);
-                    System.out.println("Calculated employment duration from dates: " + calculatedMonths + " months");
-                } else {
-                    creditData.put("monthsEmployed", 0);
-                    System.out.println("No employment duration or dates available, using 0 months");
-                }
+                creditData.put("employmentStatus", "Unemployed"); // Default for unknown types
             }
         } else {
             creditData.put("employmentStatus", "Unemployed");
-            creditData.put("monthsEmployed", 0);
-            System.out.println("No employment details found, using defaults: Unemployed, 0 months");
-        }
-        
-        // Log the prepared credit data for verification
-        System.out.println("\nPREPARED CREDIT DATA FOR SCORE CALCULATION:");
-        for (Map.Entry<String, Object> entry : creditData.entrySet()) {
-            System.out.println(entry.getKey() + ": " + entry.getValue());
         }
+        creditData.put("monthsEmployed", metrics.getMonthsEmployed());
+        LoanTrace.event("scoring", "Using employment type: {}, duration: {} months", employmentType, metrics.getMonthsEmployed());
+        LoanTrace.event("scoring", "Prepared credit data fields: {}", creditData.keySet());
         
         return creditData;
     }
@@ -659,7 +644,7 @@ public class LoanApplicationService {
      */
     private String analyzePaymentHistory(List<Debt> debts) {
         if (debts == null || debts.isEmpty()) {
-            System.out.println("No debts found, using default payment history: 'On Time'");
+            LoanTrace.event("scoring", "No debts found, using default payment history: 'On Time'");
             return "On Time"; // Default if no debt history - use space instead of hyphen
         }
         
@@ -667,12 +652,12 @@ public class LoanApplicationService {
         String worstStatus = "On Time"; // Use "On Time" with space as default
         
         // Debug - Print all debt payment histories
-        System.out.println("📊 ANALYZING PAYMENT HISTORY FOR " + debts.size() + " DEBTS:");
+        LoanTrace.event("scoring", "ANALYZING PAYMENT HISTORY FOR {} DEBTS:", debts.size());
         
         // First pass - quickly check if any payment contains "Late" to prioritize it
         for (Debt debt : debts) {
             String status = debt.getPaymentHistory();
-            System.out.println("  - Debt type: " + debt.getDebtType() + ", Payment history: " + status);
+            LoanTrace.event("scoring", "- Debt type: {}, Payment history: {}", debt.getDebtType(), status);
             
             if (status == null) {
                 continue;
@@ -680,13 +665,13 @@ public class LoanApplicationService {
             
             // Immediately prioritize any status containing "Late"
             if (status.contains("Late") || status.contains("late")) {
-                System.out.println("⚠️ FOUND LATE PAYMENT: " + status);
+                LoanTrace.event("scoring", "FOUND LATE PAYMENT: {}", status);
                 
                 // Most severe late payment categorization - return immediately
                 if (status.contains("> 60") || status.contains("60+")) {
-                    System.out.println("🔴 SEVERE LATE PAYMENT: Immediately returning '" + status + "'");
+                    LoanTrace.event("scoring", "SEVERE LATE PAYMENT: Immediately returning '{}'", status);
                     // Critical log for tracking late payment propagation
-                    System.out.println("🔴 CRITICAL ALERT: LATE PAYMENT FOUND - returning '" + status + "' for credit data");
+                    LoanTrace.event("scoring", "CRITICAL ALERT: LATE PAYMENT FOUND - returning '{}' for credit data", status);
                     return status; // Immediately return the worst status
                 }
             }
@@ -706,27 +691,27 @@ public class LoanApplicationService {
                                          status.equals("On time");
             
             if (isExplicitlyOnTime) {
-                System.out.println("✅ CONFIRMED ON-TIME PAYMENT: " + status);
+                LoanTrace.event("scoring", "CONFIRMED ON-TIME PAYMENT: {}", status);
                 // We found an on-time payment, but keep checking for worse status
                 continue;
             }
             
             // ANY other status that contains "Late" is considered a late payment
             if (status.contains("Late") || status.contains("late")) {
-                System.out.println("⚠️ EVALUATING LATE PAYMENT SEVERITY: " + status);
+                LoanTrace.event("scoring", "EVALUATING LATE PAYMENT SEVERITY: {}", status);
                 
                 // Categorize by severity
                 if ((status.contains("30-60") || status.contains("30 to 60")) && 
                     !worstStatus.contains("60")) {
-                    System.out.println("🟠 MEDIUM LATE PAYMENT: Updating worst status to '" + status + "'");
+                    LoanTrace.event("scoring", "MEDIUM LATE PAYMENT: Updating worst status to '{}'", status);
                     worstStatus = status;
                 } else if ((status.contains("< 30") || status.contains("less than 30")) && 
                           !worstStatus.contains("60") && !worstStatus.contains("30-60")) {
-                    System.out.println("🟡 MINOR LATE PAYMENT: Updating worst status to '" + status + "'");
+                    LoanTrace.event("scoring", "MINOR LATE PAYMENT: Updating worst status to '{}'", status);
                     worstStatus = status;
                 } else if (!worstStatus.contains("Late") && !worstStatus.contains("late")) {
                     // Any other form of "Late" - catch-all
-                    System.out.println("⚠️ GENERIC LATE PAYMENT: Updating worst status to '" + status + "'");
+                    LoanTrace.event("scoring", "GENERIC LATE PAYMENT: Updating worst status to '{}'", status);
                     worstStatus = status;
                 }
             }
@@ -734,14 +719,14 @@ public class LoanApplicationService {
         
         // If we found any late payment status, log it prominently
         if (worstStatus.contains("Late") || worstStatus.contains("late")) {
-            System.out.println("🔴 CRITICAL ALERT: LATE PAYMENT DETECTED - returning '" + worstStatus + "' for credit data");
+            LoanTrace.event("scoring", "CRITICAL ALERT: LATE PAYMENT DETECTED - returning '{}' for credit data", worstStatus);
         }
         
-        System.out.println("📊 PAYMENT HISTORY ANALYSIS RESULT: " + worstStatus);
+        LoanTrace.event("scoring", "PAYMENT HISTORY ANALYSIS RESULT: {}", worstStatus);
         return worstStatus;
     }
 
-    private LoanApplicationResponse buildSuccessResponse(LoanApplication application) {
+    public LoanApplicationResponse buildSuccessResponse(LoanApplication application) {
         LoanApplicationResponse response = new LoanApplicationResponse(
                 application.getId().toString(),
                 "Loan application processed successfully",
@@ -758,124 +743,361 @@ public class LoanApplicationService {
     }
 
     /**
-     * Process a submitted loan application with the ML model
-     * 
+     * Process a submitted loan application with the ML model. The application is
+     * leased to this call first, so a batch worker on any node leaves it alone. The
+     * ML call is made between two short transactions, so no database connection is
+     * held while the ML service is working. If the call fails the application goes
+     * to REVIEW_NEEDED.
+     *
      * @param applicationId The ID of the loan application to process
-     * @param personalInfo Personal information related to the application
-     * @param financialInfo Financial information related to the application
      * @param mlService The ML service to use for processing
      * @return The processed loan application
      */
-    @Transactional
-    public LoanApplication processApplicationWithML(
-            Long applicationId, 
-            PersonalInfo personalInfo,
-            FinancialInfo financialInfo,
-            LoanMLService mlService) {
-        
-        LoanApplication application = loanAppRepo.findById(applicationId)
+    public LoanApplication processApplicationWithML(Long applicationId, LoanMLService mlService) {
+        String owner = newLeaseOwner();
+
+        // 1. Short read: take the lease, verify the status and load everything the ML request needs
+        LoanApplication application = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            int claimed = loanAppRepo.claim(List.of(applicationId), owner, now.plus(leaseDuration), now);
+            LoanApplication loaded = loadSubmittedApplication(applicationId);
+            if (claimed == 0) {
+                throw new LoanApplicationException("Application " + applicationId + " is already being processed",
+                        HttpStatus.CONFLICT);
+            }
+            return loaded;
+        });
+
+        Map<String, Object> mlDecision = null;
+        String mlError = null;
+        LoanTrace.Scope trace = LoanTrace.begin(applicationId);
+        try {
+            // 2. Get decision from ML API - this is the primary decision maker
+            mlDecision = mlService.getLoanDecision(application, application.getFinancialInfo(), application.getPersonalInfo());
+            LoanTrace.event("ml", "ML API response for application {}: {}", applicationId, mlDecision);
+        } catch (Exception e) {
+            logger.warn("Exception during ML processing: {}", e.getMessage(), e);
+            mlError = e.getMessage();
+        } finally {
+            trace.close();
+        }
+
+        // 3. Short write: apply the ML decision, or mark the application for review
+        Map<String, Object> decision = mlDecision;
+        String error = mlError;
+        try {
+            return transactionTemplate.execute(status -> applyMLOutcome(applicationId, decision, error, owner, mlService));
+        } catch (RuntimeException e) {
+            releaseLeases(List.of(applicationId), owner);
+            throw e;
+        }
+    }
+
+    private LoanApplication loadSubmittedApplication(Long applicationId) {
+        LoanApplication application = loadApplicationGraphs(List.of(applicationId)).stream()
+                .findFirst()
                 .orElseThrow(() -> new LoanApplicationException("Loan application not found: " + applicationId, HttpStatus.NOT_FOUND));
-        
+        checkReadyForML(application);
+        return application;
+    }
+
+    private void checkReadyForML(LoanApplication application) {
+        Long applicationId = application.getId();
+
         // Verify that the application is in SUBMITTED status
         if (!"SUBMITTED".equals(application.getStatus())) {
             throw new LoanApplicationException("Application must be in SUBMITTED status for ML processing", HttpStatus.BAD_REQUEST);
         }
-        
-        try {
-            // 1. Get decision from ML API - this is the primary decision maker
-            Map<String, Object> mlDecision = mlService.getLoanDecision(application, financialInfo, personalInfo);
-            System.out.println("ML API response for application " + applicationId + ": " + mlDecision);
-            
-            // 2. Apply ML decision directly to the application - no overrides
-            application = mlService.applyMLDecision(application, mlDecision);
-            
-            // 3. Save the application with the ML-determined status
-            application = loanAppRepo.save(application);
-            System.out.println("Saved application " + applicationId + " with ML-determined status: " + application.getStatus());
-            
-            // 4. Return the application with ML-determined status
+        if (application.getPersonalInfo() == null) {
+            throw new LoanApplicationException("Personal info not found for application: " + applicationId, HttpStatus.NOT_FOUND);
+        }
+        if (application.getFinancialInfo() == null) {
+            throw new LoanApplicationException("Financial info not found for application: " + applicationId, HttpStatus.NOT_FOUND);
+        }
+    }
+
+    private LoanApplication applyMLOutcome(Long applicationId, Map<String, Object> mlDecision, String mlError,
+                                           String owner, LoanMLService mlService) {
+        LoanApplication application = loanAppRepo.findGraphsByIdIn(List.of(applicationId)).stream()
+                .findFirst()
+                .orElseThrow(() -> new LoanApplicationException("Loan application not found: " + applicationId, HttpStatus.NOT_FOUND));
+
+        // The lease may have expired during the ML call and been taken by another worker
+        if (loanAppRepo.findIdsLeasedBy(List.of(applicationId), owner).isEmpty()) {
+            logger.warn("Lease on application {} was lost during the ML call, discarding this decision", applicationId);
             return application;
-            
-        } catch (Exception e) {
-            System.out.println("Exception during ML processing: " + e.getMessage());
-            e.printStackTrace();
-            
-            // Mark as REVIEW_NEEDED on error
+        }
+        return applyMLOutcome(application, mlDecision, mlError, mlService);
+    }
+
+    private LoanApplication applyMLOutcome(LoanApplication application, Map<String, Object> mlDecision, String mlError,
+                                           LoanMLService mlService) {
+        Long applicationId = application.getId();
+
+        // Another caller may have decided the application while the ML call was running
+        if (!"SUBMITTED".equals(application.getStatus())) {
+            logger.warn("Application {} left SUBMITTED status during the ML call, discarding this decision", applicationId);
+            return application;
+        }
+
+        if (mlDecision != null) {
+            // Apply ML decision directly to the application - no overrides
+            application = mlService.applyMLDecision(application, mlDecision);
+        } else {
+            // Mark as REVIEW_NEEDED on error and record the error
             application.setStatus("REVIEW_NEEDED");
-            
-            // Record the error
             Map<String, Object> creditEvaluationData = application.getCreditEvaluationData();
             if (creditEvaluationData == null) {
                 creditEvaluationData = new HashMap<>();
             }
-            creditEvaluationData.put("ml_error", "ML processing exception: " + e.getMessage());
+            creditEvaluationData.put("ml_error", "ML processing exception: " + mlError);
             application.setCreditEvaluationData(creditEvaluationData);
-            
-            // Save the application with error status
-            application = loanAppRepo.save(application);
-            return application;
         }
+
+        application.releaseLease();
+        application = loanAppRepo.save(application);
+        LoanTrace.event("ml", "Saved application {} with ML-determined status: {}", applicationId, application.getStatus());
+        return application;
     }
 
     /**
-     * Find and process all loan applications with SUBMITTED status
-     * 
+     * Drain the SUBMITTED backlog in chunks of loan.batch.chunk-size applications.
+     * Each chunk is claimed by taking a lease (owner and expiry) on its rows, so several
+     * nodes can drain the queue at once without calling the ML service twice for the
+     * same application; where the database supports it the claim skips rows another
+     * node is claiming instead of waiting for them. A claimed chunk is loaded in one
+     * short read, sent to the ML service by loan.batch.workers parallel workers with no
+     * transaction open, and its outcomes are written and committed together. A failed
+     * write rolls back only that chunk and hands its leases back; leases left behind by
+     * a crashed node expire after loan.batch.lease-seconds and are claimed again.
+     *
      * @param mlService The ML service to use for processing
+     * @param afterId Keyset position to start after; 0 for the whole backlog
+     * @param listener Told about every committed chunk; returning false stops the drain
      * @return Number of applications processed
      */
-    @Transactional
-    public int processAllSubmittedApplications(LoanMLService mlService) {
-        List<LoanApplication> submittedApplications = loanAppRepo.findByStatus("SUBMITTED");
-        
-        if (submittedApplications.isEmpty()) {
-            return 0;
-        }
-        
+    public int drainSubmittedApplications(LoanMLService mlService, long afterId, ChunkListener listener) {
+        return drainSubmittedApplications(mlService, afterId, batchChunkSize, listener);
+    }
+
+    /**
+     * Drain with an explicit chunk size, which is also the most applications this
+     * call has claimed at any one time.
+     */
+    public int drainSubmittedApplications(LoanMLService mlService, long afterId, int chunkSize, ChunkListener listener) {
+        String owner = newLeaseOwner();
         int processedCount = 0;
-        
-        for (LoanApplication application : submittedApplications) {
-            try {
-                // Capture the application ID in a final variable
-                final Long applicationId = application.getId();
-                
-                // Get required entities
-                PersonalInfo personalInfo = personalInfoRepo.findByLoanApplicationId(applicationId)
-                        .orElseThrow(() -> new LoanApplicationException(
-                                "Personal info not found for application: " + applicationId, 
-                                HttpStatus.NOT_FOUND));
-                
-                FinancialInfo financialInfo = financialInfoRepo.findByLoanApplicationId(applicationId)
-                        .orElseThrow(() -> new LoanApplicationException(
-                                "Financial info not found for application: " + applicationId, 
-                                HttpStatus.NOT_FOUND));
-                
-                // Process with ML - this will now also generate the loan application result
-                processApplicationWithML(applicationId, personalInfo, financialInfo, mlService);
-                
-                processedCount++;
-            } catch (Exception e) {
-                // Capture application ID in a final variable for logging and error handling
-                final Long applicationId = application.getId();
-                
-                // Log the error but continue processing other applications
-                System.out.println("Error processing application " + applicationId + ": " + e.getMessage());
-                application.setStatus("PROCESSING_ERROR");
-                application.setCreditEvaluationData(Map.of("error", e.getMessage()));
-                loanAppRepo.save(application);
-                
-                // Try to generate a result even if the application had an error
+        long lastId = afterId;
+
+        while (true) {
+            ClaimedChunk chunk = claimChunk(lastId, owner, chunkSize);
+            if (chunk == null) {
+                break;
+            }
+            lastId = chunk.lastCandidateId();
+
+            int processed = 0;
+            if (!chunk.applicationIds().isEmpty()) {
                 try {
-                    loanApplicationResultService.generateLoanApplicationResult(applicationId);
-                } catch (Exception resultError) {
-                    System.out.println("Error generating result for application " + applicationId + 
-                                      " after processing error: " + resultError.getMessage());
+                    processed = processChunk(chunk.applicationIds(), owner, mlService);
+                } catch (Exception e) {
+                    logger.warn("Chunk of {} applications ending at id {} was rolled back: {}",
+                            chunk.applicationIds().size(), lastId, e.getMessage(), e);
+                    releaseLeases(chunk.applicationIds(), owner);
+                } finally {
+                    // An open-session-in-view request shares one persistence context across
+                    // chunks; drop the finished chunk's entities so they can be collected
+                    entityManager.clear();
                 }
             }
+            processedCount += processed;
+
+            if (!listener.onChunkCommitted(lastId, processed, chunk.applicationIds().size() - processed)) {
+                break;
+            }
         }
-        
+
         return processedCount;
     }
 
+    /**
+     * Receives the keyset position and counts after each chunk of a drain.
+     */
+    @FunctionalInterface
+    public interface ChunkListener {
+        /**
+         * @param lastId Highest application id the drain has moved past
+         * @param processed Applications decided in this chunk
+         * @param failed Claimed applications that were not decided (errors, lost leases, rollback)
+         * @return true to carry on with the next chunk
+         */
+        boolean onChunkCommitted(long lastId, int processed, int failed);
+    }
+
+    // lastCandidateId moves the keyset forward even when every candidate went to another node
+    private record ClaimedChunk(long lastCandidateId, List<Long> applicationIds) {}
+
+    private ClaimedChunk claimChunk(long afterId, String owner, int chunkSize) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> candidates = claimSkipLocked
+                    ? loanAppRepo.lockClaimableIds("SUBMITTED", afterId, now, chunkSize)
+                    : loanAppRepo.findClaimableIds("SUBMITTED", afterId, now, PageRequest.of(0, chunkSize));
+            if (candidates.isEmpty()) {
+                return null;
+            }
+            loanAppRepo.claim(candidates, owner, now.plus(leaseDuration), now);
+            return new ClaimedChunk(candidates.get(candidates.size() - 1), loanAppRepo.findIdsLeasedBy(candidates, owner));
+        });
+    }
+
+    private void releaseLeases(List<Long> applicationIds, String owner) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> loanAppRepo.releaseLeases(applicationIds, owner));
+        } catch (Exception e) {
+            logger.warn("Could not release leases held by {}, they will expire: {}", owner, e.getMessage());
+        }
+    }
+
+    private String newLeaseOwner() {
+        return nodeId + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    private int processChunk(List<Long> applicationIds, String owner, LoanMLService mlService) {
+        // 1. Short read: load the chunk's full graphs in a handful of queries and check them
+        Map<Long, String> loadErrors = new HashMap<>();
+        List<LoanApplication> applications = transactionTemplate.execute(status -> {
+            List<LoanApplication> ready = new ArrayList<>();
+            for (LoanApplication application : loadApplicationGraphs(applicationIds)) {
+                try {
+                    checkReadyForML(application);
+                    ready.add(application);
+                } catch (LoanApplicationException e) {
+                    logger.warn("Skipping application {}: {}", application.getId(), e.getMessage());
+                    loadErrors.put(application.getId(), e.getMessage());
+                }
+            }
+            return ready;
+        });
+
+        // 2. ML calls with no transaction open, partitioned across the batch workers;
+        //    the ML service's rate limiter keeps the combined call rate in check
+        Map<Long, Map<String, Object>> mlDecisions = new ConcurrentHashMap<>();
+        Map<Long, String> mlErrors = new ConcurrentHashMap<>();
+        BatchPartitioner.run(batchExecutor, applications, batchWorkers, application -> {
+            Long applicationId = application.getId();
+            LoanTrace.Scope trace = LoanTrace.begin(applicationId);
+            try {
+                Map<String, Object> mlDecision = mlService.getLoanDecision(
+                        application, application.getFinancialInfo(), application.getPersonalInfo());
+                LoanTrace.event("ml", "ML API response for application {}: {}", applicationId, mlDecision);
+                mlDecisions.put(applicationId, mlDecision);
+            } catch (Exception e) {
+                logger.warn("Exception during ML processing of application {}: {}", applicationId, e.getMessage(), e);
+                mlErrors.put(applicationId, String.valueOf(e.getMessage()));
+            } finally {
+                trace.close();
+            }
+        });
+
+        // 3. One write transaction for the whole chunk, covering only leases still held
+        List<LoanApplication> errored = new ArrayList<>();
+        int processed = transactionTemplate.execute(status -> {
+            Set<Long> stillLeased = new HashSet<>(loanAppRepo.findIdsLeasedBy(applicationIds, owner));
+            int decided = 0;
+            for (LoanApplication application : loanAppRepo.findGraphsByIdIn(applicationIds)) {
+                Long applicationId = application.getId();
+                if (!stillLeased.contains(applicationId)) {
+                    logger.warn("Lease on application {} was lost during the ML call, discarding this decision", applicationId);
+                } else if (loadErrors.containsKey(applicationId)) {
+                    if ("SUBMITTED".equals(application.getStatus())) {
+                        recordProcessingError(application, loadErrors.get(applicationId));
+                        errored.add(application);
+                    }
+                } else if (mlDecisions.containsKey(applicationId) || mlErrors.containsKey(applicationId)) {
+                    applyMLOutcome(application, mlDecisions.get(applicationId), mlErrors.get(applicationId), mlService);
+                    decided++;
+                }
+            }
+            // Hand back anything left unprocessed rather than waiting for it to expire
+            loanAppRepo.releaseLeases(applicationIds, owner);
+            return decided;
+        });
+
+        // 4. Try to generate results even for the applications that had an error, in a
+        //    transaction of their own once the chunk is committed: joining the chunk's
+        //    would let a failure here mark it rollback-only and lose the whole chunk
+        if (!errored.isEmpty()) {
+            try {
+                loanApplicationResultService.generateLoanApplicationResults(errored);
+            } catch (Exception resultError) {
+                logger.warn("Error generating results for {} applications after processing errors: {}",
+                        errored.size(), resultError.getMessage());
+            }
+        }
+        return processed;
+    }
+
+    private void recordProcessingError(LoanApplication application, String error) {
+        application.setStatus("PROCESSING_ERROR");
+        application.releaseLease();
+        application.setCreditEvaluationData(withError(application.getCreditEvaluationData(), error));
+        loanAppRepo.save(application);
+    }
+
+    // The evaluation is stored now, so add the error to it rather than replacing it
+    private static Map<String, Object> withError(Map<String, Object> creditEvaluationData, String error) {
+        Map<String, Object> evaluation = creditEvaluationData != null ? new HashMap<>(creditEvaluationData) : new HashMap<>();
+        evaluation.put("error", String.valueOf(error));
+        return evaluation;
+    }
+
+    /**
+     * Load a loan application with its personal and financial info, address,
+     * employment, debts and assets initialized, so the graph can be read after
+     * the transaction ends without touching the database again.
+     *
+     * @param applicationId The ID of the loan application
+     * @return The loan application or null if not found
+     */
+    @Transactional
+    public LoanApplication getApplicationGraph(Long applicationId) {
+        return loadApplicationGraphs(List.of(applicationId)).stream().findFirst().orElse(null);
+    }
+
+    /**
+     * Load several application graphs at once, in id order, for reading after the
+     * transaction ends; see {@link #getApplicationGraph(Long)}.
+     *
+     * @param applicationIds IDs of the loan applications; missing ones are left out
+     * @return The loan applications found
+     */
+    @Transactional
+    public List<LoanApplication> getApplicationGraphs(Collection<Long> applicationIds) {
+        return loadApplicationGraphs(applicationIds);
+    }
+
+    /**
+     * Load applications with everything scoring and the ML request read: one query for
+     * the applications and their to-one associations, then one IN-list query per
+     * financial info collection, however many applications there are.
+     * Must run inside a transaction.
+     */
+    private List<LoanApplication> loadApplicationGraphs(Collection<Long> applicationIds) {
+        List<LoanApplication> applications = loanAppRepo.findGraphsByIdIn(applicationIds);
+        List<Long> financialInfoIds = applications.stream()
+                .map(LoanApplication::getFinancialInfo)
+                .filter(Objects::nonNull)
+                .map(FinancialInfo::getId)
+                .collect(Collectors.toList());
+        if (!financialInfoIds.isEmpty()) {
+            financialInfoRepo.fetchEmploymentDetails(financialInfoIds);
+            financialInfoRepo.fetchExistingDebts(financialInfoIds);
+            financialInfoRepo.fetchAssets(financialInfoIds);
+        }
+        return applications;
+    }
+
     /**
      * Get a loan application by ID
      * 
@@ -912,20 +1134,4 @@ public class LoanApplicationService {
     private int calculateMonthsBetween(LocalDate startDate, LocalDate endDate) {
         return (int) (startDate.until(endDate, java.time.temporal.ChronoUnit.MONTHS));
     }
-
-    // Helper method to format a map for debugging output
-    private String mapToDebugString(Map<String, Object> map) {
-        if (map == null) return "null";
-        StringBuilder sb = new StringBuilder();
-        map.forEach((key, value) -> {
-            sb.append(key).append(": ");
-            if (value instanceof BigDecimal) {
-                sb.append(((BigDecimal) value).stripTrailingZeros().toPlainString());
-            } else {
-                sb.append(value);
-            }
-            sb.append("\n");
-        });
-        return sb.toString();
-    }
 }
\ No newline at end of file
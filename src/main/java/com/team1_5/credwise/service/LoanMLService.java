@@ -1,10 +1,11 @@
 package com.team1_5.credwise.service;
 
 import com.team1_5.credwise.model.FinancialInfo;
-import com.team1_5.credwise.model.EmploymentHistory;
+import com.team1_5.credwise.model.FinancialMetricsSnapshot;
 import com.team1_5.credwise.model.LoanApplication;
 import com.team1_5.credwise.model.PersonalInfo;
 import com.team1_5.credwise.model.Debt;
+import com.team1_5.credwise.util.TokenBucketRateLimiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -30,12 +31,14 @@ public class LoanMLService {
     private static final Logger logger = LoggerFactory.getLogger(LoanMLService.class);
     
     private final RestTemplate restTemplate;
+    private final TokenBucketRateLimiter mlRateLimiter;
     
     @Value("${loan.ml.api.url:http://localhost:8000/predict}")
     private String mlApiUrl;
     
-    public LoanMLService(RestTemplate restTemplate) {
+    public LoanMLService(RestTemplate restTemplate, TokenBucketRateLimiter mlRateLimiter) {
         this.restTemplate = restTemplate;
+        this.mlRateLimiter = mlRateLimiter;
     }
     
     /**
@@ -65,8 +68,9 @@ public class LoanMLService {
             // Log the API URL
             logger.info("Calling ML API at URL: {}", mlApiUrl);
             
-            // Call ML API
+            // Call ML API, waiting for the global rate limit first
             try {
+                mlRateLimiter.acquire();
                 ResponseEntity<Map> response = restTemplate.postForEntity(mlApiUrl, entity, Map.class);
                 
                 // Process response
@@ -79,6 +83,9 @@ public class LoanMLService {
                     // Return error response - do not use fallback
                     return createErrorResponse("ML API error: " + response.getStatusCode());
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return createErrorResponse("Interrupted while waiting for the ML rate limit");
             } catch (Exception e) {
                 logger.error("Error during ML API call for application {}: {}", application.getId(), e.getMessage(), e);
                 
@@ -93,6 +100,10 @@ public class LoanMLService {
         }
     }
     
+    public Map<String, Object> getRateLimitMetrics() {
+        return mlRateLimiter.getMetrics();
+    }
+    
     /**
      * Apply ML model decision to the loan application
      * 
@@ -206,50 +217,18 @@ public class LoanMLService {
                 logger.info("Province from address: {}", province);
             }
             
+            // Derived metrics are computed once per financial info and shared with scoring
+            FinancialMetricsSnapshot metrics = financialInfo != null ? financialInfo.getMetricsSnapshot() : null;
+
             // Extract employment information
             String employmentStatus = "Unemployed";
             int monthsEmployed = 0;
-            
-            if (financialInfo != null && financialInfo.getEmploymentDetails() != null) {
-                List<EmploymentHistory> employments = financialInfo.getEmploymentDetails();
-                
-                if (!employments.isEmpty()) {
-                    // Debug all employment records
-                    logger.info("Found {} employment records", employments.size());
-                    for (EmploymentHistory emp : employments) {
-                        logger.info("Employment record: {} at {}, type: {}, duration: {} months", 
-                                  emp.getPosition(), emp.getEmployerName(), 
-                                  emp.getEmploymentType(), emp.getDurationMonths());
-                    }
-                    
-                    // Get the most recent employment
-                    Optional<EmploymentHistory> currentEmployment = employments.stream()
-                            .filter(e -> e.getEndDate() == null)
-                            .findFirst();
-                    
-                    EmploymentHistory employment = currentEmployment.orElse(employments.get(0));
-                    
-                    // Get employment type
-                    employmentStatus = employment.getEmploymentType();
-                    if (employmentStatus == null || employmentStatus.isEmpty()) {
-                        employmentStatus = "Unemployed";
-                    }
-                    
-                    // Get employment duration
-                    if (employment.getDurationMonths() != null && employment.getDurationMonths() > 0) {
-                        monthsEmployed = employment.getDurationMonths();
-                    } else if (employment.getStartDate() != null) {
-                        // Calculate from dates if duration is not directly available
-                        LocalDate endDate = employment.getEndDate() != null ? 
-                                          employment.getEndDate() : LocalDate.now();
-                        monthsEmployed = java.time.Period.between(
-                            employment.getStartDate(), endDate).getYears() * 12 + 
-                            java.time.Period.between(employment.getStartDate(), endDate).getMonths();
-                    }
-                    
-                    // Log employment calculation for debugging
-                    logger.info("Using employment status: {}, Months employed: {}", employmentStatus, monthsEmployed);
+            if (metrics != null) {
+                if (metrics.getEmploymentType() != null && !metrics.getEmploymentType().isEmpty()) {
+                    employmentStatus = metrics.getEmploymentType();
                 }
+                monthsEmployed = metrics.getMonthsEmployed();
+                logger.info("Using employment status: {}, Months employed: {}", employmentStatus, monthsEmployed);
             }
             
             // Extract financial information
@@ -279,33 +258,19 @@ public class LoanMLService {
                 logger.info("Total credit limit: {}", totalCreditLimit);
             }
             
-            // Credit utilization calculation with proper handling of over-limit situations
+            // Credit utilization as a percentage; stays 0 when there is no usable credit limit
             double creditUtilization = 0.0;
-            if (financialInfo != null) {
-                BigDecimal creditLimit = financialInfo.getCurrentCreditLimit();
-                BigDecimal creditUsage = financialInfo.getCreditTotalUsage();
-                
-                if (creditLimit != null && creditUsage != null) {
-                    if (creditLimit.compareTo(BigDecimal.ZERO) > 0) {
-                        // Calculate utilization as a percentage
-                        BigDecimal utilization = creditUsage.divide(creditLimit, 4, java.math.RoundingMode.HALF_UP)
-                                .multiply(BigDecimal.valueOf(100));
-                        
-                        creditUtilization = utilization.doubleValue();
-                        
-                        // Log warning if over 100%
-                        if (creditUtilization > 100.0) {
-                            logger.warn("Credit utilization is over 100%: {}% for application ID: {}", 
-                                       creditUtilization, application.getId());
-                        }
-                        
-                        logger.info("Credit utilization calculated: {}%", creditUtilization);
-                    } else {
-                        logger.warn("Credit limit is zero, cannot calculate utilization for application ID: {}", 
-                                  application.getId());
+            if (metrics != null) {
+                if (metrics.getCreditUtilization() != null) {
+                    creditUtilization = metrics.getCreditUtilization().doubleValue();
+                    if (creditUtilization > 100.0) {
+                        logger.warn("Credit utilization is over 100%: {}% for application ID: {}", 
+                                   creditUtilization, application.getId());
                     }
+                    logger.info("Credit utilization calculated: {}%", creditUtilization);
                 } else {
-                    logger.warn("Missing credit limit or usage data for application ID: {}", application.getId());
+                    logger.warn("Missing or zero credit limit, cannot calculate utilization for application ID: {}", 
+                              application.getId());
                 }
             }
             
@@ -326,28 +291,10 @@ public class LoanMLService {
                 logger.info("Monthly expenses: {}", monthlyExpenses);
             }
             
-            // DTI calculation - use the one from financial info if available
+            // DTI as a percentage, the same value scoring used
             double dti = 0.0;
-            if (financialInfo != null) {
-                if (financialInfo.getDebtToIncomeRatio() != null) {
-                    dti = financialInfo.getDebtToIncomeRatio().multiply(BigDecimal.valueOf(100)).doubleValue();
-                } else if (financialInfo.getMonthlyIncome() != null && 
-                          financialInfo.getMonthlyIncome().compareTo(BigDecimal.ZERO) > 0) {
-                    // Calculate it if not available but we have income and expenses
-                    BigDecimal annualizedIncome = financialInfo.getMonthlyIncome().multiply(BigDecimal.valueOf(12));
-                    BigDecimal totalDebt = financialInfo.getEstimatedDebts() != null ? 
-                                          financialInfo.getEstimatedDebts() : BigDecimal.ZERO;
-                    if (financialInfo.getTotalDebts() != null) {
-                        totalDebt = totalDebt.add(financialInfo.getTotalDebts());
-                    }
-                    
-                    BigDecimal loanImpact = application.getRequestedAmount().multiply(BigDecimal.valueOf(0.03));
-                    BigDecimal monthlyExpense = financialInfo.getMonthlyExpenses() != null ? 
-                                              financialInfo.getMonthlyExpenses() : BigDecimal.ZERO;
-                    
-                    BigDecimal numerator = monthlyExpense.add(totalDebt).add(loanImpact);
-                    dti = numerator.divide(annualizedIncome, 4, java.math.RoundingMode.HALF_UP).doubleValue() * 100;
-                }
+            if (metrics != null) {
+                dti = metrics.getDebtToIncomeRatio() * 100;
                 logger.info("DTI calculated: {}", dti);
             }
             
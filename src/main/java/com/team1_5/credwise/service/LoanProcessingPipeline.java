@@ -0,0 +1,345 @@
+package com.team1_5.credwise.service;
+
+import com.team1_5.credwise.dto.LoanApplicationRequest;
+import com.team1_5.credwise.exception.LoanApplicationException;
+import com.team1_5.credwise.model.LoanApplication;
+import com.team1_5.credwise.util.LoanTrace;
+import com.team1_5.credwise.util.PipelineStage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs loan submissions through three stages, each with its own bounded queue and
+ * worker pool so they can be sized independently:
+ * <ol>
+ *     <li>persist - build, score and save the application graph in one transaction</li>
+ *     <li>ml - call the ML service, outside of any transaction</li>
+ *     <li>decision - apply the ML decision and generate the result</li>
+ * </ol>
+ * Stages hand work on with a blocking put, so a saturated ML stage stalls the
+ * persist workers, fills the persist queue and finally makes {@link #submit}
+ * time out on the request thread.
+ *
+ * An application past the persist stage is PROCESSING under a lease held by this
+ * node, renewed while it is in the pipeline. On shutdown every application still in
+ * the pipeline goes back to the SUBMITTED backlog; after a crash its lease runs out
+ * and the periodic sweep puts it back there, so batch processing picks it up.
+ */
+@Service
+public class LoanProcessingPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(LoanProcessingPipeline.class);
+
+    private final LoanApplicationService loanApplicationService;
+    private final LoanMLService loanMLService;
+    private final PipelineStage<Submission> persistStage;
+    private final PipelineStage<Submission> mlStage;
+    private final PipelineStage<Submission> decisionStage;
+    private final long admissionTimeoutMs;
+    private final long responseTimeoutMs;
+    private final long shutdownGraceMs;
+
+    // Persisted applications not yet decided, whose pipeline leases this node renews
+    private final Set<Long> inPipeline = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * A loan submission moving through the pipeline
+     */
+    public static final class Submission {
+        private enum State { QUEUED, PERSISTING, ABANDONED }
+
+        private final Long userId;
+        private final LoanApplicationRequest request;
+        // One response deadline shared by every wait on this submission
+        private final long deadlineNanos;
+        private final AtomicReference<State> state = new AtomicReference<>(State.QUEUED);
+        private LoanApplication application;
+        private Map<String, Object> creditEvaluation;
+        private Map<String, Object> mlDecision;
+        private final CompletableFuture<LoanApplication> persisted = new CompletableFuture<>();
+        private final CompletableFuture<LoanApplication> decided = new CompletableFuture<>();
+
+        private Submission(Long userId, LoanApplicationRequest request, long deadlineNanos) {
+            this.userId = userId;
+            this.request = request;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+
+    public LoanProcessingPipeline(
+            LoanApplicationService loanApplicationService,
+            LoanMLService loanMLService,
+            @Value("${loan.pipeline.persist.workers:4}") int persistWorkers,
+            @Value("${loan.pipeline.persist.queue-capacity:100}") int persistQueueCapacity,
+            @Value("${loan.pipeline.ml.workers:8}") int mlWorkers,
+            @Value("${loan.pipeline.ml.queue-capacity:100}") int mlQueueCapacity,
+            @Value("${loan.pipeline.decision.workers:4}") int decisionWorkers,
+            @Value("${loan.pipeline.decision.queue-capacity:100}") int decisionQueueCapacity,
+            @Value("${loan.pipeline.admission-timeout-ms:2000}") long admissionTimeoutMs,
+            @Value("${loan.pipeline.response-timeout-ms:30000}") long responseTimeoutMs,
+            @Value("${loan.pipeline.shutdown-grace-ms:5000}") long shutdownGraceMs) {
+        this.loanApplicationService = loanApplicationService;
+        this.loanMLService = loanMLService;
+        this.admissionTimeoutMs = admissionTimeoutMs;
+        this.responseTimeoutMs = responseTimeoutMs;
+        this.shutdownGraceMs = shutdownGraceMs;
+        this.persistStage = new PipelineStage<>("persist", persistWorkers, persistQueueCapacity, this::persist);
+        this.mlStage = new PipelineStage<>("ml", mlWorkers, mlQueueCapacity, this::callMl);
+        this.decisionStage = new PipelineStage<>("decision", decisionWorkers, decisionQueueCapacity, this::decide);
+    }
+
+    @PostConstruct
+    public void start() {
+        int released = loanApplicationService.releaseProcessingFromPreviousRun();
+        if (released > 0) {
+            logger.info("Returned {} applications left in the pipeline by the previous run to the backlog", released);
+        }
+        decisionStage.start();
+        mlStage.start();
+        persistStage.start();
+    }
+
+    /**
+     * Stop the stages from the front, then hand every application still in the
+     * pipeline back to the SUBMITTED backlog. Submissions not yet persisted are dropped
+     * and their requests see the pipeline as unavailable.
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (Submission submission : persistStage.stop(shutdownGraceMs)) {
+            submission.state.set(Submission.State.ABANDONED);
+            submission.persisted.complete(null);
+            submission.decided.complete(null);
+        }
+        List<Submission> undecided = new ArrayList<>(mlStage.stop(shutdownGraceMs));
+        undecided.addAll(decisionStage.stop(shutdownGraceMs));
+        undecided.forEach(submission -> submission.decided.complete(null));
+
+        List<Long> applicationIds = new ArrayList<>(inPipeline);
+        if (!applicationIds.isEmpty()) {
+            try {
+                int released = loanApplicationService.releaseToBacklog(applicationIds);
+                logger.info("Returned {} applications still in the pipeline to the backlog", released);
+            } catch (RuntimeException e) {
+                logger.warn("Could not return {} applications to the backlog, their leases will expire: {}",
+                        applicationIds.size(), e.getMessage());
+            }
+            inPipeline.clear();
+        }
+    }
+
+    /**
+     * Keep the leases on this node's applications while they move through the pipeline
+     */
+    @Scheduled(fixedDelayString = "${loan.pipeline.lease-renew-ms:30000}")
+    public void renewLeases() {
+        List<Long> applicationIds = new ArrayList<>(inPipeline);
+        if (!applicationIds.isEmpty()) {
+            loanApplicationService.renewPipelineLeases(applicationIds);
+        }
+    }
+
+    /**
+     * Put PROCESSING applications no pipeline holds a live lease on back in the backlog
+     */
+    @Scheduled(fixedDelayString = "${loan.pipeline.stale-check-ms:60000}")
+    public void releaseStaleApplications() {
+        int released = loanApplicationService.releaseStaleProcessing();
+        if (released > 0) {
+            logger.warn("Returned {} PROCESSING applications with expired pipeline leases to the backlog", released);
+        }
+    }
+
+    /**
+     * Admit a submission into the pipeline. The request is validated on the calling
+     * thread; if the persist stage stays full for the admission timeout the
+     * submission is turned away.
+     *
+     * @return The admitted submission, or null if the pipeline is saturated
+     */
+    public Submission submit(Long userId, LoanApplicationRequest request) {
+        loanApplicationService.validateRequest(request);
+
+        Submission submission = new Submission(userId, request,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(responseTimeoutMs));
+        try {
+            if (persistStage.offer(submission, admissionTimeoutMs, TimeUnit.MILLISECONDS)) {
+                admitted.increment();
+                return submission;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejected.increment();
+        logger.warn("Loan pipeline is saturated, submission from user {} was turned away", userId);
+        return null;
+    }
+
+    /**
+     * Wait for the persist stage to save a submission, until the submission's response
+     * deadline. A submission still queued by then is abandoned, so the persist stage
+     * skips it and the client can safely submit again; one already being saved is not,
+     * and the client is told to check for it rather than to retry.
+     *
+     * @return The persisted application, still in PROCESSING status
+     */
+    public LoanApplication awaitPersisted(Submission submission) {
+        LoanApplication application = await(submission.persisted, submission.deadlineNanos);
+        if (application != null) {
+            return application;
+        }
+        // Give up on a submission the persist stage has not started, so it is never saved
+        submission.state.compareAndSet(Submission.State.QUEUED, Submission.State.ABANDONED);
+        if (submission.state.get() == Submission.State.PERSISTING) {
+            // It may have finished since the wait ran out
+            application = submission.persisted.isDone() ? await(submission.persisted, 0) : null;
+            if (application != null) {
+                return application;
+            }
+            throw new LoanApplicationException("Loan application is still being saved; check your applications "
+                    + "before submitting it again", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        throw new LoanApplicationException("Loan application could not be saved in time, please retry",
+                HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * Wait for a submission to leave the decision stage, until its response deadline
+     *
+     * @return The decided application, or null if it is still being processed
+     *         when the deadline passes
+     */
+    public LoanApplication awaitDecision(Submission submission) {
+        return await(submission.decided, submission.deadlineNanos);
+    }
+
+    private LoanApplication await(CompletableFuture<LoanApplication> future, long deadlineNanos) {
+        try {
+            return future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof LoanApplicationException loanException) {
+                throw loanException;
+            }
+            throw new LoanApplicationException("Processing failed: " + e.getCause().getMessage(),
+                    HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private void persist(Submission submission) {
+        if (!submission.state.compareAndSet(Submission.State.QUEUED, Submission.State.PERSISTING)) {
+            logger.info("Submission from user {} was abandoned by its request before it was saved, skipping it",
+                    submission.userId);
+            return;
+        }
+        try {
+            LoanApplication application = loanApplicationService.persistApplication(submission.userId, submission.request);
+            inPipeline.add(application.getId());
+            submission.application = application;
+            submission.creditEvaluation = application.getCreditEvaluationData();
+            submission.persisted.complete(application);
+        } catch (RuntimeException e) {
+            submission.persisted.completeExceptionally(e);
+            submission.decided.completeExceptionally(e);
+            throw e;
+        }
+        handOff(mlStage, submission);
+    }
+
+    private void callMl(Submission submission) {
+        LoanApplication application = submission.application;
+        LoanTrace.Scope trace = LoanTrace.begin(application.getId());
+        try {
+            // The graph was fully built in memory by the persist stage, so it can be
+            // read here without a session or a database connection
+            submission.mlDecision = loanMLService.getLoanDecision(
+                    application, application.getFinancialInfo(), application.getPersonalInfo());
+            LoanTrace.data("ml", "ML API response", submission.mlDecision);
+        } catch (RuntimeException e) {
+            logger.error("ML call failed for application {}: {}", application.getId(), e.getMessage());
+            Map<String, Object> creditEvaluation = submission.creditEvaluation != null
+                    ? new HashMap<>(submission.creditEvaluation) : new HashMap<>();
+            creditEvaluation.put("ml_error", "ML processing exception: " + e.getMessage());
+            submission.creditEvaluation = creditEvaluation;
+        } finally {
+            trace.close();
+        }
+        handOff(decisionStage, submission);
+    }
+
+    private void decide(Submission submission) {
+        Long applicationId = submission.application.getId();
+        try {
+            submission.decided.complete(loanApplicationService.recordDecision(
+                    applicationId, submission.creditEvaluation, submission.mlDecision));
+            inPipeline.remove(applicationId);
+        } catch (RuntimeException e) {
+            inPipeline.remove(applicationId);
+            submission.decided.completeExceptionally(e);
+            try {
+                loanApplicationService.markProcessingError(applicationId, e.getMessage());
+            } catch (Exception markError) {
+                logger.error("Could not record processing error for application {}: {}",
+                        applicationId, markError.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    private void handOff(PipelineStage<Submission> next, Submission submission) {
+        try {
+            // Blocks while the next stage is full - this is what carries backpressure upstream
+            next.put(submission);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Long applicationId = submission.application.getId();
+            logger.warn("Pipeline stopped before application {} reached the {} stage, releasing it to the backlog",
+                    applicationId, next.getName());
+            loanApplicationService.releaseToBacklog(applicationId);
+            inPipeline.remove(applicationId);
+            submission.decided.complete(null);
+        }
+    }
+
+    /**
+     * Per-stage throughput, queue depth and latency, plus admission counts
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> stages = new LinkedHashMap<>();
+        stages.put(persistStage.getName(), persistStage.getMetrics());
+        stages.put(mlStage.getName(), mlStage.getMetrics());
+        stages.put(decisionStage.getName(), decisionStage.getMetrics());
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("admitted", admitted.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("stages", stages);
+        return metrics;
+    }
+}
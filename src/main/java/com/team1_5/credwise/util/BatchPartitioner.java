@@ -0,0 +1,51 @@
+package com.team1_5.credwise.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Splits a list of work items into contiguous partitions and runs each partition as
+ * one task on an executor, so at most {@code partitions} items are in progress at a
+ * time whatever kind of executor is used. Returns once every partition is done.
+ */
+public final class BatchPartitioner {
+
+    private BatchPartitioner() {
+    }
+
+    public static <T> void run(ExecutorService executor, List<T> items, int partitions, Consumer<T> handler) {
+        if (items.isEmpty()) {
+            return;
+        }
+        int partitionCount = Math.max(1, Math.min(partitions, items.size()));
+        int partitionSize = (items.size() + partitionCount - 1) / partitionCount;
+
+        List<Future<?>> futures = new ArrayList<>(partitionCount);
+        for (int from = 0; from < items.size(); from += partitionSize) {
+            List<T> partition = items.subList(from, Math.min(items.size(), from + partitionSize));
+            futures.add(executor.submit(() -> partition.forEach(handler)));
+        }
+
+        RuntimeException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                futures.forEach(f -> f.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for batch partitions", e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException re ? re : new IllegalStateException(e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.team1_5.credwise.util;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.util.*;
 
 public class CanadianCreditScoringSystem {
+    private static final Logger logger = LoggerFactory.getLogger(CanadianCreditScoringSystem.class);
 
     // Credit score ranges
     public static final int MIN_CREDIT_SCORE = 300;
@@ -153,7 +157,7 @@ public class CanadianCreditScoringSystem {
     // Helper method to determine employment stability
     public static String determineEmploymentStability(String employmentStatus, int monthsEmployed) {
         // Debug logging
-        System.out.println("EMPLOYMENT STABILITY CHECK: status=" + employmentStatus + ", months=" + monthsEmployed);
+        LoanTrace.event("scoring", "EMPLOYMENT STABILITY CHECK: status={}, months={}", employmentStatus, monthsEmployed);
         
         // Normalize employment status to handle variations
         String normalizedStatus = employmentStatus != null ? employmentStatus.trim().toLowerCase() : "";
@@ -168,14 +172,14 @@ public class CanadianCreditScoringSystem {
         // Determine stability based on either condition
         boolean isStable = isFullTimeStable || isLongTermStable;
         
-        System.out.println("EMPLOYMENT STABILITY DETAILS:");
-        System.out.println("  - Is full-time employment: " + normalizedStatus.contains("full-time"));
-        System.out.println("  - Is full-time at least 12 months: " + isFullTimeStable);
-        System.out.println("  - Is any employment at least 24 months: " + isLongTermStable);
-        System.out.println("  - Employment duration (months): " + monthsEmployed);
+        LoanTrace.event("scoring", "EMPLOYMENT STABILITY DETAILS");
+        LoanTrace.event("scoring", "- Is full-time employment: {}", normalizedStatus.contains("full-time"));
+        LoanTrace.event("scoring", "- Is full-time at least 12 months: {}", isFullTimeStable);
+        LoanTrace.event("scoring", "- Is any employment at least 24 months: {}", isLongTermStable);
+        LoanTrace.event("scoring", "- Employment duration (months): {}", monthsEmployed);
         
         String result = isStable ? "Stable" : "Unstable or Student";
-        System.out.println("EMPLOYMENT STABILITY RESULT: " + result);
+        LoanTrace.event("scoring", "EMPLOYMENT STABILITY RESULT: {}", result);
         
         return result;
     }
@@ -191,7 +195,7 @@ public class CanadianCreditScoringSystem {
 
         for (String key : requiredKeys) {
             if (!data.containsKey(key) || data.get(key) == null) {
-                System.out.println("Missing or null value for: " + key);
+                LoanTrace.event("scoring", "Missing or null value for: {}", key);
                 return false;
             }
         }
@@ -219,7 +223,7 @@ public class CanadianCreditScoringSystem {
     // Credit Scoring Methods
     public static double creditUtilizationScore(double used, double limit) {
         if (limit <= 0) {
-            System.out.println("Warning: Credit limit is zero or negative, using default value to prevent division by zero");
+            LoanTrace.event("scoring", "Warning: Credit limit is zero or negative, using default value to prevent division by zero");
             return 0.0; // Worst utilization score for invalid limit
         }
         
@@ -227,7 +231,7 @@ public class CanadianCreditScoringSystem {
         
         // Log warning for over-limit utilization
         if (ratio > 1.0) {
-            System.out.println("Warning: Credit utilization is over 100%: " + (ratio * 100) + "% - this significantly impacts credit score");
+            LoanTrace.event("scoring", "Warning: Credit utilization is over 100%: {}% - this significantly impacts credit score", ratio * 100);
         }
         
         // For utilization over 100%, ensure a minimum negative impact
@@ -265,7 +269,7 @@ public class CanadianCreditScoringSystem {
             // Ensure DTI is between 0 and 1 for calculation purposes
             return Math.max(0.0, Math.min(1.0, dti));
         } catch (Exception e) {
-            System.out.println("Error calculating DTI score: " + e.getMessage());
+            logger.warn("Error calculating DTI score: {}", e.getMessage());
             return 0.5; // Return moderate DTI on error
         }
     }
@@ -280,7 +284,7 @@ public class CanadianCreditScoringSystem {
 
     public static double employmentScore(String status, int months) {
         // Add debugging to help troubleshoot
-        System.out.println("EMPLOYMENT SCORE CALCULATION: status=" + status + ", months=" + months);
+        LoanTrace.event("scoring", "EMPLOYMENT SCORE CALCULATION: status={}, months={}", status, months);
         
         // Check for each condition that could lead to a "stable" determination
         boolean isFullTimeStable = status.equals("Full-time") && months >= 12;
@@ -291,15 +295,15 @@ public class CanadianCreditScoringSystem {
         
         if (isLongTermStable) {
             score = 1.0; // Higher score for long-term employment (24+ months including 30+ months)
-            System.out.println("EMPLOYMENT SCORE: 1.0 (Long-term stable: " + months + " months)");
+            LoanTrace.event("scoring", "EMPLOYMENT SCORE: 1.0 (Long-term stable: {} months)", months);
         } else if (isFullTimeStable) {
             score = 0.9; // Good score for full-time employment 12+ months
-            System.out.println("EMPLOYMENT SCORE: 0.9 (Full-time stable: " + months + " months)");
+            LoanTrace.event("scoring", "EMPLOYMENT SCORE: 0.9 (Full-time stable: {} months)", months);
         } else if (months >= 6) {
             score = 0.7; // Medium score for reasonable employment duration
-            System.out.println("EMPLOYMENT SCORE: 0.7 (Some stability: " + months + " months)");
+            LoanTrace.event("scoring", "EMPLOYMENT SCORE: 0.7 (Some stability: {} months)", months);
         } else {
-            System.out.println("EMPLOYMENT SCORE: 0.5 (Limited stability: " + months + " months)");
+            LoanTrace.event("scoring", "EMPLOYMENT SCORE: 0.5 (Limited stability: {} months)", months);
         }
         
         return score;
@@ -315,7 +319,7 @@ public class CanadianCreditScoringSystem {
 
     public static int calculateCreditScore(Map<String, Object> data) {
         // Add comprehensive debug to help troubleshoot the exact data we receive
-        System.out.println("Calculating credit score with data: " + data);
+        LoanTrace.event("scoring", "Calculating credit score from fields: {}", data.keySet());
         
         try {
             // Extract base metrics with proper defaults
@@ -368,8 +372,7 @@ public class CanadianCreditScoringSystem {
             } else {
                 // Over 100% utilization (over limit)
                 baseScore -= 50; // More severe penalty for over-limit
-                System.out.println("Applied severe penalty (-50) for over-limit credit utilization: " + 
-                                 (creditUtilization * 100) + "%");
+                LoanTrace.event("scoring", "Applied severe penalty (-50) for over-limit credit utilization: {}%", creditUtilization * 100);
             }
             
             // Employment Stability Impact
@@ -404,12 +407,11 @@ public class CanadianCreditScoringSystem {
             // Ensure score stays within valid range
             baseScore = Math.max(MIN_CREDIT_SCORE, Math.min(MAX_CREDIT_SCORE, baseScore));
             
-            System.out.println("Calculated credit score: " + baseScore);
+            LoanTrace.event("scoring", "Calculated credit score: {}", baseScore);
             return baseScore;
             
         } catch (Exception e) {
-            System.out.println("Error calculating credit score: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("Error calculating credit score: {}", e.getMessage(), e);
             return MIN_CREDIT_SCORE; // Return minimum score on error
         }
     }
@@ -419,7 +421,7 @@ public class CanadianCreditScoringSystem {
      */
     private static String getStringValueSafely(Map<String, Object> data, String key, String defaultValue) {
         if (data == null || !data.containsKey(key) || data.get(key) == null) {
-            System.out.println("Warning: Missing or null value for key: " + key + ", using default: " + defaultValue);
+            LoanTrace.event("scoring", "Warning: Missing or null value for key: {}, using default: {}", key, defaultValue);
             return defaultValue;
         }
         
@@ -436,7 +438,7 @@ public class CanadianCreditScoringSystem {
      */
     private static int getIntValueSafely(Map<String, Object> data, String key, int defaultValue) {
         if (data == null || !data.containsKey(key) || data.get(key) == null) {
-            System.out.println("Warning: Missing or null value for key: " + key + ", using default: " + defaultValue);
+            LoanTrace.event("scoring", "Warning: Missing or null value for key: {}, using default: {}", key, defaultValue);
             return defaultValue;
         }
         
@@ -447,14 +449,15 @@ public class CanadianCreditScoringSystem {
             try {
                 return Integer.parseInt((String) value);
             } catch (NumberFormatException e) {
-                System.out.println("Warning: Could not parse string value for key: " + key + ", using default: " + defaultValue);
+                LoanTrace.event("scoring", "Warning: Could not parse string value for key: {}, using default: {}", key, defaultValue);
                 return defaultValue;
             }
         } else if (value instanceof Boolean) {
             return ((Boolean) value) ? 1 : 0;
         }
         
-        System.out.println("Warning: Unexpected type for key: " + key + " (" + value.getClass().getName() + "), using default: " + defaultValue);
+        LoanTrace.event("scoring", "Warning: Unexpected type for key: {} ({}), using default: {}",
+                key, value.getClass().getName(), defaultValue);
         return defaultValue;
     }
     
@@ -463,7 +466,7 @@ public class CanadianCreditScoringSystem {
      */
     private static double getDoubleValueSafely(Map<String, Object> data, String key, double defaultValue) {
         if (data == null || !data.containsKey(key) || data.get(key) == null) {
-            System.out.println("Warning: Missing or null value for key: " + key + ", using default: " + defaultValue);
+            LoanTrace.event("scoring", "Warning: Missing or null value for key: {}, using default: {}", key, defaultValue);
             return defaultValue;
         }
         
@@ -474,14 +477,15 @@ public class CanadianCreditScoringSystem {
             try {
                 return Double.parseDouble((String) value);
             } catch (NumberFormatException e) {
-                System.out.println("Warning: Could not parse string value for key: " + key + ", using default: " + defaultValue);
+                LoanTrace.event("scoring", "Warning: Could not parse string value for key: {}, using default: {}", key, defaultValue);
                 return defaultValue;
             }
         } else if (value instanceof Boolean) {
             return ((Boolean) value) ? 1.0 : 0.0;
         }
         
-        System.out.println("Warning: Unexpected type for key: " + key + " (" + value.getClass().getName() + "), using default: " + defaultValue);
+        LoanTrace.event("scoring", "Warning: Unexpected type for key: {} ({}), using default: {}",
+                key, value.getClass().getName(), defaultValue);
         return defaultValue;
     }
 
@@ -535,8 +539,8 @@ public class CanadianCreditScoringSystem {
      */
     public static int eligibilityScore(int creditScore, double dti, String paymentHistory, int monthsEmployed) {
         // Debug logging
-        System.out.println("ELIGIBILITY CALCULATION - Credit: " + creditScore + ", DTI: " + dti + 
-                          ", Payment History: " + paymentHistory + ", Months Employed: " + monthsEmployed);
+        LoanTrace.event("scoring", "ELIGIBILITY CALCULATION - Credit: {}, DTI: {}, Payment History: {}, Months Employed: {}",
+                creditScore, dti, paymentHistory, monthsEmployed);
         
         // Base score derived from credit score (0-60 points)
         int baseScore = Math.max(0, Math.min(60, (creditScore - 300) * 60 / 600));
@@ -571,11 +575,8 @@ public class CanadianCreditScoringSystem {
         int totalScore = baseScore + dtiComponent + paymentComponent + employmentComponent;
         
         // Debug the calculation
-        System.out.println("ELIGIBILITY SCORE COMPONENTS - Base: " + baseScore + 
-                          ", DTI: " + dtiComponent + 
-                          ", Payment: " + paymentComponent + 
-                          ", Employment: " + employmentComponent + 
-                          " = Total: " + totalScore);
+        LoanTrace.event("scoring", "ELIGIBILITY SCORE COMPONENTS - Base: {}, DTI: {}, Payment: {}, Employment: {} = Total: {}",
+                baseScore, dtiComponent, paymentComponent, employmentComponent, totalScore);
         
         return totalScore;
     }
@@ -16,6 +16,9 @@ import java.util.ArrayList;
 public class CreditScoreService {
     private static final Logger logger = LoggerFactory.getLogger(CreditScoreService.class);
 
+    // Stored with every evaluation; bump when the scoring rules below change
+    public static final String RULES_VERSION = "1";
+
     /**
      * Calculate credit score based on financial data and update the financial info
      * @param creditData Map of credit-related data from loan application
@@ -24,9 +27,10 @@ public class CreditScoreService {
      */
     public Map<String, Object> calculateCreditScore(Map<String, Object> creditData, FinancialInfo financialInfo) {
         Map<String, Object> result = new HashMap<>();
+        result.put("rulesVersion", RULES_VERSION);
         
         try {
-            System.out.println("Calculating credit score with data: " + creditData);
+            LoanTrace.event("scoring", "Calculating credit score from fields: {}", creditData.keySet());
             
             // Map data to the format expected by CanadianCreditScoringSystem
             Map<String, Object> profileData = prepareProfileData(creditData);
@@ -34,15 +38,22 @@ public class CreditScoreService {
             // Calculate credit score using CanadianCreditScoringSystem
             int creditScore = CanadianCreditScoringSystem.calculateCreditScore(profileData);
             
-            // Log the evaluation report for debugging
-            String evaluationReport = CanadianCreditScoringSystem.evaluateCreditProfile(profileData);
-            System.out.println("Credit Evaluation Report: " + evaluationReport);
+            // The evaluation report re-runs the whole scoring model, so only build it for traced applications
+            if (LoanTrace.isActive()) {
+                String evaluationReport = CanadianCreditScoringSystem.evaluateCreditProfile(profileData);
+                LoanTrace.event("scoring", "Credit Evaluation Report: {}", evaluationReport);
+            }
+
+            // DTI comes from the financial info's metrics snapshot when there is one
+            double dti = financialInfo != null
+                    ? financialInfo.getMetricsSnapshot().getDebtToIncomeRatio()
+                    : calculateDTI(profileData);
             
             // Store system-generated credit score in financial info
             if (financialInfo != null) {
                 try {
-                    System.out.println("Setting system credit score to " + creditScore + 
-                                    " for financial info ID: " + financialInfo.getId());
+                    LoanTrace.event("scoring", "Setting system credit score to {} for financial info ID: {}",
+                            creditScore, financialInfo.getId());
                     
                     financialInfo.setSystemCreditScore(creditScore);
                     
@@ -50,7 +61,6 @@ public class CreditScoreService {
                     if (profileData.containsKey("income") && profileData.containsKey("expenses") && 
                         profileData.containsKey("debt") && profileData.containsKey("loanRequest")) {
                         
-                        double dti = calculateDTI(profileData);
                         String paymentHistory = (String) profileData.get("paymentHistory");
                         int monthsEmployed = getIntValue(profileData, "monthsEmployed", 0);
                         
@@ -58,26 +68,23 @@ public class CreditScoreService {
                             creditScore, dti, paymentHistory, monthsEmployed
                         );
                         
-                        System.out.println("Setting eligibility score to " + eligibilityScore + 
-                                        " for financial info ID: " + financialInfo.getId());
+                        LoanTrace.event("scoring", "Setting eligibility score to {} for financial info ID: {}",
+                                eligibilityScore, financialInfo.getId());
                         
                         financialInfo.setEligibilityScore(eligibilityScore);
-                        System.out.println("Updated financial info with scores - Credit: " + creditScore + 
-                                        ", Eligibility: " + eligibilityScore);
+                        LoanTrace.event("scoring", "Updated financial info with scores - Credit: {}, Eligibility: {}",
+                                creditScore, eligibilityScore);
                     } else {
-                        System.out.println("Missing data for eligibility score calculation");
+                        LoanTrace.event("scoring", "Missing data for eligibility score calculation");
                     }
                 } catch (Exception e) {
-                    System.out.println("Error updating financial info with credit scores: " + e.getMessage());
-                    e.printStackTrace();
+                    logger.warn("Error updating financial info with credit scores: {}", e.getMessage(), e);
                 }
             } else {
-                System.out.println("FinancialInfo is null, not updating");
+                LoanTrace.event("scoring", "FinancialInfo is null, not updating");
             }
             
             // Extract key metrics for decision factors
-            double dti = calculateDTI(profileData);
-            
             String employmentStability = CanadianCreditScoringSystem.determineEmploymentStability(
                 getString(profileData, "employmentStatus", "Unemployed"),
                 getIntValue(profileData, "monthsEmployed", 0)
@@ -108,7 +115,17 @@ public class CreditScoreService {
             }
             
             // Calculate credit utilization percentage if available
-            if (profileData.containsKey("creditLimit") && profileData.containsKey("usedCredit")) {
+            BigDecimal snapshotUtilization = financialInfo != null
+                    ? financialInfo.getMetricsSnapshot().getCreditUtilization() : null;
+            if (snapshotUtilization != null) {
+                double utilizationPercent = snapshotUtilization.doubleValue();
+                if (utilizationPercent > 100.0) {
+                    logger.warn("Credit utilization is over 100%: {}% - this may negatively impact credit score",
+                            utilizationPercent);
+                }
+                result.put("creditUtilization", utilizationPercent);
+                result.put("creditUtilizationRating", utilizationRating(utilizationPercent));
+            } else if (profileData.containsKey("creditLimit") && profileData.containsKey("usedCredit")) {
                 double usedCredit = getDoubleValue(profileData, "usedCredit", 0.0);
                 double creditLimit = getDoubleValue(profileData, "creditLimit", 1.0);
                 
@@ -119,14 +136,11 @@ public class CreditScoreService {
                     if (utilizationPercent > 100.0) {
                         logger.warn("Credit utilization is over 100%: {}% - this may negatively impact credit score", 
                                 utilizationPercent);
-                        System.out.println("⚠️ WARNING: Credit utilization is over 100%: " + utilizationPercent + "%");
+                        LoanTrace.event("scoring", "WARNING: Credit utilization is over 100%: {}%", utilizationPercent);
                     }
                     
                     result.put("creditUtilization", utilizationPercent);
-                    result.put("creditUtilizationRating", 
-                        utilizationPercent < 30 ? "Good" : 
-                        utilizationPercent < 50 ? "Fair" : 
-                        utilizationPercent < 75 ? "High" : "Very High");
+                    result.put("creditUtilizationRating", utilizationRating(utilizationPercent));
                     
                     logger.info("Credit utilization calculated: {}%", utilizationPercent);
                 } else {
@@ -138,12 +152,11 @@ public class CreditScoreService {
                 logger.info("Credit limit or used credit data not available, skipping utilization calculation");
             }
             
-            System.out.println("Credit score calculation completed successfully: " + result);
+            LoanTrace.event("scoring", "Credit score calculation completed successfully: {}", result);
             return result;
             
         } catch (Exception e) {
-            System.out.println("Error calculating credit score: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("Error calculating credit score: {}", e.getMessage(), e);
             
             // Return error information instead of default score
             result.put("error", "Error calculating credit score: " + e.getMessage());
@@ -183,9 +196,6 @@ public class CreditScoreService {
      * @return Mapped data in the format expected by CanadianCreditScoringSystem
      */
     private Map<String, Object> prepareProfileData(Map<String, Object> creditData) {
-        // Print what we received to help debug
-        System.out.println("prepareProfileData received: " + creditData);
-        
         Map<String, Object> profileData = new java.util.HashMap<>();
         
         try {
@@ -254,12 +264,12 @@ public class CreditScoreService {
             // Ensure credit limit is never zero to prevent division by zero
             if (creditLimit <= 0) {
                 logger.warn("Credit limit is zero or negative ({}), using minimum value to prevent errors", creditLimit);
-                System.out.println("⚠️ WARNING: Credit limit is invalid: " + creditLimit + ", using minimum value 1000.0");
+                LoanTrace.event("scoring", "WARNING: Credit limit is invalid: {}, using minimum value 1000.0", creditLimit);
                 creditLimit = 1000.0;
             }
             
             // Log credit utilization values before mapping
-            System.out.println("CREDIT UTILIZATION DEBUG - Credit used: " + usedCredit + ", Credit limit: " + creditLimit);
+            LoanTrace.event("scoring", "CREDIT UTILIZATION DEBUG - Utilization: {}%", usedCredit / creditLimit * 100);
             
             // Employment status: check multiple possible field names
             String employmentStatus = getStringValue(creditData, "employmentStatus", null);
@@ -275,7 +285,7 @@ public class CreditScoreService {
             }
             
             // Log employment data for debugging
-            System.out.println("EMPLOYMENT DEBUG - Status: " + employmentStatus + ", Months: " + monthsEmployed);
+            LoanTrace.event("scoring", "EMPLOYMENT DEBUG - Status: {}, Months: {}", employmentStatus, monthsEmployed);
             
             // Assets: check multiple possible field names
             double assets = getDoubleValue(creditData, "totalAssets", 
@@ -313,7 +323,7 @@ public class CreditScoreService {
                     debtTypes.add("Personal Loan");
                 }
             } catch (Exception e) {
-                System.out.println("Error processing debt types: " + e.getMessage());
+                logger.warn("Error processing debt types: {}", e.getMessage());
                 // Add fallback debt type
                 debtTypes.add("Other");
             }
@@ -335,12 +345,11 @@ public class CreditScoreService {
             profileData.put("debtTypes", debtTypes);
             profileData.put("creditAge", creditAge);
             
-            // Print the prepared data for debugging
-            System.out.println("prepareProfileData output: " + profileData);
+            // Record which fields were prepared, not their values
+            LoanTrace.event("scoring", "prepareProfileData output fields: {}", profileData.keySet());
             
         } catch (Exception e) {
-            System.out.println("Error in prepareProfileData: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("Error in prepareProfileData: {}", e.getMessage(), e);
             
             // Ensure minimal required data is present
             if (!profileData.containsKey("income")) profileData.put("income", 3000.0);
@@ -353,7 +362,7 @@ public class CreditScoreService {
             if (!profileData.containsKey("employmentStatus")) profileData.put("employmentStatus", "Full-time");
             if (!profileData.containsKey("monthsEmployed")) profileData.put("monthsEmployed", 12);
             
-            System.out.println("Using fallback profile data: " + profileData);
+            LoanTrace.event("scoring", "Using fallback profile data for fields: {}", profileData.keySet());
         }
         
         return profileData;
@@ -395,6 +404,12 @@ public class CreditScoreService {
         return defaultValue;
     }
 
+    private static String utilizationRating(double utilizationPercent) {
+        return utilizationPercent < 30 ? "Good" :
+               utilizationPercent < 50 ? "Fair" :
+               utilizationPercent < 75 ? "High" : "Very High";
+    }
+
     // Helper method to calculate DTI
     private double calculateDTI(Map<String, Object> profileData) {
         if (!profileData.containsKey("income") || getDoubleValue(profileData, "income", 0.0) <= 0) {
@@ -0,0 +1,251 @@
+package com.team1_5.credwise.util;
+
+import org.slf4j.helpers.MessageFormatter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Structured, sampled trace of what happens to a loan application while it is
+ * scored and decided. Replaces console dumps: events are only formatted when the
+ * current thread is tracing a sampled application, and they go into a small
+ * ring buffer per application instead of a shared output stream.
+ *
+ * <p>Tracing is off by default. When enabled, an application is traced if its id
+ * has been targeted explicitly or if it falls inside the sample rate. Sampling is
+ * decided from the id alone, so every stage makes the same decision and a sampled
+ * application is traced from its first event to its last. A thread
+ * opens a trace with {@link #begin(Long)} and every {@link #event} call on that
+ * thread is recorded until the returned scope is closed.</p>
+ */
+public final class LoanTrace {
+
+    /**
+     * A single recorded trace event
+     */
+    public record Event(Instant timestamp, String thread, String stage, String message) {}
+
+    /**
+     * Open trace on the current thread; closing it detaches the thread from the trace
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final Scope NO_OP = () -> { };
+
+    private static volatile boolean enabled = false;
+    private static volatile double sampleRate = 0.0;
+    private static volatile int bufferSize = 200;
+    private static final Set<Long> targetedApplications = ConcurrentHashMap.newKeySet();
+
+    private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<>();
+    private static final Map<Long, Trace> traces = new LinkedHashMap<>(16, 0.75f, true);
+    private static volatile int maxApplications = 500;
+
+    private LoanTrace() {
+    }
+
+    private static final class Trace {
+        private final Deque<Event> events = new ArrayDeque<>();
+
+        private synchronized void add(Event event) {
+            if (events.size() >= bufferSize) {
+                events.removeFirst();
+            }
+            events.addLast(event);
+        }
+
+        private synchronized List<Event> snapshot() {
+            return new ArrayList<>(events);
+        }
+    }
+
+    public static void configure(boolean traceEnabled, double rate, Collection<Long> applicationIds,
+                                 int eventsPerApplication, int applications) {
+        enabled = traceEnabled;
+        sampleRate = Math.max(0.0, Math.min(1.0, rate));
+        bufferSize = Math.max(1, eventsPerApplication);
+        maxApplications = Math.max(1, applications);
+        targetedApplications.clear();
+        targetedApplications.addAll(applicationIds);
+    }
+
+    public static void setEnabled(boolean traceEnabled) {
+        enabled = traceEnabled;
+    }
+
+    public static void setSampleRate(double rate) {
+        sampleRate = Math.max(0.0, Math.min(1.0, rate));
+    }
+
+    /**
+     * Always trace the given application, regardless of the sample rate
+     */
+    public static void target(Long applicationId) {
+        targetedApplications.add(applicationId);
+    }
+
+    public static void untarget(Long applicationId) {
+        targetedApplications.remove(applicationId);
+    }
+
+    /**
+     * Start tracing on the current thread. Pass null for an application that has not
+     * been saved yet and call {@link #bind(Long)} once its id is known; its events are
+     * held until then and kept only if the id turns out to be sampled.
+     * If the thread is already tracing, the existing trace is kept.
+     */
+    public static Scope begin(Long applicationId) {
+        if (!enabled || CURRENT.get() != null) {
+            return NO_OP;
+        }
+
+        Trace trace;
+        if (applicationId == null) {
+            // Nothing can be sampled without an id yet; hold the events until bind decides
+            trace = sampleRate > 0.0 || !targetedApplications.isEmpty() ? new Trace() : null;
+        } else {
+            trace = existing(applicationId);
+            if (trace == null && (targetedApplications.contains(applicationId) || sampledById(applicationId))) {
+                trace = register(applicationId, new Trace());
+            }
+        }
+
+        if (trace == null) {
+            return NO_OP;
+        }
+        CURRENT.set(trace);
+        return CURRENT::remove;
+    }
+
+    /**
+     * Attach the id of a newly saved application to the trace started by begin(null).
+     * The trace is kept if the id is targeted or sampled, the same decision every later
+     * stage makes for it, and dropped otherwise.
+     */
+    public static void bind(Long applicationId) {
+        boolean traced = enabled && (targetedApplications.contains(applicationId) || sampledById(applicationId));
+        Trace trace = CURRENT.get();
+        if (trace == null) {
+            // No open scope to detach a new trace from the thread again
+            return;
+        }
+        if (traced) {
+            CURRENT.set(register(applicationId, trace));
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Whether events on the current thread are being recorded. Use it to skip
+     * building expensive trace messages.
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Record an event with SLF4J-style {} placeholders. Arguments are only
+     * formatted when the current thread is tracing.
+     */
+    public static void event(String stage, String format, Object... args) {
+        Trace trace = CURRENT.get();
+        if (trace == null) {
+            return;
+        }
+        String message = args.length == 0 ? format : MessageFormatter.arrayFormat(format, args).getMessage();
+        trace.add(new Event(Instant.now(), Thread.currentThread().getName(), stage, message));
+    }
+
+    /**
+     * Record the contents of a map of derived values, such as a credit evaluation or an
+     * ML response. The applicant's financial inputs are not recorded
+     */
+    public static void data(String stage, String label, Map<String, ?> data) {
+        Trace trace = CURRENT.get();
+        if (trace == null) {
+            return;
+        }
+        trace.add(new Event(Instant.now(), Thread.currentThread().getName(), stage, label + ": " + format(data)));
+    }
+
+    /**
+     * Events recorded for an application, oldest first
+     */
+    public static List<Event> getEvents(Long applicationId) {
+        Trace trace = existing(applicationId);
+        return trace != null ? trace.snapshot() : List.of();
+    }
+
+    public static List<Long> getTracedApplicationIds() {
+        synchronized (traces) {
+            return new ArrayList<>(traces.keySet());
+        }
+    }
+
+    public static Map<String, Object> getSettings() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("enabled", enabled);
+        settings.put("sampleRate", sampleRate);
+        settings.put("targetedApplications", new ArrayList<>(targetedApplications));
+        settings.put("eventsPerApplication", bufferSize);
+        settings.put("maxApplications", maxApplications);
+        return settings;
+    }
+
+    private static boolean sampledById(Long applicationId) {
+        // Deterministic per id so every stage of a sampled application is traced
+        return Math.floorMod(Long.hashCode(applicationId * 0x9E3779B97F4A7C15L), 10_000) < sampleRate * 10_000;
+    }
+
+    private static Trace existing(Long applicationId) {
+        synchronized (traces) {
+            return traces.get(applicationId);
+        }
+    }
+
+    private static Trace register(Long applicationId, Trace trace) {
+        synchronized (traces) {
+            Trace current = traces.putIfAbsent(applicationId, trace);
+            if (current != null) {
+                return current;
+            }
+            while (traces.size() > maxApplications) {
+                Long eldest = traces.keySet().iterator().next();
+                traces.remove(eldest);
+            }
+            return trace;
+        }
+    }
+
+    private static String format(Map<String, ?> map) {
+        if (map == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder("{");
+        map.forEach((key, value) -> {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(key).append('=');
+            if (value instanceof BigDecimal decimal) {
+                sb.append(decimal.stripTrailingZeros().toPlainString());
+            } else {
+                sb.append(value);
+            }
+        });
+        return sb.append('}').toString();
+    }
+}
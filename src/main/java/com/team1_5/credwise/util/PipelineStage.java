@@ -0,0 +1,167 @@
+package com.team1_5.credwise.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * One stage of a processing pipeline: a bounded queue drained by a fixed set of
+ * worker threads. Handing work to a full stage blocks the caller, so when a
+ * downstream stage saturates its upstream workers stall, their queue fills, and
+ * the pressure travels back to whoever feeds the first stage.
+ *
+ * @param <T> The work item type
+ */
+public class PipelineStage<T> {
+    private static final Logger logger = LoggerFactory.getLogger(PipelineStage.class);
+
+    private final String name;
+    private final int workerCount;
+    private final BlockingQueue<Queued<T>> queue;
+    private final Consumer<T> handler;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    private final long startedAt = System.nanoTime();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder totalServiceNanos = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxServiceNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder busy = new LongAdder();
+
+    private record Queued<T>(T item, long enqueuedAt) {}
+
+    public PipelineStage(String name, int workerCount, int queueCapacity, Consumer<T> handler) {
+        this.name = name;
+        this.workerCount = workerCount;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.handler = handler;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 1; i <= workerCount; i++) {
+            Thread worker = new Thread(this::work, "pipeline-" + name + "-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * Stop the workers, giving each up to the grace period to finish its current item,
+     * and take the items still queued so the caller can hand them back.
+     *
+     * @return The items that were queued but never processed
+     */
+    public synchronized List<T> stop(long graceMillis) {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        long deadline = System.currentTimeMillis() + graceMillis;
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        workers.clear();
+
+        List<Queued<T>> drained = new ArrayList<>();
+        queue.drainTo(drained);
+        return drained.stream().map(Queued::item).toList();
+    }
+
+    /**
+     * Hand an item to this stage, blocking while its queue is full
+     */
+    public void put(T item) throws InterruptedException {
+        queue.put(new Queued<>(item, System.nanoTime()));
+    }
+
+    /**
+     * Hand an item to this stage, waiting at most the given time for queue space
+     *
+     * @return false if the stage stayed full for the whole timeout
+     */
+    public boolean offer(T item, long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.offer(new Queued<>(item, System.nanoTime()), timeout, unit);
+    }
+
+    public boolean hasCapacity() {
+        return queue.remainingCapacity() > 0;
+    }
+
+    private void work() {
+        while (running) {
+            Queued<T> queued;
+            try {
+                queued = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            long begin = System.nanoTime();
+            record(totalWaitNanos, maxWaitNanos, begin - queued.enqueuedAt());
+            busy.increment();
+            try {
+                handler.accept(queued.item());
+                processed.increment();
+            } catch (Exception e) {
+                failed.increment();
+                logger.error("Pipeline stage {} failed to process an item: {}", name, e.getMessage(), e);
+            } finally {
+                busy.decrement();
+                record(totalServiceNanos, maxServiceNanos, System.nanoTime() - begin);
+            }
+        }
+    }
+
+    private void record(LongAdder total, AtomicLong max, long nanos) {
+        total.add(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Snapshot of the stage's throughput, queue depth and latency
+     */
+    public Map<String, Object> getMetrics() {
+        long done = processed.sum() + failed.sum();
+        double uptimeSeconds = Math.max(1e-9, (System.nanoTime() - startedAt) / 1e9);
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("workers", workerCount);
+        metrics.put("busyWorkers", busy.sum());
+        metrics.put("queueDepth", queue.size());
+        metrics.put("queueCapacity", queue.size() + queue.remainingCapacity());
+        metrics.put("processed", processed.sum());
+        metrics.put("failed", failed.sum());
+        metrics.put("throughputPerSecond", Math.round(done / uptimeSeconds * 100.0) / 100.0);
+        metrics.put("avgLatencyMs", done > 0 ? TimeUnit.NANOSECONDS.toMillis(totalServiceNanos.sum() / done) : 0);
+        metrics.put("maxLatencyMs", TimeUnit.NANOSECONDS.toMillis(maxServiceNanos.get()));
+        metrics.put("avgTimeInQueueMs", done > 0 ? TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.sum() / done) : 0);
+        metrics.put("maxTimeInQueueMs", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+        return metrics;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,88 @@
+package com.team1_5.credwise.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token bucket shared by every caller of a rate-limited resource. The bucket holds
+ * up to {@code burst} tokens and refills at {@code permitsPerSecond}; each call takes
+ * one token, waiting for the next refill when the bucket is empty. A rate of zero or
+ * less disables limiting.
+ */
+public class TokenBucketRateLimiter {
+
+    private final double permitsPerSecond;
+    private final double burst;
+    private double tokens;
+    private long lastRefill;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public boolean isEnabled() {
+        return permitsPerSecond > 0;
+    }
+
+    /**
+     * Take one token, blocking until one is available.
+     */
+    public void acquire() throws InterruptedException {
+        if (!isEnabled()) {
+            acquired.increment();
+            return;
+        }
+        long start = System.nanoTime();
+        boolean waited = false;
+        while (true) {
+            long waitNanos = tryTake();
+            if (waitNanos == 0) {
+                break;
+            }
+            waited = true;
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        acquired.increment();
+        if (waited) {
+            throttled.increment();
+            totalWaitNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    // Takes a token and returns 0, or returns how long until the next token is due
+    private synchronized long tryTake() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefill) * permitsPerSecond / 1_000_000_000d);
+        lastRefill = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return Math.max(1, (long) ((1 - tokens) * 1_000_000_000d / permitsPerSecond));
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        long throttledCount = throttled.sum();
+        metrics.put("enabled", isEnabled());
+        metrics.put("permitsPerSecond", permitsPerSecond);
+        metrics.put("burst", (int) burst);
+        metrics.put("acquired", acquired.sum());
+        metrics.put("throttled", throttledCount);
+        metrics.put("avgThrottleWaitMs", throttledCount == 0 ? 0.0 : totalWaitNanos.sum() / 1_000_000.0 / throttledCount);
+        return metrics;
+    }
+}
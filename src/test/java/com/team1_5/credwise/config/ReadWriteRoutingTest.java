@@ -0,0 +1,122 @@
+package com.team1_5.credwise.config;
+
+import com.team1_5.credwise.repository.IdempotencyRecordRepository;
+import com.team1_5.credwise.repository.LoanApplicationRepository;
+import com.team1_5.credwise.service.LoanApplicationHistoryService;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Which pool each kind of transaction takes its connection from. Both pools point at one
+ * in-memory database, and every connection handed out is counted per pool. Background
+ * jobs may take primary connections at any time, so primary paths are checked by the
+ * read pool staying untouched.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1",
+        "loan.datasource.routing.enabled=true",
+        "loan.datasource.read.jdbc-url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1"
+})
+class ReadWriteRoutingTest {
+
+    private static final Map<String, LongAdder> acquisitions = new ConcurrentHashMap<>();
+
+    @TestConfiguration
+    static class PoolUsageConfig {
+        @Bean
+        static BeanPostProcessor countConnectionAcquisitions() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                    if (bean instanceof HikariDataSource dataSource) {
+                        dataSource.setMetricsTrackerFactory((poolName, poolStats) -> new IMetricsTracker() {
+                            @Override
+                            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                                acquisitions.computeIfAbsent(poolName, name -> new LongAdder()).increment();
+                            }
+                        });
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private LoanApplicationRepository loanApplicationRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private LoanApplicationHistoryService loanApplicationHistoryService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void readOnlyServiceMethodUsesReadPool() {
+        long read = acquired("read");
+        loanApplicationHistoryService.getLoanApplicationHistory(-1L, null, 5);
+        assertThat(acquired("read")).isGreaterThan(read);
+    }
+
+    @Test
+    void repositoryCallOutsideServiceTransactionUsesPrimary() {
+        assertUsesPrimary(() -> loanApplicationRepository.countByStatus("SUBMITTED"));
+        // The read half of an idempotency claim
+        assertUsesPrimary(() -> idempotencyRecordRepository.findById("no-such-key"));
+    }
+
+    @Test
+    void readOnlyTransactionNotStartedByServiceUsesPrimary() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        assertUsesPrimary(() -> readOnly.execute(status -> loanApplicationRepository.countByStatus("SUBMITTED")));
+    }
+
+    @Test
+    void writeTransactionUsesPrimary() {
+        TransactionTemplate write = new TransactionTemplate(transactionManager);
+        assertUsesPrimary(() -> write.execute(status -> loanApplicationRepository.countByStatus("SUBMITTED")));
+    }
+
+    @Test
+    void readOnlyServiceMethodUsesPrimaryForUserWhoWroteRecently() {
+        ReadWriteRoutingDataSource.setPrimaryOnly(true);
+        try {
+            assertUsesPrimary(() -> loanApplicationHistoryService.getLoanApplicationHistory(-1L, null, 5));
+        } finally {
+            ReadWriteRoutingDataSource.setPrimaryOnly(false);
+        }
+    }
+
+    private void assertUsesPrimary(Runnable path) {
+        long primary = acquired("primary");
+        long read = acquired("read");
+        path.run();
+        assertThat(acquired("primary")).isGreaterThan(primary);
+        assertThat(acquired("read")).isEqualTo(read);
+    }
+
+    private static long acquired(String pool) {
+        LongAdder count = acquisitions.get(pool);
+        return count != null ? count.sum() : 0;
+    }
+}
@@ -0,0 +1,198 @@
+package com.team1_5.credwise.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import com.team1_5.credwise.config.SqlStatementCounter;
+import com.team1_5.credwise.model.Address;
+import com.team1_5.credwise.model.DecisionFactor;
+import com.team1_5.credwise.model.FinancialInfo;
+import com.team1_5.credwise.model.LoanApplication;
+import com.team1_5.credwise.model.LoanApplicationResult;
+import com.team1_5.credwise.model.PersonalInfo;
+import com.team1_5.credwise.model.User;
+import com.team1_5.credwise.service.LoanApplicationService;
+import com.team1_5.credwise.util.JwtUtil;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the SQL statements each read endpoint issues against a cold persistence
+ * context and second-level cache, so an association that starts loading eagerly again
+ * shows up as a failure. Expects the bytecode-enhanced build (the default).
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class EndpointStatementCountTest {
+
+    private static final int APPLICATIONS = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private LoanApplicationService loanApplicationService;
+
+    private User user;
+    private final List<LoanApplication> applications = new ArrayList<>();
+
+    @BeforeEach
+    void createApplications() {
+        user = new User();
+        user.setFirstName("Statement");
+        user.setLastName("Count");
+        user.setEmail("statement.count@example.com");
+        user.setPhoneNumber("5550199");
+        user.setPassword("secret");
+        entityManager.persist(user);
+
+        for (int i = 0; i < APPLICATIONS; i++) {
+            LoanApplication application = new LoanApplication();
+            application.setUser(user);
+            application.setProductType("PERSONAL_LOAN");
+            application.setRequestedAmount(BigDecimal.valueOf(10000));
+            application.setRequestedTermMonths(36);
+            application.setStatus("APPROVED");
+            application.setCreditEvaluationData(Map.of("creditScore", 700));
+            entityManager.persist(application);
+
+            Address address = new Address();
+            address.setStreetAddress("1 Main St");
+            address.setCity("Toronto");
+            address.setProvince("ON");
+            address.setPostalCode("M5V 1A1");
+            address.setCountry("Canada");
+            address.setDurationMonths(24);
+
+            PersonalInfo personalInfo = new PersonalInfo();
+            personalInfo.setLoanApplication(application);
+            personalInfo.setFirstName("Statement");
+            personalInfo.setLastName("Count");
+            personalInfo.setEmail("statement.count@example.com");
+            personalInfo.setPhoneNumber("5550199");
+            personalInfo.setDateOfBirth(LocalDate.of(1990, 1, 1));
+            personalInfo.setAddress(address);
+            entityManager.persist(personalInfo);
+
+            FinancialInfo financialInfo = new FinancialInfo();
+            financialInfo.setUser(user);
+            financialInfo.setLoanApplication(application);
+            financialInfo.setMonthlyIncome(BigDecimal.valueOf(6000));
+            entityManager.persist(financialInfo);
+
+            applications.add(application);
+        }
+
+        LoanApplicationResult result = new LoanApplicationResult();
+        result.setLoanApplication(applications.get(0));
+        result.setStatus("APPROVED");
+        result.setMessage("Approved");
+        result.setEligibilityScore(80);
+        result.setMaxEligibleAmount(BigDecimal.valueOf(15000));
+        result.setSuggestedInterestRate("5.5%");
+        result.setSuggestedTerm(36);
+        result.setEstimatedMonthlyPayment(BigDecimal.valueOf(300));
+        entityManager.persist(result);
+        for (String factor : List.of("Credit Score", "Debt-to-Income")) {
+            DecisionFactor decisionFactor = new DecisionFactor();
+            decisionFactor.setResult(result);
+            decisionFactor.setFactor(factor);
+            decisionFactor.setImpact("Positive");
+            decisionFactor.setDescription(factor + " is within range");
+            entityManager.persist(decisionFactor);
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache().evictAllRegions();
+        SqlStatementCounter.reset();
+    }
+
+    @Test
+    void historyListIsOneStatement() throws Exception {
+        mockMvc.perform(get("/api/loan-applications-history").header("Authorization", bearer()))
+                .andExpect(status().isOk());
+
+        assertThat(SqlStatementCounter.get()).isEqualTo(1);
+    }
+
+    @Test
+    void laterHistoryPageIsAlsoOneStatement() throws Exception {
+        String firstPage = mockMvc.perform(get("/api/loan-applications-history").param("size", "1")
+                        .header("Authorization", bearer()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String cursor = JsonPath.read(firstPage, "$.nextCursor");
+        SqlStatementCounter.reset();
+
+        mockMvc.perform(get("/api/loan-applications-history").param("size", "1").param("cursor", cursor)
+                        .header("Authorization", bearer()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(applications.get(1).getId()));
+
+        assertThat(SqlStatementCounter.get()).isEqualTo(1);
+    }
+
+    @Test
+    void applicationStatusIsOneStatement() throws Exception {
+        mockMvc.perform(get("/api/loan-applications/{id}/status", applications.get(0).getId())
+                        .header("Authorization", bearer()))
+                .andExpect(status().isOk());
+
+        assertThat(SqlStatementCounter.get()).isEqualTo(1);
+    }
+
+    @Test
+    void resultViewIsOwnerCheckPlusOneStatement() throws Exception {
+        mockMvc.perform(get("/api/loan-applications-results/{id}", applications.get(0).getId())
+                        .header("Authorization", bearer()))
+                .andExpect(status().isOk());
+
+        assertThat(SqlStatementCounter.get()).isEqualTo(2);
+    }
+
+    @Test
+    void evaluationIsOneStatement() throws Exception {
+        mockMvc.perform(get("/api/ml/evaluation/{id}", applications.get(0).getId()))
+                .andExpect(status().isOk());
+
+        assertThat(SqlStatementCounter.get()).isEqualTo(1);
+    }
+
+    @Test
+    void scoringGraphsAreFourStatementsForAnyNumberOfApplications() {
+        List<LoanApplication> graphs = loanApplicationService.getApplicationGraphs(
+                applications.stream().map(LoanApplication::getId).toList());
+
+        assertThat(graphs).hasSize(APPLICATIONS);
+        // The graph query, then one per financial info collection
+        assertThat(SqlStatementCounter.get()).isEqualTo(4);
+    }
+
+    private String bearer() {
+        return "Bearer " + jwtUtil.generateToken(user.getId());
+    }
+}
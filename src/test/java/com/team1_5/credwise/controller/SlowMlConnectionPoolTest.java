@@ -0,0 +1,195 @@
+package com.team1_5.credwise.controller;
+
+import com.team1_5.credwise.model.Address;
+import com.team1_5.credwise.model.FinancialInfo;
+import com.team1_5.credwise.model.LoanApplication;
+import com.team1_5.credwise.model.PersonalInfo;
+import com.team1_5.credwise.model.User;
+import com.team1_5.credwise.service.LoanMLService;
+import com.team1_5.credwise.util.TokenBucketRateLimiter;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Load test for ML calls made while serving a request: twice as many concurrent
+ * requests as the pool has connections all reach a slow ML service at the same time,
+ * which is only possible if none of them holds a pooled connection through the call.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class SlowMlConnectionPoolTest {
+
+    private static final long ML_WAIT_SECONDS = 10;
+
+    // Every ML call waits here until all requests are inside one, then samples the pools
+    private static volatile CountDownLatch allInMl;
+    private static final AtomicInteger peakActiveConnections = new AtomicInteger();
+    private static volatile ApplicationContext context;
+
+    @TestConfiguration
+    static class SlowMlConfig {
+        @Bean
+        @Primary
+        LoanMLService slowLoanMLService(RestTemplate restTemplate, TokenBucketRateLimiter mlRateLimiter,
+                                        ApplicationContext applicationContext) {
+            context = applicationContext;
+            return new LoanMLService(restTemplate, mlRateLimiter) {
+                @Override
+                public Map<String, Object> getLoanDecision(LoanApplication application, FinancialInfo financialInfo,
+                                                           PersonalInfo personalInfo) {
+                    allInMl.countDown();
+                    try {
+                        if (allInMl.await(ML_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                            peakActiveConnections.accumulateAndGet(activeConnections(), Math::max);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return Map.of("decision", "APPROVED", "approval_probability", 0.9);
+                }
+            };
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int poolSize;
+
+    private Long userId;
+    private Long applicationId;
+
+    @BeforeEach
+    void createApplication() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            User user = new User();
+            user.setFirstName("Slow");
+            user.setLastName("Ml");
+            user.setEmail("slow.ml." + suffix + "@example.com");
+            user.setPhoneNumber("555" + suffix);
+            user.setPassword("secret");
+            entityManager.persist(user);
+
+            LoanApplication application = new LoanApplication();
+            application.setUser(user);
+            application.setProductType("PERSONAL_LOAN");
+            application.setRequestedAmount(BigDecimal.valueOf(10000));
+            application.setRequestedTermMonths(36);
+            application.setStatus("SUBMITTED");
+            entityManager.persist(application);
+
+            Address address = new Address();
+            address.setStreetAddress("1 Main St");
+            address.setCity("Toronto");
+            address.setProvince("ON");
+            address.setPostalCode("M5V 1A1");
+            address.setCountry("Canada");
+            address.setDurationMonths(24);
+
+            PersonalInfo personalInfo = new PersonalInfo();
+            personalInfo.setLoanApplication(application);
+            personalInfo.setFirstName("Slow");
+            personalInfo.setLastName("Ml");
+            personalInfo.setEmail(user.getEmail());
+            personalInfo.setPhoneNumber(user.getPhoneNumber());
+            personalInfo.setDateOfBirth(LocalDate.of(1990, 1, 1));
+            personalInfo.setAddress(address);
+            entityManager.persist(personalInfo);
+
+            FinancialInfo financialInfo = new FinancialInfo();
+            financialInfo.setUser(user);
+            financialInfo.setLoanApplication(application);
+            financialInfo.setMonthlyIncome(BigDecimal.valueOf(6000));
+            financialInfo.setMonthlyExpenses(BigDecimal.valueOf(2000));
+            entityManager.persist(financialInfo);
+
+            userId = user.getId();
+            applicationId = application.getId();
+        });
+    }
+
+    @AfterEach
+    void deleteApplication() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            entityManager.remove(entityManager.find(LoanApplication.class, applicationId));
+            entityManager.remove(entityManager.find(User.class, userId));
+        });
+    }
+
+    @Test
+    void requestsWaitingOnMlHoldNoPooledConnection() throws Exception {
+        int requests = poolSize * 2;
+        allInMl = new CountDownLatch(requests);
+        peakActiveConnections.set(0);
+
+        ExecutorService clients = Executors.newFixedThreadPool(requests);
+        try {
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                statuses.add(clients.submit(() -> mockMvc.perform(post("/api/ml/process/{id}", applicationId))
+                        .andReturn().getResponse().getStatus()));
+            }
+            for (Future<Integer> status : statuses) {
+                assertThat(status.get(ML_WAIT_SECONDS * 3, TimeUnit.SECONDS)).isEqualTo(200);
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+
+        // Had each request kept its connection through the ML call, at most poolSize of
+        // them could have reached it and the latch would never have opened
+        assertThat(allInMl.getCount()).isEqualTo(0L);
+        assertThat(peakActiveConnections.get()).isLessThan(poolSize);
+    }
+
+    private static int activeConnections() {
+        int active = 0;
+        for (HikariDataSource dataSource : context.getBeansOfType(HikariDataSource.class).values()) {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            if (pool != null) {
+                active += pool.getActiveConnections();
+            }
+        }
+        return active;
+    }
+}
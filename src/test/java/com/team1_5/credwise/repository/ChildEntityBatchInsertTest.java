@@ -0,0 +1,100 @@
+package com.team1_5.credwise.repository;
+
+import com.team1_5.credwise.config.SqlStatementCounter;
+import com.team1_5.credwise.model.Asset;
+import com.team1_5.credwise.model.Debt;
+import com.team1_5.credwise.model.EmploymentHistory;
+import com.team1_5.credwise.model.FinancialInfo;
+import com.team1_5.credwise.model.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the child rows of a financial info graph are inserted as JDBC batches:
+ * one prepared insert per table per flush, however many rows the graph has.
+ */
+@DataJpaTest
+class ChildEntityBatchInsertTest {
+
+    private static final int ROWS = 10;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @AfterEach
+    void stopCapture() {
+        SqlStatementCounter.stopCapture();
+    }
+
+    @Test
+    void childRowsOfAGraphAreInsertedInOneBatchPerTable() {
+        User user = new User();
+        user.setFirstName("Batch");
+        user.setLastName("Insert");
+        user.setEmail("batch.insert@example.com");
+        user.setPhoneNumber("5550142");
+        user.setPassword("secret");
+        entityManager.persist(user);
+
+        FinancialInfo financialInfo = new FinancialInfo();
+        financialInfo.setUser(user);
+        financialInfo.setMonthlyIncome(BigDecimal.valueOf(6000));
+        List<EmploymentHistory> employment = new ArrayList<>();
+        List<Debt> debts = new ArrayList<>();
+        List<Asset> assets = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            EmploymentHistory job = new EmploymentHistory();
+            job.setFinancialInfo(financialInfo);
+            job.setEmployerName("Employer " + i);
+            job.setStartDate(LocalDate.of(2010 + i, 1, 1));
+            employment.add(job);
+
+            Debt debt = new Debt();
+            debt.setFinancialInfo(financialInfo);
+            debt.setDebtType("CREDIT_CARD");
+            debt.setLender("Lender " + i);
+            debt.setOutstandingAmount(BigDecimal.valueOf(1000));
+            debt.setMonthlyPayment(BigDecimal.valueOf(50));
+            debt.setInterestRate(BigDecimal.valueOf(19.99));
+            debt.setRemainingTerm(24);
+            debts.add(debt);
+
+            Asset asset = new Asset();
+            asset.setFinancialInfo(financialInfo);
+            asset.setAssetType("SAVINGS");
+            asset.setEstimatedValue(BigDecimal.valueOf(5000));
+            assets.add(asset);
+        }
+        financialInfo.setEmploymentDetails(employment);
+        financialInfo.setExistingDebts(debts);
+        financialInfo.setAssets(assets);
+
+        SqlStatementCounter.startCapture();
+        entityManager.persist(financialInfo);
+        entityManager.flush();
+        List<String> statements = SqlStatementCounter.stopCapture();
+
+        assertThat(inserts(statements, "employment_history")).isEqualTo(1);
+        assertThat(inserts(statements, "debts")).isEqualTo(1);
+        assertThat(inserts(statements, "assets")).isEqualTo(1);
+        // The financial info insert, a batch per table and at most two sequence calls per
+        // table, where row-by-row inserts would be 3 * ROWS statements on their own
+        assertThat(statements.size()).isLessThanOrEqualTo(1 + 3 + 3 * 2);
+    }
+
+    private static long inserts(List<String> statements, String table) {
+        return statements.stream()
+                .filter(sql -> sql.toLowerCase().startsWith("insert into " + table + " "))
+                .count();
+    }
+}
@@ -0,0 +1,147 @@
+package com.team1_5.credwise.repository;
+
+import com.team1_5.credwise.config.SqlStatementCounter;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that H2 plans the hot repository queries on an index rather than a table scan.
+ * Each repository method is called once with its SQL captured as Hibernate prepared it,
+ * and that statement is EXPLAINed with the same parameter values.
+ */
+@DataJpaTest
+class HotQueryIndexTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private LoanApplicationRepository loanApplicationRepository;
+
+    @Autowired
+    private FinancialInfoRepository financialInfoRepository;
+
+    @Autowired
+    private FinancialSummaryRepository financialSummaryRepository;
+
+    @Autowired
+    private EmploymentHistoryRepository employmentHistoryRepository;
+
+    @Autowired
+    private DecisionFactorRepository decisionFactorRepository;
+
+    @Autowired
+    private PersonalInfoRepository personalInfoRepository;
+
+    @Autowired
+    private LoanApplicationResultRepository loanApplicationResultRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void claimableApplicationsUseStatusIndex() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        assertThat(plan("loan_applications",
+                () -> loanApplicationRepository.findClaimableIds("SUBMITTED", 0L, now.toLocalDateTime(), PageRequest.of(0, 10)),
+                "SUBMITTED", 0L, now))
+                .containsIgnoringCase("idx_loan_applications_status_id");
+    }
+
+    // H2 keeps its own index for each foreign key and, on equal cost, plans lookups by user
+    // on that one rather than on the (user_id, timestamp) index; either is a seek on user_id
+    @Test
+    void loanApplicationsByUserUseUserIndex() {
+        assertThat(plan("loan_applications", () -> loanApplicationRepository.findByUserId(1L), 1L))
+                .doesNotContainIgnoringCase("tableScan")
+                .containsIgnoringCase("USER_ID = ?1 */");
+    }
+
+    @Test
+    void latestFinancialInfoByUserUsesUserIndex() {
+        assertThat(plan("financial_info", () -> financialInfoRepository.findLatestByUserId(1L), 1L))
+                .doesNotContainIgnoringCase("tableScan")
+                .containsIgnoringCase("USER_ID = ?1 */");
+        assertThat(plan("financial_summary", () -> financialSummaryRepository.findLatestByUserId(1L), 1L))
+                .doesNotContainIgnoringCase("tableScan")
+                .containsIgnoringCase("USER_ID = ?1 */");
+    }
+
+    @Test
+    void childRowsByParentUseForeignKeyIndexes() {
+        assertThat(plan("employment_history", () -> employmentHistoryRepository.findByFinancialInfoId(1L), 1L))
+                .containsIgnoringCase("idx_employment_history_financial_info");
+        // Scoring loads debts and assets by joining them to their financial info
+        assertThat(plan("debts", () -> financialInfoRepository.fetchExistingDebts(List.of(1L)), 1L))
+                .containsIgnoringCase("idx_debts_financial_info");
+        assertThat(plan("assets", () -> financialInfoRepository.fetchAssets(List.of(1L)), 1L))
+                .containsIgnoringCase("idx_assets_financial_info");
+        assertThat(plan("decision_factors", () -> decisionFactorRepository.findByResultId(1L), 1L))
+                .containsIgnoringCase("idx_decision_factors_result");
+    }
+
+    @Test
+    void oneToOneLookupsByApplicationUseUniqueKeys() {
+        assertThat(plan("personal_info", () -> personalInfoRepository.findByLoanApplicationId(1L), 1L))
+                .doesNotContainIgnoringCase("tableScan");
+        assertThat(plan("financial_info", () -> financialInfoRepository.findByLoanApplicationId(1L), 1L))
+                .doesNotContainIgnoringCase("tableScan");
+        assertThat(plan("loan_application_results", () -> loanApplicationResultRepository.findByLoanApplicationId(1L), 1L))
+                .doesNotContainIgnoringCase("tableScan");
+    }
+
+    @Test
+    void usersByEmailAndPhoneUseUniqueKeys() {
+        assertThat(plan("users", () -> userRepository.findByEmail("a@example.com"), "a@example.com"))
+                .doesNotContainIgnoringCase("tableScan");
+        assertThat(plan("users", () -> userRepository.findByPhoneNumber("5550100"), "5550100"))
+                .doesNotContainIgnoringCase("tableScan");
+    }
+
+    /**
+     * EXPLAIN the first statement the call prepares that reads the table. Parameters are
+     * bound in order from the values given; any past those are row limits or IN-list
+     * padding and get 1.
+     */
+    private String plan(String table, Runnable repositoryCall, Object... parameters) {
+        SqlStatementCounter.startCapture();
+        List<String> statements;
+        try {
+            repositoryCall.run();
+        } finally {
+            statements = SqlStatementCounter.stopCapture();
+        }
+
+        Pattern readsTable = Pattern.compile("\\b(from|join)\\s+" + table + "\\b", Pattern.CASE_INSENSITIVE);
+        String sql = statements.stream()
+                .filter(statement -> readsTable.matcher(statement).find())
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No statement read " + table + ": " + statements));
+
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+                int count = explain.getParameterMetaData().getParameterCount();
+                for (int i = 0; i < count; i++) {
+                    explain.setObject(i + 1, i < parameters.length ? parameters[i] : 1);
+                }
+                try (ResultSet plan = explain.executeQuery()) {
+                    plan.next();
+                    return sql + "\n" + plan.getString(1);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,172 @@
+package com.team1_5.credwise.repository;
+
+import com.team1_5.credwise.model.LoanApplication;
+import com.team1_5.credwise.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Chunk claiming as batch processing and the backlog drain do it: lock the candidate ids
+ * with FOR UPDATE SKIP LOCKED, take their lease with the guarded claim update, then read
+ * back which ids the claimer actually holds. Each test claims only applications it created.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:leaseclaim;DB_CLOSE_DELAY=-1",
+        "loan.datasource.read.jdbc-url=jdbc:h2:mem:leaseclaim;DB_CLOSE_DELAY=-1"
+})
+class LoanApplicationLeaseClaimTest {
+
+    private static final int APPLICATIONS = 20;
+
+    @Autowired
+    private LoanApplicationRepository loanApplicationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private List<Long> applicationIds;
+    private long afterId;
+
+    @BeforeEach
+    void createSubmittedApplications() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        User user = new User();
+        user.setFirstName("Lease");
+        user.setLastName("Claim");
+        user.setEmail(UUID.randomUUID() + "@example.com");
+        user.setPhoneNumber(UUID.randomUUID().toString().substring(0, 10));
+        user.setPassword("secret");
+        User saved = userRepository.save(user);
+
+        List<LoanApplication> applications = new ArrayList<>();
+        for (int i = 0; i < APPLICATIONS; i++) {
+            LoanApplication application = new LoanApplication();
+            application.setUser(saved);
+            application.setProductType("Personal Loan");
+            application.setRequestedAmount(BigDecimal.valueOf(5000));
+            application.setRequestedTermMonths(24);
+            application.setStatus("SUBMITTED");
+            applications.add(application);
+        }
+        applicationIds = loanApplicationRepository.saveAll(applications).stream().map(LoanApplication::getId).toList();
+        afterId = applicationIds.get(0) - 1;
+    }
+
+    @Test
+    void concurrentClaimersWithSkipLockedNeverGetTheSameApplication() throws Exception {
+        assertClaimsDisjoint((afterId, now) ->
+                loanApplicationRepository.lockClaimableIds("SUBMITTED", afterId, now, 15));
+    }
+
+    @Test
+    void concurrentClaimersReadingTheSameCandidatesNeverGetTheSameApplication() throws Exception {
+        // Without SKIP LOCKED both claimers see the same candidates; only the claim update guards them
+        assertClaimsDisjoint((afterId, now) ->
+                loanApplicationRepository.findClaimableIds("SUBMITTED", afterId, now, PageRequest.of(0, 15)));
+    }
+
+    @Test
+    void claimUpdateSkipsApplicationsLeasedSinceTheyWereRead() {
+        // Without SKIP LOCKED two claimers can read the same candidates
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> candidates = loanApplicationRepository.findClaimableIds("SUBMITTED", afterId, now,
+                PageRequest.of(0, APPLICATIONS));
+
+        assertThat(claim(candidates, "node-a", now.plusMinutes(5))).containsExactlyElementsOf(candidates);
+        assertThat(claim(candidates, "node-b", now.plusMinutes(5))).isEmpty();
+    }
+
+    @Test
+    void expiredLeaseBecomesClaimableAgain() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> candidates = loanApplicationRepository.findClaimableIds("SUBMITTED", afterId, now,
+                PageRequest.of(0, APPLICATIONS));
+        List<Long> live = candidates.subList(0, APPLICATIONS / 2);
+        List<Long> expired = candidates.subList(APPLICATIONS / 2, APPLICATIONS);
+        claim(live, "node-alive", now.plusMinutes(5));
+        // A node that crashed after claiming; its lease has since run out
+        claim(expired, "node-crashed", now.minusSeconds(1));
+
+        List<Long> reclaimed = transactionTemplate.execute(status -> {
+            LocalDateTime later = LocalDateTime.now();
+            List<Long> claimable = loanApplicationRepository.lockClaimableIds("SUBMITTED", afterId, later, APPLICATIONS);
+            loanApplicationRepository.claim(claimable, "node-b", later.plusMinutes(5), later);
+            return loanApplicationRepository.findIdsLeasedBy(claimable, "node-b");
+        });
+        assertThat(reclaimed).containsExactlyElementsOf(expired);
+    }
+
+    /**
+     * Two claimers each read their candidates, wait until both have, then take their leases
+     * and report the ids they hold. No id may be held by both, and the table must agree.
+     */
+    private void assertClaimsDisjoint(BiFunction<Long, LocalDateTime, List<Long>> candidates) throws Exception {
+        CyclicBarrier bothRead = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<List<Long>>> claims = new ArrayList<>();
+            for (String owner : List.of("node-a", "node-b")) {
+                claims.add(executor.submit(() -> transactionTemplate.execute(status -> {
+                    LocalDateTime now = LocalDateTime.now();
+                    List<Long> ids = candidates.apply(afterId, now);
+                    try {
+                        bothRead.await(10, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        throw new IllegalStateException("Claimers did not read concurrently", e);
+                    }
+                    if (ids.isEmpty()) {
+                        return List.<Long>of();
+                    }
+                    loanApplicationRepository.claim(ids, owner, now.plusMinutes(5), now);
+                    return loanApplicationRepository.findIdsLeasedBy(ids, owner);
+                })));
+            }
+            List<Long> first = claims.get(0).get(20, TimeUnit.SECONDS);
+            List<Long> second = claims.get(1).get(20, TimeUnit.SECONDS);
+
+            assertThat(first.size() + second.size()).isPositive();
+            List<Long> heldByBoth = new ArrayList<>(first);
+            heldByBoth.retainAll(second);
+            assertThat(heldByBoth).isEmpty();
+            for (LoanApplication application : loanApplicationRepository.findAllById(applicationIds)) {
+                String expectedOwner = first.contains(application.getId()) ? "node-a"
+                        : second.contains(application.getId()) ? "node-b" : null;
+                assertThat(application.getLeaseOwner()).isEqualTo(expectedOwner);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Long> claim(List<Long> ids, String owner, LocalDateTime expiresAt) {
+        return transactionTemplate.execute(status -> {
+            loanApplicationRepository.claim(ids, owner, expiresAt, LocalDateTime.now());
+            return loanApplicationRepository.findIdsLeasedBy(ids, owner);
+        });
+    }
+}
@@ -0,0 +1,165 @@
+package com.team1_5.credwise.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.team1_5.credwise.model.IdempotencyRecord;
+import com.team1_5.credwise.repository.IdempotencyRecordRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Idempotency-Key handling against the database. A second IdempotencyService built on the
+ * same repository stands in for another node: it shares the idempotency_keys table but not
+ * this node's in-flight futures or completed-response cache.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:idempotency;DB_CLOSE_DELAY=-1",
+        "loan.datasource.read.jdbc-url=jdbc:h2:mem:idempotency;DB_CLOSE_DELAY=-1"
+})
+class IdempotencyServiceTest {
+
+    private static final Long USER_ID = 42L;
+    private static final Map<String, Object> REQUEST = Map.of("productType", "Personal Loan", "requestedAmount", 5000);
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void concurrentRequestsOnOneNodeRunTheActionOnce() throws Exception {
+        assertRunsOnceWhileConcurrent(idempotencyService);
+    }
+
+    @Test
+    void concurrentRequestOnAnotherNodeWaitsForTheStoredResponse() throws Exception {
+        assertRunsOnceWhileConcurrent(otherNode());
+    }
+
+    @Test
+    void expiredLeaseIsTakenOver() {
+        String idempotencyKey = UUID.randomUUID().toString();
+        // Left IN_PROGRESS by a node that died mid-request
+        IdempotencyRecord abandoned = new IdempotencyRecord();
+        abandoned.setKey(USER_ID + ":" + idempotencyKey);
+        abandoned.setRequestHash("0".repeat(64));
+        abandoned.setStatus("IN_PROGRESS");
+        abandoned.setOwner(UUID.randomUUID().toString());
+        abandoned.setExpiresAt(LocalDateTime.now().minusSeconds(1));
+        idempotencyRecordRepository.saveAndFlush(abandoned);
+
+        AtomicInteger runs = new AtomicInteger();
+        long started = System.nanoTime();
+        ResponseEntity<?> response = idempotencyService.execute(USER_ID, idempotencyKey, REQUEST,
+                () -> {
+                    runs.incrementAndGet();
+                    return ResponseEntity.ok(Map.of("applicationId", "7"));
+                });
+
+        assertThat(runs).hasValue(1);
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        // Taken over straight away rather than after the wait timeout
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(5000);
+        IdempotencyRecord stored = idempotencyRecordRepository.findById(USER_ID + ":" + idempotencyKey).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo("COMPLETED");
+        assertThat(stored.getOwner()).isNotEqualTo(abandoned.getOwner());
+    }
+
+    @Test
+    void completedKeyReplaysStoredResponse() throws Exception {
+        String idempotencyKey = UUID.randomUUID().toString();
+        Map<String, Object> body = Map.of("applicationId", "9", "status", "SUBMITTED");
+        AtomicInteger runs = new AtomicInteger();
+        Supplier<ResponseEntity<?>> action = () -> {
+            runs.incrementAndGet();
+            return ResponseEntity.accepted().location(URI.create("/api/loan-applications/9/status")).body(body);
+        };
+
+        ResponseEntity<?> original = idempotencyService.execute(USER_ID, idempotencyKey, REQUEST, action);
+        // From this node's cache, then from the table on a node that never saw the request
+        for (IdempotencyService node : List.of(idempotencyService, otherNode())) {
+            ResponseEntity<?> replayed = node.execute(USER_ID, idempotencyKey, REQUEST, action);
+
+            assertThat(replayed.getStatusCode()).isEqualTo(original.getStatusCode());
+            assertThat(replayed.getHeaders().getFirst("Idempotent-Replayed")).isEqualTo("true");
+            assertThat(replayed.getHeaders().getLocation()).isEqualTo(URI.create("/api/loan-applications/9/status"));
+            assertThat(replayed.getBody()).isEqualTo(objectMapper.writeValueAsString(body));
+        }
+        assertThat(runs).hasValue(1);
+    }
+
+    /**
+     * The first request is held inside its action while a second one with the same key
+     * arrives through the given service; once released, both get the one response.
+     */
+    private void assertRunsOnceWhileConcurrent(IdempotencyService second) throws Exception {
+        String idempotencyKey = UUID.randomUUID().toString();
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch inAction = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        Supplier<ResponseEntity<?>> action = () -> {
+            runs.incrementAndGet();
+            inAction.countDown();
+            try {
+                finish.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ResponseEntity.ok(Map.of("applicationId", "1"));
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<ResponseEntity<?>> first = executor.submit(
+                    () -> idempotencyService.execute(USER_ID, idempotencyKey, REQUEST, action));
+            assertThat(inAction.await(10, TimeUnit.SECONDS)).isTrue();
+            Future<ResponseEntity<?>> repeat = executor.submit(
+                    () -> second.execute(USER_ID, idempotencyKey, REQUEST, action));
+
+            // Give the repeat time to find the key taken before the first one finishes
+            Thread.sleep(500);
+            assertThat(repeat.isDone()).isFalse();
+            finish.countDown();
+
+            assertThat(first.get(10, TimeUnit.SECONDS).getHeaders().containsKey("Idempotent-Replayed")).isFalse();
+            ResponseEntity<?> replayed = repeat.get(10, TimeUnit.SECONDS);
+            assertThat(replayed.getStatusCode().value()).isEqualTo(200);
+            assertThat(replayed.getHeaders().getFirst("Idempotent-Replayed")).isEqualTo("true");
+            assertThat(runs).hasValue(1);
+        } finally {
+            finish.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private IdempotencyService otherNode() {
+        return new IdempotencyService(idempotencyRecordRepository, entityManager, objectMapper,
+                1440, 10000, 100, 30000);
+    }
+}
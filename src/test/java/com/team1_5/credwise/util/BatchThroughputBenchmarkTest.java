@@ -0,0 +1,79 @@
+package com.team1_5.credwise.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Batch throughput against worker count, using the same partitioning and rate limiter
+ * as batch processing with the ML call replaced by a fixed sleep. It only models the
+ * ML wait, so it shows where adding workers stops helping, not real end-to-end numbers.
+ * Its timing bounds depend on the machine and it runs for about ten seconds, so it is
+ * left out of the normal build; run it with {@code mvn test -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BatchThroughputBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchThroughputBenchmarkTest.class);
+
+    private static final int ITEMS = 100;
+    private static final long ML_LATENCY_MS = 50;
+    private static final double ML_PERMITS_PER_SECOND = 20;
+    private static final int ML_BURST = 20;
+
+    @Test
+    void throughputScalesWithWorkersUntilLatencyBound() throws Exception {
+        for (int workers : List.of(1, 2, 4, 8, 16)) {
+            double throughput = run(workers, new TokenBucketRateLimiter(0, ML_BURST));
+            double ceiling = workers * 1000.0 / ML_LATENCY_MS;
+            logger.info("workers={} unlimited throughput={}/s ceiling={}/s", workers, throughput, ceiling);
+
+            assertThat(throughput).isGreaterThan(ceiling * 0.7);
+            assertThat(throughput).isLessThanOrEqualTo(ceiling * 1.05);
+        }
+    }
+
+    @Test
+    void rateLimitCapsThroughputWhateverTheWorkerCount() throws Exception {
+        // The burst goes out at once, the rest at the configured rate
+        double ceiling = ITEMS / ((ITEMS - ML_BURST) / ML_PERMITS_PER_SECOND);
+        for (int workers : List.of(4, 16)) {
+            double throughput = run(workers, new TokenBucketRateLimiter(ML_PERMITS_PER_SECOND, ML_BURST));
+            logger.info("workers={} rate-limited throughput={}/s ceiling={}/s", workers, throughput, ceiling);
+
+            assertThat(throughput).isLessThanOrEqualTo(ceiling * 1.05);
+            assertThat(throughput).isGreaterThan(ceiling * 0.8);
+        }
+    }
+
+    private double run(int workers, TokenBucketRateLimiter limiter) throws Exception {
+        List<Integer> work = IntStream.range(0, ITEMS).boxed().collect(Collectors.toList());
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        long start = System.nanoTime();
+        try {
+            BatchPartitioner.run(executor, work, workers, item -> simulateMLCall(limiter));
+        } finally {
+            executor.shutdownNow();
+        }
+        return ITEMS / ((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+
+    private void simulateMLCall(TokenBucketRateLimiter limiter) {
+        try {
+            limiter.acquire();
+            Thread.sleep(ML_LATENCY_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Benchmark interrupted", e);
+        }
+    }
+}